@@ -0,0 +1,203 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+
+/**
+ * Precomputed aim-point lookup shared by teleop and autonomous.
+ *
+ * The goal is not a point target, so where we aim inside it depends on where we shoot from.
+ * Teleop and the near/far autonomous were tuned separately, so each has its own table (select
+ * it with setTable).  Each table/alliance/zone/side cell holds two points:
+ *  - AIM point   : what the turret is pointed at (getShootAngleDeg)
+ *  - RANGE point : what the shooter power is computed from (getShootDistance)
+ * An optional coarse field grid adds a calibrated X/Y offset to the AIM point per cell.
+ *
+ * Defaults are compiled in, but any entry can be overridden from a text file in the robot
+ * controller settings folder (FIRST/settings/AimTargets.txt) without rebuilding the code:
+ *    # comment
+ *    zone  AUTO_FAR BLUE FAR NEAR_SIDE  74.2 67.3  67.2 63.3     (aimX aimY rangeX rangeY)
+ *    cell  BLUE 2 7  -1.5 2.0                          (gridX gridY offsetX offsetY; all tables)
+ */
+public class AimTargetTable {
+    public final static String AIM_TARGET_FILE = "AimTargets.txt";
+
+    // Zone boundaries along field X (inches)
+    public final static double NEAR_ZONE_MIN_X = 42.0;   // X > 42 is the NEAR shooting zone
+    public final static double MID_ZONE_MIN_X  = -10.0;  // X > -10 is the MID shooting zone (else FAR)
+
+    public final static int TABLE_TELEOP    = 0;
+    public final static int TABLE_AUTO_NEAR = 1;
+    public final static int TABLE_AUTO_FAR  = 2;
+    public final static int NUM_TABLES      = 3;
+    public final static String[] TABLE_NAMES = { "TELEOP", "AUTO_NEAR", "AUTO_FAR" };
+
+    public final static int ZONE_NEAR = 0;
+    public final static int ZONE_MID  = 1;
+    public final static int ZONE_FAR  = 2;
+    public final static int NUM_ZONES = 3;
+    public final static String[] ZONE_NAMES = { "NEAR", "MID", "FAR" };
+
+    public final static int SIDE_NEAR = 0;   // our half of the field (Y>=0 for BLUE, Y<=0 for RED)
+    public final static int SIDE_FAR  = 1;
+    public final static int NUM_SIDES = 2;
+    public final static String[] SIDE_NAMES = { "NEAR_SIDE", "FAR_SIDE" };
+
+    // Offset grid covers the 144" x 144" field in 12" cells
+    public final static double FIELD_HALF_WIDTH = 72.0;
+    public final static double GRID_CELL_SIZE   = 12.0;
+    public final static int    GRID_CELLS       = 12;
+
+    // [table][alliance][zone][side]
+    public final double[][][][] aimX   = new double[NUM_TABLES][2][NUM_ZONES][NUM_SIDES];
+    public final double[][][][] aimY   = new double[NUM_TABLES][2][NUM_ZONES][NUM_SIDES];
+    public final double[][][][] rangeX = new double[NUM_TABLES][2][NUM_ZONES][NUM_SIDES];
+    public final double[][][][] rangeY = new double[NUM_TABLES][2][NUM_ZONES][NUM_SIDES];
+    private int table = TABLE_TELEOP;
+    // [alliance][gridX][gridY]
+    public final double[][][] offsetX = new double[2][GRID_CELLS][GRID_CELLS];
+    public final double[][][] offsetY = new double[2][GRID_CELLS][GRID_CELLS];
+
+    public boolean loadedFromFile = false;
+    public int     entriesLoaded  = 0;
+    public String  loadError      = null;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public AimTargetTable() {
+        setDefaults();
+    } // AimTargetTable
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Compiled-in values (from field testing).  Each program keeps the points it was tuned with
+    // for every zone until a zone is re-tuned: teleop the ftc2025DECODE.fmap based points, each
+    // autonomous the points tuned for it.
+    public void setDefaults() {
+        for( int zone=0; zone<NUM_ZONES; zone++ ) {
+            for( int side=0; side<NUM_SIDES; side++ ) {
+                setZone( TABLE_TELEOP,    Alliance.BLUE, zone, side, +60.0, +60.0, +60.0, +60.0 );
+                setZone( TABLE_TELEOP,    Alliance.RED,  zone, side, +60.0, -58.0, +60.0, -60.0 );
+                setZone( TABLE_AUTO_NEAR, Alliance.BLUE, zone, side, +64.0, +55.0, +58.0, +56.0 );
+                setZone( TABLE_AUTO_NEAR, Alliance.RED,  zone, side, +64.0, -55.0, +58.0, -56.0 );
+                setZone( TABLE_AUTO_FAR,  Alliance.BLUE, zone, side, +74.2, +67.3, +67.2, +63.3 );
+                setZone( TABLE_AUTO_FAR,  Alliance.RED,  zone, side, +74.2, -55.3, +62.2, -63.3 );
+            }
+        }
+        for( int a=0; a<2; a++ ) {
+            for( int gx=0; gx<GRID_CELLS; gx++ ) {
+                for( int gy=0; gy<GRID_CELLS; gy++ ) {
+                    offsetX[a][gx][gy] = 0.0;
+                    offsetY[a][gx][gy] = 0.0;
+                }
+            }
+        }
+    } // setDefaults
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void setZone( int t, Alliance alliance, int zone, int side,
+                         double aimXin, double aimYin, double rangeXin, double rangeYin ) {
+        int a = alliance.ordinal();
+        aimX[t][a][zone][side]   = aimXin;
+        aimY[t][a][zone][side]   = aimYin;
+        rangeX[t][a][zone][side] = rangeXin;
+        rangeY[t][a][zone][side] = rangeYin;
+    } // setZone
+
+    // Which program's points the lookups use (TABLE_TELEOP unless an autonomous selects its own)
+    public void setTable( int t ) {
+        table = t;
+    } // setTable
+
+    /*--------------------------------------------------------------------------------------------*/
+    public static int zoneIndex( double robotX ) {
+        if( robotX > NEAR_ZONE_MIN_X ) return ZONE_NEAR;
+        if( robotX > MID_ZONE_MIN_X  ) return ZONE_MID;
+        return ZONE_FAR;
+    } // zoneIndex
+
+    public static int sideIndex( Alliance alliance, double robotY ) {
+        boolean nearSide = (alliance == Alliance.BLUE)? (robotY >= 0.0) : (robotY <= 0.0);
+        return (nearSide)? SIDE_NEAR : SIDE_FAR;
+    } // sideIndex
+
+    public static int gridIndex( double fieldXY ) {
+        int cell = (int)Math.floor( (fieldXY + FIELD_HALF_WIDTH) / GRID_CELL_SIZE );
+        return Math.max( 0, Math.min( GRID_CELLS-1, cell ) );
+    } // gridIndex
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Aim point (including any per-cell calibration offset) for a robot at robotX,robotY
+    public double getAimX( Alliance alliance, double robotX, double robotY ) {
+        int a = alliance.ordinal();
+        return aimX[table][a][zoneIndex(robotX)][sideIndex(alliance,robotY)]
+                + offsetX[a][gridIndex(robotX)][gridIndex(robotY)];
+    } // getAimX
+
+    public double getAimY( Alliance alliance, double robotX, double robotY ) {
+        int a = alliance.ordinal();
+        return aimY[table][a][zoneIndex(robotX)][sideIndex(alliance,robotY)]
+                + offsetY[a][gridIndex(robotX)][gridIndex(robotY)];
+    } // getAimY
+
+    // Range point (used for shooter power) for a robot at robotX,robotY
+    public double getRangeX( Alliance alliance, double robotX, double robotY ) {
+        return rangeX[table][alliance.ordinal()][zoneIndex(robotX)][sideIndex(alliance,robotY)];
+    } // getRangeX
+
+    public double getRangeY( Alliance alliance, double robotX, double robotY ) {
+        return rangeY[table][alliance.ordinal()][zoneIndex(robotX)][sideIndex(alliance,robotY)];
+    } // getRangeY
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Apply any overrides found in the settings file.  A missing file is not an error (we just
+    // keep the compiled-in defaults); a malformed line is skipped and reported in loadError.
+    public void loadFromFile() {
+        File file = AppUtil.getInstance().getSettingsFile( AIM_TARGET_FILE );
+        loadedFromFile = false;
+        entriesLoaded  = 0;
+        loadError      = null;
+        if( !file.exists() ) return;
+        String contents = ReadWriteFile.readFile( file );
+        String[] lines = contents.split("\n");
+        for( int i=0; i<lines.length; i++ ) {
+            String line = lines[i].trim();
+            if( line.isEmpty() || line.startsWith("#") ) continue;
+            try {
+                parseLine( line.split("\\s+") );
+                entriesLoaded++;
+            } catch( RuntimeException e ) {
+                loadError = AIM_TARGET_FILE + " line " + (i+1) + ": " + line;
+            }
+        }
+        loadedFromFile = true;
+    } // loadFromFile
+
+    private void parseLine( String[] tok ) {
+        if( tok[0].equalsIgnoreCase("zone") ) {
+            Alliance alliance = Alliance.valueOf( tok[2].toUpperCase() );
+            setZone( lookup(TABLE_NAMES,tok[1]), alliance, lookup(ZONE_NAMES,tok[3]), lookup(SIDE_NAMES,tok[4]),
+                     Double.parseDouble(tok[5]), Double.parseDouble(tok[6]),
+                     Double.parseDouble(tok[7]), Double.parseDouble(tok[8]) );
+        }
+        else if( tok[0].equalsIgnoreCase("cell") ) {
+            Alliance alliance = Alliance.valueOf( tok[1].toUpperCase() );
+            int gx = Integer.parseInt(tok[2]);
+            int gy = Integer.parseInt(tok[3]);
+            offsetX[alliance.ordinal()][gx][gy] = Double.parseDouble(tok[4]);
+            offsetY[alliance.ordinal()][gx][gy] = Double.parseDouble(tok[5]);
+        }
+        else {
+            throw new IllegalArgumentException( tok[0] );
+        }
+    } // parseLine
+
+    private static int lookup( String[] names, String name ) {
+        for( int i=0; i<names.length; i++ ) {
+            if( names[i].equalsIgnoreCase(name) ) return i;
+        }
+        throw new IllegalArgumentException( name );
+    } // lookup
+
+} // AimTargetTable
@@ -0,0 +1,203 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * One non-blocking step of an autonomous routine.
+ *
+ * A command never loops or sleeps: start() is called once, then update() once per control loop
+ * until it returns true, then end() exactly once (interrupted = true if a group or the scheduler
+ * stopped it early).  Commands compose into groups that are all ticked from the same loop:
+ *   sequence - one after another (a command that finishes starts the next in the same loop)
+ *   parallel - all at once, finished when all have finished
+ *   race     - all at once, finished when any has finished (the rest are interrupted)
+ *   deadline - all at once, finished when the first one has finished (the rest are interrupted)
+ * so driving, aiming, shooter spin-up and indexing can all progress together.  Don't put two
+ * commands that drive the chassis (or move the same mechanism) in the same parallel group.
+ *
+ * Groups, timers and the rest are built once when the routine is put together; a command can be
+ * run again after it ends (start() resets it).  Anything that must be decided when the step is
+ * reached (eg a path that depends on where we ended up) goes in defer().
+ */
+public abstract class AutoCommand {
+
+    public interface Condition { boolean test(); }
+    public interface Factory   { AutoCommand create(); }
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void start() { }
+
+    // Called every control loop while running; true = finished
+    public abstract boolean update();
+
+    public void end( boolean interrupted ) { }
+
+    /*--------------------------------------------------------------------------------------------*/
+    // This command, but stopped after msec if it hasn't finished by itself
+    public AutoCommand withTimeout( double msec ) {
+        return race( this, waitMsec( msec ) );
+    } // withTimeout
+
+    /*====================================== Basic commands ======================================*/
+    // Run once, finishes immediately
+    public static AutoCommand instant( Runnable action ) {
+        return new AutoCommand() {
+            @Override public void start()    { action.run(); }
+            @Override public boolean update() { return true; }
+        };
+    } // instant
+
+    // Run every loop until interrupted (use in a race/deadline, eg auto-aim while driving)
+    public static AutoCommand perpetual( Runnable everyLoop ) {
+        return new AutoCommand() {
+            @Override public boolean update() { everyLoop.run(); return false; }
+        };
+    } // perpetual
+
+    public static AutoCommand waitMsec( double msec ) {
+        return new AutoCommand() {
+            final ElapsedTime timer = new ElapsedTime();
+            @Override public void start()    { timer.reset(); }
+            @Override public boolean update() { return (timer.milliseconds() >= msec); }
+        };
+    } // waitMsec
+
+    public static AutoCommand waitUntil( Condition done ) {
+        return new AutoCommand() {
+            @Override public boolean update() { return done.test(); }
+        };
+    } // waitUntil
+
+    // Skipped (finishes immediately) unless the condition holds when this step is reached
+    public static AutoCommand onlyIf( Condition condition, AutoCommand command ) {
+        return new AutoCommand() {
+            boolean running;
+            @Override public void start() {
+                running = condition.test();
+                if( running ) command.start();
+            }
+            @Override public boolean update() { return !running || command.update(); }
+            @Override public void end( boolean interrupted ) {
+                if( running ) command.end( interrupted );
+            }
+        };
+    } // onlyIf
+
+    // Build the command when this step is reached
+    public static AutoCommand defer( Factory factory ) {
+        return new AutoCommand() {
+            AutoCommand command;
+            @Override public void start() {
+                command = factory.create();
+                command.start();
+            }
+            @Override public boolean update() { return command.update(); }
+            @Override public void end( boolean interrupted ) {
+                command.end( interrupted );
+                command = null;
+            }
+        };
+    } // defer
+
+    /*========================================== Groups ==========================================*/
+    public static AutoCommand sequence( AutoCommand... commands ) {
+        return new Sequence( commands );
+    } // sequence
+
+    public static AutoCommand parallel( AutoCommand... commands ) {
+        return new Group( Group.ALL, commands );
+    } // parallel
+
+    public static AutoCommand race( AutoCommand... commands ) {
+        return new Group( Group.ANY, commands );
+    } // race
+
+    public static AutoCommand deadline( AutoCommand deadline, AutoCommand... others ) {
+        AutoCommand[] commands = new AutoCommand[ others.length + 1 ];
+        commands[0] = deadline;
+        System.arraycopy( others, 0, commands, 1, others.length );
+        return new Group( Group.FIRST, commands );
+    } // deadline
+
+    /*--------------------------------------------------------------------------------------------*/
+    private static class Sequence extends AutoCommand {
+        private final AutoCommand[] commands;
+        private int current;
+
+        Sequence( AutoCommand[] commands ) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void start() {
+            current = 0;
+            if( commands.length > 0 ) commands[0].start();
+        } // start
+
+        @Override
+        public boolean update() {
+            // Commands that finish right away (instant, skipped) don't cost a loop each
+            while( current < commands.length ) {
+                if( !commands[current].update() ) return false;
+                commands[current].end( false );
+                if( ++current < commands.length ) commands[current].start();
+            }
+            return true;
+        } // update
+
+        @Override
+        public void end( boolean interrupted ) {
+            if( interrupted && (current < commands.length) ) commands[current].end( true );
+        } // end
+    } // Sequence
+
+    /*--------------------------------------------------------------------------------------------*/
+    private static class Group extends AutoCommand {
+        final static int ALL   = 0;   // parallel
+        final static int ANY   = 1;   // race
+        final static int FIRST = 2;   // deadline
+        private final int mode;
+        private final AutoCommand[] commands;
+        private final boolean[] running;
+
+        Group( int mode, AutoCommand[] commands ) {
+            this.mode     = mode;
+            this.commands = commands;
+            this.running  = new boolean[ commands.length ];
+        }
+
+        @Override
+        public void start() {
+            for( int i=0; i<commands.length; i++ ) {
+                commands[i].start();
+                running[i] = true;
+            }
+        } // start
+
+        @Override
+        public boolean update() {
+            boolean anyRunning = false, done = false;
+            for( int i=0; i<commands.length; i++ ) {
+                if( !running[i] ) continue;
+                if( commands[i].update() ) {
+                    commands[i].end( false );
+                    running[i] = false;
+                    if( (mode == ANY) || ((mode == FIRST) && (i == 0)) ) done = true;
+                } else {
+                    anyRunning = true;
+                }
+            }
+            return done || !anyRunning;
+        } // update
+
+        @Override
+        public void end( boolean interrupted ) {
+            // Whatever is still running lost the race / missed the deadline
+            for( int i=0; i<commands.length; i++ ) {
+                if( running[i] ) commands[i].end( true );
+                running[i] = false;
+            }
+        } // end
+    } // Group
+
+} // AutoCommand
@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode;
 
+import static org.firstinspires.ftc.teamcode.AutoCommand.*;
 import static org.firstinspires.ftc.teamcode.BallOrder.PPG_23;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P1;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P2;
@@ -24,6 +25,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Function;
 
 public abstract class AutonomousBase extends LinearOpMode {
     /* Declare OpMode members. */
@@ -65,6 +67,8 @@ public abstract class AutonomousBase extends LinearOpMode {
     static final double MIN_SPIN_RATE      = 0.06;    // Minimum power to turn the robot
     static final double MIN_DRIVE_POW      = 0.06;    // Minimum speed to move the robot
     static final double MIN_DRIVE_MAGNITUDE = Math.sqrt(MIN_DRIVE_POW*MIN_DRIVE_POW+MIN_DRIVE_POW*MIN_DRIVE_POW);
+    static final double TRAJECTORY_START_TOL = 4.0;   // inches from a precomputed trajectory's start to use it
+    static final double TRAJECTORY_START_DEG = 15.0;  // degrees
 
     public BallOrder obeliskID = PPG_23; // if we can't see it, default to PPG (purple purple green)
     public boolean   obeliskDetected = false;
@@ -77,7 +81,6 @@ public abstract class AutonomousBase extends LinearOpMode {
     double robotGlobalYCoordinatePosition       = 0.0;   // inches
     double robotOrientationRadians              = 0.0;   // radians 0deg (straight forward)
 
-    boolean runningAutonomousFar                = true;  // affects our target location
     double  autoAimDistance                     = 0.0;   // inches  (always calculated)
     double  autoAimPower                        = 0.0;   // power   (always calculated)
     double  autoAimAngleDeg                     = 0.0;   // degrees (always calculated)
@@ -157,6 +160,16 @@ public abstract class AutonomousBase extends LinearOpMode {
 
     ElapsedTime autonomousTimer     = new ElapsedTime();  // overall
     ElapsedTime motionTimer         = new ElapsedTime();  // for driving
+    MechanismScheduler pathScheduler = new MechanismScheduler( robot );  // spindexer moves along a path
+    MechanismScheduler scheduledPath = null;                             // path being driven (if any)
+    CommandScheduler   commands      = new CommandScheduler();           // runs the autonomous routine
+    PurePursuitFollower follower     = new PurePursuitFollower();        // smooth paths (drivePathSmooth)
+    boolean            smoothPaths   = false;  // false = drive straight at each waypoint (drivePathStraight)
+    ProfiledMove       moveProfile   = new ProfiledMove();               // point-to-point moves
+    boolean            profiledMoves = false;  // false = driveToXY/rotateToAngle proportional control
+    TrajectoryLibrary  trajectories  = new TrajectoryLibrary();          // precomputed paths (load() at init)
+    boolean            precomputedPaths = false;  // false = never use/record precomputed trajectories
+    double             trajectoryMaxError = 0.0;  // worst tracking error on the last trajectory [in]
 
     // gamepad controls for changing autonomous options
     boolean gamepad1_circle_last,   gamepad1_circle_now  =false;
@@ -334,6 +347,8 @@ public abstract class AutonomousBase extends LinearOpMode {
                 robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition, Math.toDegrees(robotOrientationRadians) );
         telemetry.addLine("Preload=GPP (Green down thru shooter!)");
         telemetry.addLine("Press X to intake the preload balls");
+        telemetry.addData("Trajectories", "%d %s", trajectories.size(),
+                ((trajectories.fileError != null)? trajectories.fileError : "") );
         telemetry.addData(">","version 100" );
         telemetry.update();
     } // processAutonomousInitMenu
@@ -354,11 +369,15 @@ public abstract class AutonomousBase extends LinearOpMode {
     /*---------------------------------------------------------------------------------*/
     public void performEveryLoop() {
         robot.readBulkData();  // 7.3 msec for readBulkData
-        // Update the pinpoint odometry positions
-        robot.updatePinpointFieldPosition();
+        // Update the pinpoint odometry positions (and any other I2C devices that are due)
+        robot.readI2cDevices();
         robotGlobalXCoordinatePosition = robot.robotGlobalXCoordinatePosition;
         robotGlobalYCoordinatePosition = robot.robotGlobalYCoordinatePosition;
         robotOrientationRadians        = Math.toRadians( robot.robotOrientationDegrees );
+        // Start any spindexer moves that are due along the path we're driving
+        if( scheduledPath != null ) {
+            scheduledPath.update( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
+        }
         // Update the limelight field positions based on the goal apriltag
         robot.updateLimelightFieldPosition();
         // process other hardware state machines
@@ -366,59 +385,15 @@ public abstract class AutonomousBase extends LinearOpMode {
 //      robot.processSpindexerControl();  // only for continuous rotation
         robot.processInjectionStateMachine();
         // Compute the power/angle needed for auto-aiming
-        autoAimDistance = getShootDistanceAutoFar();
+        autoAimDistance = robot.getShootDistance( (redAlliance)? Alliance.RED : Alliance.BLUE );
         autoAimPower    = robot.computeShooterPower(autoAimDistance);
-        autoAimAngleDeg = getShootAngleDegAutoFar();
+        autoAimAngleDeg = robot.getShootAngleDeg( (redAlliance)? Alliance.RED : Alliance.BLUE );
         if( autoAimEnabled ) {
-           robot.setTurretAngle(autoAimAngleDeg);
+           robot.setTurretAngleTracking(autoAimAngleDeg);
            robot.shooterMotorsSetPower(autoAimPower);
         }
     } // performEveryLoop
 
-    /*--------------------------------------------------------------------------------------------*/
-    public double getShootDistanceAutoFar() {
-        double currentX = robotGlobalXCoordinatePosition;
-        double currentY = robotGlobalYCoordinatePosition;
-        double targetX, targetY;
-        if( runningAutonomousFar ) {
-            targetX = redAlliance ? +62.2 : +67.2;
-            targetY = redAlliance ? -63.3 : +63.3;
-        }
-        else {
-            targetX = redAlliance ? +58.0 : +58.0;  // 6ft = 72"
-            targetY = redAlliance ? -56.0 : +56.0;  // 6ft = 72"
-        }
-        // Compute distance to target point inside the goal
-        double deltaX = targetX - currentX;
-        double deltaY = targetY - currentY;
-        double distance = Math.sqrt( Math.pow(deltaX,2) + Math.pow(deltaY,2) );
-        return distance;
-    } // getShootDistanceAutoFar    
-
-    /*--------------------------------------------------------------------------------------------*/
-    public double getShootAngleDegAutoFar() {
-        double currentX = robotGlobalXCoordinatePosition;
-        double currentY = robotGlobalYCoordinatePosition;
-        double targetX, targetY;
-        // Compute distance to target point inside the goal
-        if( runningAutonomousFar ) {
-            targetX = redAlliance ? +74.2 : +74.2;
-            targetY = redAlliance ? -55.3 : +67.3;
-        }
-        else {
-            targetX = redAlliance ? +64.0 : +64.0;  // 6ft = 72"
-            targetY = redAlliance ? -55.0 : +55.0;  // 6ft = 72"
-        }
-       // Compute distance to target point inside the goal
-        double deltaX = targetX - currentX;
-        double deltaY = targetY - currentY;
-        // Compute the angle assuming the robot is facing forward at 0 degrees
-        double targetFromStraight = Math.toDegrees( Math.atan2(deltaY,deltaX) );
-        // Adjust for the current robot orientation
-        double shootAngle = targetFromStraight - Math.toDegrees(robotOrientationRadians);
-        return shootAngle;
-    } // getShootAngleDegAutoFar
-
     /*--------------------------------------------------------------------------------------------*/
     public void processLimelightObelisk() {
         LLResult result = robot.limelight.getLatestResult();
@@ -845,6 +820,11 @@ public abstract class AutonomousBase extends LinearOpMode {
     //============================ ODOMETRY-BASED NAVIGATION FUNCTIONS ============================
     public void driveToPosition(double xTarget, double yTarget, double angleTarget,
                                 double speedMax, double turnMax, int driveType) {
+        // Point-to-point moves follow a motion profile (see ProfiledMove)
+        if( profiledMoves && (driveType == DRIVE_TO) ) {
+            runBlocking( driveTo( xTarget, yTarget, angleTarget, speedMax, turnMax, driveType ) );
+            return;
+        }
         // Loop until we get to destination.
         performEveryLoop();
         while(!driveToXY( xTarget, yTarget, angleTarget,
@@ -864,6 +844,7 @@ public abstract class AutonomousBase extends LinearOpMode {
         }
     }
 
+
     /*---------------------------------------------------------------------------------*/
     /**
      * @param angleTarget  - The angle the robot should try to face when reaching destination.
@@ -871,6 +852,10 @@ public abstract class AutonomousBase extends LinearOpMode {
      */
     public void rotateToAngle(double angleTarget,
                               double turnMax) {
+        if( profiledMoves ) {
+            runBlocking( rotateTo( angleTarget, turnMax ) );
+            return;
+        }
         // Move the robot away from the wall.
         performEveryLoop();
         rotateToAngle(angleTarget, true);
@@ -894,6 +879,407 @@ public abstract class AutonomousBase extends LinearOpMode {
         }
     } // herdForwardQuickly
 
+    //============================ NON-BLOCKING AUTONOMOUS COMMANDS ============================
+    // These are the command versions of the blocking functions above: they do one step per
+    // control loop, so the routine can be a single command graph (see AutoCommand) that drives,
+    // aims, spins up and indexes at the same time, all from the one loop in runCommand().
+
+    /*---------------------------------------------------------------------------------*/
+    // Run a command (usually the whole routine) to completion
+    public void runCommand( AutoCommand command ) {
+        commands.schedule( command );
+        while( opModeIsActive() && !commands.isIdle() ) {
+            performEveryLoop();
+            commands.update();
+        }
+        // OpMode stopping? (no-op if everything finished)
+        commands.cancelAll();
+    } // runCommand
+
+    // Run one command in the caller's own loop, for the blocking helpers above.  It doesn't go
+    // through the scheduler, so a blocking move made while runCommand() is active can't cancel
+    // (or be cancelled with) the scheduled commands.
+    void runBlocking( AutoCommand command ) {
+        command.start();
+        boolean done = false;
+        while( opModeIsActive() && !done ) {
+            performEveryLoop();
+            done = command.update();
+        }
+        command.end( !done );
+    } // runBlocking
+
+    /*---------------------------------------------------------------------------------*/
+    // driveToPosition() as a command
+    public AutoCommand driveTo( double xTarget, double yTarget, double angleTarget,
+                                double speedMax, double turnMax, int driveType ) {
+        if( profiledMoves && (driveType == DRIVE_TO) ) {
+            return profiledMove( xTarget, yTarget, angleTarget, speedMax, turnMax );
+        }
+        return proportionalMove( xTarget, yTarget, angleTarget, speedMax, driveType );
+    } // driveTo
+
+    // driveToXY() (then rotateToAngle() for a DRIVE_TO) as a command; also finishes profiled
+    // moves that ran out of settle time
+    AutoCommand proportionalMove( double xTarget, double yTarget, double angleTarget,
+                                  double speedMax, int driveType ) {
+        return new AutoCommand() {
+            boolean rotating;
+            @Override public void start() {
+                rotating = false;
+            }
+            @Override public boolean update() {
+                if( rotating ) return rotateToAngle( angleTarget, false );
+                if( !driveToXY( xTarget, yTarget, angleTarget, speedMax, driveType ) ) return false;
+                if( driveType != DRIVE_TO ) return true;
+                // Fix the angle if we didn't reach angle in the drive
+                rotating = true;
+                return rotateToAngle( angleTarget, true );
+            }
+            @Override public void end( boolean interrupted ) {
+                if( interrupted ) robot.stopMotion();
+            }
+        };
+    } // proportionalMove
+
+    /*---------------------------------------------------------------------------------*/
+    // rotateToAngle() as a command
+    public AutoCommand rotateTo( double angleTarget, double turnMax ) {
+        if( profiledMoves ) {
+            return defer( () -> profiledMove( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                                              angleTarget, 0.0, turnMax ) );
+        }
+        return new AutoCommand() {
+            boolean first;
+            @Override public void start() {
+                first = true;
+            }
+            @Override public boolean update() {
+                boolean done = rotateToAngle( angleTarget, first );
+                first = false;
+                return done;
+            }
+            @Override public void end( boolean interrupted ) {
+                if( interrupted ) robot.stopMotion();
+            }
+        };
+    } // rotateTo
+
+    /*---------------------------------------------------------------------------------*/
+    // Profiled point-to-point move (translation and rotation together), ending stopped
+    public AutoCommand profiledMove( double xTarget, double yTarget, double angleTarget,
+                                     double speedMax, double turnMax ) {
+        return new AutoCommand() {
+            AutoCommand fallback;   // proportional control, if the profile timed out
+            @Override public void start() {
+                fallback = null;
+                moveProfile.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                        Math.toDegrees(robotOrientationRadians), xTarget, yTarget, angleTarget,
+                        speedMax, turnMax, pathScheduler.ipsPerPower );
+            }
+            @Override public boolean update() {
+                if( fallback != null ) return fallback.update();
+                boolean done = moveProfile.update( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                        Math.toDegrees(robotOrientationRadians) );
+                if( done && moveProfile.timedOut ) {
+                    fallback = proportionalMove( xTarget, yTarget, angleTarget, speedMax, DRIVE_TO );
+                    fallback.start();
+                    return fallback.update();
+                }
+                if( done ) return true;
+                applyFieldMovement( Math.hypot( moveProfile.fieldX, moveProfile.fieldY ),
+                        Math.atan2( moveProfile.fieldY, moveProfile.fieldX ), moveProfile.turnPower );
+                return false;
+            }
+            @Override public void end( boolean interrupted ) {
+                if( fallback != null ) fallback.end( interrupted );
+                robot.stopMotion();
+            }
+        };
+    } // profiledMove
+
+    // Drive in a field-frame direction [radians] while turning (+CCW)
+    void applyFieldMovement( double speed, double driveAngle, double turnMovement ) {
+        double robotDriveAngle = AngleWrapRadians( driveAngle - robotOrientationRadians );
+        ApplyMovement( speed * Math.sin(robotDriveAngle), speed * Math.cos(robotDriveAngle), turnMovement );
+    } // applyFieldMovement
+
+    /*---------------------------------------------------------------------------------*/
+    // Drive all the waypoints of a path, letting the scheduler start the spindexer moves
+    // (the robot never waits for them).  Build the path in a defer() if more than one path
+    // shares the same MechanismScheduler.  Uses the precomputed trajectory for the path if
+    // there is one and we're where it starts; otherwise records the path for the compiler.
+    public AutoCommand drivePath( MechanismScheduler path ) {
+        if( precomputedPaths ) {
+            double robotDeg = Math.toDegrees( robotOrientationRadians );
+            Trajectory trajectory = trajectories.find( path );
+            if( (trajectory != null) &&
+                (Math.hypot( trajectory.startX() - robotGlobalXCoordinatePosition,
+                             trajectory.startY() - robotGlobalYCoordinatePosition ) < TRAJECTORY_START_TOL) &&
+                (Math.abs( AngleWrapDegrees( trajectory.startHeading() - robotDeg ) ) < TRAJECTORY_START_DEG) ) {
+                return drivePathTrajectory( path, trajectory );
+            }
+            if( trajectory == null ) {
+                trajectories.record( path, robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition, robotDeg );
+            }
+        }
+        return (smoothPaths)? drivePathSmooth( path ) : drivePathStraight( path );
+    } // drivePath
+
+    /*---------------------------------------------------------------------------------*/
+    // Track a precomputed trajectory (see TrajectoryLibrary): every loop sample where we should
+    // be, and command the planned velocity and acceleration (feedforward) plus a correction
+    // for the position and heading error (feedback).  Waypoints are reached when the plan says
+    // we pass them; a final DRIVE_TO waypoint is settled with a profiled move.
+    public AutoCommand drivePathTrajectory( MechanismScheduler path, Trajectory trajectory ) {
+        return new AutoCommand() {
+            final ElapsedTime timer = new ElapsedTime();
+            int     k;          // next waypoint to reach
+            boolean settling;
+            AutoCommand fallback;   // proportional settle, if the profiled one timed out
+            @Override public void start() {
+                scheduledPath = path;
+                path.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
+                k = 0;
+                settling = false;
+                fallback = null;
+                trajectoryMaxError = 0.0;
+                timer.reset();
+            }
+            @Override public boolean update() {
+                int last = path.size() - 1;
+                double robotDeg = Math.toDegrees( robotOrientationRadians );
+                if( settling ) {
+                    if( fallback != null ) {
+                        if( !fallback.update() ) return false;
+                    } else if( !moveProfile.update( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition, robotDeg ) ) {
+                        applyFieldMovement( Math.hypot( moveProfile.fieldX, moveProfile.fieldY ),
+                                Math.atan2( moveProfile.fieldY, moveProfile.fieldX ), moveProfile.turnPower );
+                        return false;
+                    } else if( moveProfile.timedOut ) {
+                        fallback = proportionalMove( path.getX(last), path.getY(last), path.getAngle(last),
+                                                     path.getSpeed(last), DRIVE_TO );
+                        fallback.start();
+                        return false;
+                    }
+                    robot.stopMotion();
+                    path.reached( last );
+                    k = path.size();
+                    return true;
+                }
+                double t = timer.seconds();
+                while( (k < last) && (t >= trajectory.getWaypointTime(k)) ) path.reached( k++ );
+                if( t >= trajectory.duration() ) {
+                    if( path.getDriveType(last) != DRIVE_TO ) {
+                        path.reached( last );
+                        k = path.size();
+                        return true;
+                    }
+                    settling = true;
+                    moveProfile.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition, robotDeg,
+                            path.getX(last), path.getY(last), path.getAngle(last),
+                            path.getSpeed(last), path.getTurn(last), path.ipsPerPower );
+                    return false;
+                }
+                trajectory.sample( t );
+                double ips   = Math.hypot( trajectory.sVx, trajectory.sVy );
+                double fieldX = trajectory.sVx / path.ipsPerPower + ProfiledMove.KA_DRIVE * trajectory.sAx;
+                double fieldY = trajectory.sVy / path.ipsPerPower + ProfiledMove.KA_DRIVE * trajectory.sAy;
+                if( ips > 1.0e-3 ) {
+                    fieldX += ProfiledMove.KS_DRIVE * trajectory.sVx / ips;
+                    fieldY += ProfiledMove.KS_DRIVE * trajectory.sVy / ips;
+                }
+                double errorX = trajectory.sx - robotGlobalXCoordinatePosition;
+                double errorY = trajectory.sy - robotGlobalYCoordinatePosition;
+                fieldX += ProfiledMove.KP_DRIVE * errorX;
+                fieldY += ProfiledMove.KP_DRIVE * errorY;
+                trajectoryMaxError = Math.max( trajectoryMaxError, Math.hypot( errorX, errorY ) );
+                double turn = trajectory.sOmega / ProfiledMove.DPS_PER_POWER
+                            + ProfiledMove.KP_TURN * AngleWrapDegrees( trajectory.sHeading - robotDeg );
+                applyFieldMovement( Math.hypot( fieldX, fieldY ), Math.atan2( fieldY, fieldX ), turn );
+                return false;
+            }
+            @Override public void end( boolean interrupted ) {
+                path.finish();
+                scheduledPath = null;
+                if( interrupted ) robot.stopMotion();
+            }
+        };
+    } // drivePathTrajectory
+
+    /*---------------------------------------------------------------------------------*/
+    // Drive straight at each waypoint in turn (driveToXY)
+    public AutoCommand drivePathStraight( MechanismScheduler path ) {
+        return new AutoCommand() {
+            int     k;          // waypoint we're driving to
+            boolean rotating;   // at a DRIVE_TO waypoint, fixing the angle
+            @Override public void start() {
+                scheduledPath = path;
+                path.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
+                k = 0;
+                rotating = false;
+            }
+            @Override public boolean update() {
+                if( k >= path.size() ) return true;
+                boolean done;
+                if( rotating ) {
+                    done = rotateToAngle( path.getAngle(k), false );
+                } else {
+                    if( !driveToXY( path.getX(k), path.getY(k), path.getAngle(k), path.getSpeed(k), path.getDriveType(k) ) )
+                        return false;
+                    path.reached( k );
+                    done = true;
+                    // Fix the angle if we didn't reach angle in the drive
+                    if( path.getDriveType(k) == DRIVE_TO ) {
+                        rotating = true;
+                        done = rotateToAngle( path.getAngle(k), true );
+                    }
+                }
+                if( !done ) return false;
+                rotating = false;
+                return (++k >= path.size());
+            }
+            @Override public void end( boolean interrupted ) {
+                path.finish();
+                scheduledPath = null;
+                if( interrupted ) robot.stopMotion();
+            }
+        };
+    } // drivePathStraight
+
+    /*---------------------------------------------------------------------------------*/
+    // Follow a smooth curve through the waypoints (see PurePursuitFollower), keeping our speed
+    // through the DRIVE_THRU waypoints.  At a DRIVE_TO waypoint the curve ends at zero speed,
+    // driveToXY() takes over for the final accuracy, then we fix the angle.
+    public AutoCommand drivePathSmooth( MechanismScheduler path ) {
+        return new AutoCommand() {
+            final static int FOLLOW = 0, SETTLE = 1, ROTATE = 2;
+            int k;           // next waypoint to reach
+            int legStart;    // path waypoint that's follower waypoint 1
+            int legEnd;      // last path waypoint of the curve being followed
+            int phase;
+            boolean proportional;   // settle with driveToXY (profiledMoves off, or the profile timed out)
+            @Override public void start() {
+                scheduledPath = path;
+                path.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
+                k = 0;
+                startLeg( 0.0 );
+            }
+            // Curve from where we are through the waypoints up to the next DRIVE_TO (or the end)
+            void startLeg( double power ) {
+                legStart = k;
+                legEnd   = k;
+                while( (legEnd < path.size()-1) && (path.getDriveType(legEnd) != DRIVE_TO) ) legEnd++;
+                follower.begin( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                                Math.toDegrees(robotOrientationRadians), power );
+                for( int j=legStart; j<=legEnd; j++ ) {
+                    follower.addWaypoint( path.getX(j), path.getY(j), path.getAngle(j), path.getSpeed(j) );
+                }
+                boolean stop = (path.getDriveType(legEnd) == DRIVE_TO);
+                follower.build( (stop)? 0.0 : path.getSpeed(legEnd), path.ipsPerPower );
+                phase = FOLLOW;
+                proportional = !profiledMoves;
+            }
+            @Override public boolean update() {
+                if( k >= path.size() ) return true;
+                if( phase == FOLLOW ) {
+                    boolean end = follower.update( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                                                   Math.toDegrees(robotOrientationRadians) );
+                    // Intermediate waypoints are reached as we pass them along the curve
+                    while( (k < legEnd) && (follower.progress() >= follower.getWaypointS(k - legStart + 1)) ) {
+                        path.reached( k++ );
+                    }
+                    if( !end ) {
+                        double speed = Math.max( MIN_DRIVE_MAGNITUDE, follower.drivePower );
+                        applyFieldMovement( speed, follower.driveAngleRad, follower.turnPower );
+                        return false;
+                    }
+                    while( k < legEnd ) path.reached( k++ );
+                    if( path.getDriveType(k) != DRIVE_TO ) {
+                        path.reached( k++ );
+                        if( k < path.size() ) startLeg( path.getSpeed(k-1) );
+                        return (k >= path.size());
+                    }
+                    phase = SETTLE;
+                    if( !proportional ) {
+                        // settle and fix the angle together
+                        moveProfile.start( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                                Math.toDegrees(robotOrientationRadians), path.getX(k), path.getY(k), path.getAngle(k),
+                                path.getSpeed(k), path.getTurn(k), path.ipsPerPower );
+                    }
+                }
+                if( (phase == SETTLE) && !proportional ) {
+                    if( !moveProfile.update( robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition,
+                                              Math.toDegrees(robotOrientationRadians) ) ) {
+                        applyFieldMovement( Math.hypot( moveProfile.fieldX, moveProfile.fieldY ),
+                                Math.atan2( moveProfile.fieldY, moveProfile.fieldX ), moveProfile.turnPower );
+                        return false;
+                    }
+                    if( moveProfile.timedOut ) {   // not there yet: finish with driveToXY
+                        proportional = true;
+                        return false;
+                    }
+                    robot.stopMotion();
+                    path.reached( k );
+                } else if( phase == SETTLE ) {
+                    if( !driveToXY( path.getX(k), path.getY(k), path.getAngle(k), path.getSpeed(k), DRIVE_TO ) ) return false;
+                    path.reached( k );
+                    phase = ROTATE;
+                    // Fix the angle if we didn't reach angle in the drive
+                    if( !rotateToAngle( path.getAngle(k), true ) ) return false;
+                } else if( !rotateToAngle( path.getAngle(k), false ) ) {
+                    return false;
+                }
+                if( ++k < path.size() ) startLeg( 0.0 );
+                return (k >= path.size());
+            }
+            @Override public void end( boolean interrupted ) {
+                path.finish();
+                scheduledPath = null;
+                if( interrupted ) robot.stopMotion();
+            }
+        };
+    } // drivePathSmooth
+
+    /*---------------------------------------------------------------------------------*/
+    // timeDriveStraight()/timeDriveStrafe() as a command (speed: +forward, strafe: +left)
+    public AutoCommand timeDrive( double speed, double strafe, int time ) {
+        return new AutoCommand() {
+            final ElapsedTime timer = new ElapsedTime();
+            @Override public void start() {
+                timer.reset();
+                robot.driveTrainMotors( speed-strafe, speed+strafe, speed+strafe, speed-strafe );
+            }
+            @Override public boolean update() {
+                return (timer.milliseconds() > time);
+            }
+            @Override public void end( boolean interrupted ) {
+                robot.stopMotion();
+            }
+        };
+    } // timeDrive
+
+    /*---------------------------------------------------------------------------------*/
+    // Auto-aim the turret and shooter power while this runs (eg in a deadline with a drive)
+    public AutoCommand autoAim() {
+        return new AutoCommand() {
+            @Override public void start() {
+                autoAimEnabled = true;
+            }
+            @Override public boolean update() {
+                return false;   // performEveryLoop() does the aiming
+            }
+            @Override public void end( boolean interrupted ) {
+                autoAimEnabled = false;
+            }
+        };
+    } // autoAim
+
+    // Start a spindexer move (doesn't wait for it)
+    public AutoCommand spindexTo( SpindexerState position ) {
+        return instant( () -> robot.spinServoSetPosition( position ) );
+    } // spindexTo
+
     /*---------------------------------------------------------------------------------*/
     /**
      * @param angleTarget  - The angle the robot should try to face when reaching destination.
@@ -1302,178 +1688,200 @@ protected boolean driveToXY(double xTarget, double yTarget, double angleTarget,
     } // AngleWrapDegrees
 
     /*--------------------------------------------------------------------------------------------*/
-    public void collectCorner3FromFar( boolean isRed, SpindexerState firstBall ) {
-
-        // Transition from shooting zone to corner
-        if( opModeIsActive() ) {
-          // Reset the spindexer for collecting GPP
-          robot.spinServoSetPosition( (isRed)? SPIN_P1:SPIN_P3 );
-          driveToPosition( -56.4, ((isRed)? -36.8 : +36.8), ((isRed)? -90.0:+90.0), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
-          // Turn on collector
-          robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-          driveToPosition(-56.9, ((isRed)? -41.5 : +41.5), ((isRed)? -98.0:+98.0), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
-          // collect balls 1 and 2 (constrains ball 3 with the wheel/bumper)
-          driveToPosition(-58.0, ((isRed)? -56.3 : +56.3), ((isRed)? -108.0:+108.0), DRIVE_SPEED_20, TURN_SPEED_10, DRIVE_TO);
-          }
-        // Collect the 3 corner balls
-        if( opModeIsActive() ) {
-          // The last bit is a straight forward drive for TIME (we may not get to a specific DRIVE_TO position otherwise)
-          timeDriveStraight(DRIVE_SPEED_10, 800);
-          // strafe sideways (toward corner) to line up for 2nd ball
-          timeDriveStrafe( (isRed)? -DRIVE_SPEED_30:+DRIVE_SPEED_30, 600);
-          // Drive forward some more to collect 2nd and align bumper to grab the 3rd ball
-          timeDriveStraight(DRIVE_SPEED_10, 300);
-          // By now we should have collected both balls (1 & 2) either with initial drive in, or during the strafe, so index
-          robot.spinServoSetPosition( SPIN_P2 );  // TODO: use a half position?
-          // strafe sideways (away from corner) to pull the 3rd ball out
-          timeDriveStrafe( (isRed)? DRIVE_SPEED_30:-DRIVE_SPEED_30, 300);
-          // where are we now?
-          double xPos = robotGlobalXCoordinatePosition - 1.0;  // cheat back toward wall
-          double yPos = robotGlobalYCoordinatePosition;
-          // rotate to an angle that we can collect the 3rd ball
-          driveToPosition( xPos, yPos, ((isRed)? -95.0:+95.0), DRIVE_SPEED_40, TURN_SPEED_30, DRIVE_TO);
-          // time-drive forward into the wall to collect
-          timeDriveStraight(DRIVE_SPEED_15, 900);
-          }
-        // Drive back to the shooting zone (back the way we came!)
-        if( opModeIsActive() ) {
-            // reverse collector in case we over collected
-            robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
-            driveToPosition(-56.4, ((isRed)? -36.8 : +36.8), ((isRed)? -90.0:+90), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
-            // Turn collector back on forward
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Pre-spindex to the first position we need to be in when we shoot all 3
-            robot.spinServoSetPosition( firstBall );
-            autoAimEnabled = true;
-            driveToPosition(-50.8, ((isRed)? -16.3 : +16.3), ((isRed)?  0.0:0.0), DRIVE_SPEED_80, TURN_SPEED_10, DRIVE_TO);
-            autoAimEnabled = false;
-        } // opModeIsActive
+    public AutoCommand collectCorner3FromFar( boolean isRed, SpindexerState firstBall ) {
+        return sequence(
+            // Transition from shooting zone to corner
+            defer( () -> {
+                pathScheduler.clear();
+                int wpTurn  = pathScheduler.addWaypoint( -56.4, ((isRed)? -36.8 : +36.8), ((isRed)? -90.0:+90.0), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
+                int wpAlign = pathScheduler.addWaypoint(-56.9, ((isRed)? -41.5 : +41.5), ((isRed)? -98.0:+98.0), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
+                // collect balls 1 and 2 (constrains ball 3 with the wheel/bumper)
+                pathScheduler.addWaypoint(-58.0, ((isRed)? -56.3 : +56.3), ((isRed)? -108.0:+108.0), DRIVE_SPEED_20, TURN_SPEED_10, DRIVE_TO);
+                // Turn on collector
+                pathScheduler.atWaypoint( wpTurn, () -> robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT ) );
+                // Reset the spindexer for collecting GPP (ready before we drive into balls 1 and 2)
+                pathScheduler.addSpindexerGoal( (isRed)? SPIN_P1:SPIN_P3, wpAlign, -1 );
+                return drivePath( pathScheduler ); } ),
+            // Collect the 3 corner balls
+            // The last bit is a straight forward drive for TIME (we may not get to a specific DRIVE_TO position otherwise)
+            timeDrive( DRIVE_SPEED_10, 0.0, 800 ),
+            // strafe sideways (toward corner) to line up for 2nd ball
+            timeDrive( 0.0, (isRed)? -DRIVE_SPEED_30:+DRIVE_SPEED_30, 600 ),
+            // Drive forward some more to collect 2nd and align bumper to grab the 3rd ball
+            timeDrive( DRIVE_SPEED_10, 0.0, 300 ),
+            // By now we should have collected both balls (1 & 2) either with initial drive in, or during the strafe, so index
+            spindexTo( SPIN_P2 ),  // TODO: use a half position?
+            // strafe sideways (away from corner) to pull the 3rd ball out
+            timeDrive( 0.0, (isRed)? DRIVE_SPEED_30:-DRIVE_SPEED_30, 300 ),
+            // rotate (where we are now) to an angle that we can collect the 3rd ball
+            defer( () -> driveTo( robotGlobalXCoordinatePosition - 1.0,  // cheat back toward wall
+                    robotGlobalYCoordinatePosition, ((isRed)? -95.0:+95.0), DRIVE_SPEED_40, TURN_SPEED_30, DRIVE_TO) ),
+            // time-drive forward into the wall to collect
+            timeDrive( DRIVE_SPEED_15, 0.0, 900 ),
+            // Drive back to the shooting zone (back the way we came!)
+            defer( () -> {
+                // reverse collector in case we over collected
+                robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
+                pathScheduler.clear();
+                int wpExit  = pathScheduler.addWaypoint(-56.4, ((isRed)? -36.8 : +36.8), ((isRed)? -90.0:+90), DRIVE_SPEED_90, TURN_SPEED_10, DRIVE_THRU);
+                int wpShoot = pathScheduler.addWaypoint(-50.8, ((isRed)? -16.3 : +16.3), ((isRed)?  0.0:0.0), DRIVE_SPEED_80, TURN_SPEED_10, DRIVE_TO);
+                // Turn collector back on forward, and prepare the auto-aim as we go
+                pathScheduler.atWaypoint( wpExit, () -> {
+                    robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+                    autoAimEnabled = true; } );
+                // Pre-spindex to the first position we need to be in when we shoot all 3 (ready on arrival)
+                pathScheduler.addSpindexerGoal( firstBall, wpShoot, wpExit );
+                return drivePath( pathScheduler ); } ),
+            instant( () -> autoAimEnabled = false ) );
     } // collectCorner3FromFar
 
     /*--------------------------------------------------------------------------------------------*/
-    public void collectSpikemarkFromFar( int spikeMarkNumber, boolean isRed, SpindexerState firstBall ) {
-        double redStartx=0, blueStartx=0, endx=0, xPos, yPos, angDeg;
-        // Reset the spindexer for collecting
-        robot.spinServoSetPosition( (isRed)? SPIN_P1 : SPIN_P3 );   // red=P1/P2/P3 on left, blue=P3/P2/P1 on right
-        // Transition from shooting zone to spike-mark zone (spikemark #1)
-        if( opModeIsActive() ) {
-            // drive away from the far shooting zone in a curved path toward the 1st spike mark
-            switch( spikeMarkNumber ) {
-                case 1  :
-                    driveToPosition( -52.8, ((isRed)? -15.3 : +15.3), ((isRed)? -22.5:22.5), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
-                    redStartx=-38.2; blueStartx=-38.2; endx=-42.8;
-                    break;
-                case 2  :
-                    driveToPosition( -38.8, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0),  DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
-                    redStartx=-15.0; blueStartx=-15.0; endx=-20.8;
-                    break;
-                case 3  :
-                default :
-                    driveToPosition( -10.8, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
-                    redStartx=10.1;  blueStartx=10.1;   endx=-12.8;
-                    break;
-            } // switch
-        }
-        // Collect the 3 balls at that spike mark
-        if( opModeIsActive() ) {
-            // Turn on collector
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Drive to the final location prior to actual ball collection
-            xPos   = (isRed)? redStartx : blueStartx;
-            yPos   = ((isRed)? -26.9 : +26.9);
-            angDeg = (isRed)? -90.0 : +90.0;
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_40, TURN_SPEED_10, DRIVE_THRU);
-            // Drive into the 1st ball to collect it
-            yPos   = ((isRed)? -35.8 : +35.8);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
-            robot.spinServoSetPosition( SPIN_P2 );
-            // Drive into the 2nd ball to collect it
-            yPos   = ((isRed)? -42.3 : +42.3);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
-            robot.spinServoSetPosition( (isRed)? SPIN_P3 : SPIN_P1 );
-            // Drive into the 3rd ball to collect it
-            yPos   = ((isRed)? -47.3 : +47.3);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_TO);
-        } // opModeIsActive
-        // Drive back to the shooting zone (back the way we came!)
-        if( opModeIsActive() ) {
-            // reverse collector in case we over collected
-            robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
-            driveToPosition( endx, ((isRed)? -39.3 : +39.3), ((isRed)? -80.0:80.0), DRIVE_SPEED_90, TURN_SPEED_30, DRIVE_THRU);
-            // Turn collector back on forward
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Pre-spindex to the first position we need to be in when we shoot all 3
-            robot.spinServoSetPosition( firstBall );
-            // Return to the far shooting zone, preparing the auto-aim as we go
-            autoAimEnabled = true;
-            driveToPosition(-50.8, ((isRed)? -16.3 : +16.3), ((isRed)?  0.0:0.0), DRIVE_SPEED_80, TURN_SPEED_30, DRIVE_TO);
-            autoAimEnabled = false;
-        } // opModeIsActive
+    public AutoCommand collectSpikemarkFromFar( int spikeMarkNumber, boolean isRed, SpindexerState firstBall ) {
+        final double endx;
+        switch( spikeMarkNumber ) {
+            case 1  : endx = -42.8;  break;
+            case 2  : endx = -20.8;  break;
+            case 3  :
+            default : endx = -12.8;  break;
+        } // switch
+        return sequence(
+            // Transition from shooting zone to spike-mark zone, then collect the 3 balls there
+            defer( () -> {
+                double redStartx=0, blueStartx=0, xPos, yPos, angDeg;
+                pathScheduler.clear();
+                // drive away from the far shooting zone in a curved path toward the 1st spike mark
+                switch( spikeMarkNumber ) {
+                    case 1  :
+                        pathScheduler.addWaypoint( -52.8, ((isRed)? -15.3 : +15.3), ((isRed)? -22.5:22.5), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
+                        redStartx=-38.2; blueStartx=-38.2;
+                        break;
+                    case 2  :
+                        pathScheduler.addWaypoint( -38.8, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0),  DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
+                        redStartx=-15.0; blueStartx=-15.0;
+                        break;
+                    case 3  :
+                    default :
+                        pathScheduler.addWaypoint( -10.8, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
+                        redStartx=10.1;  blueStartx=10.1;
+                        break;
+                } // switch
+                // Turn on collector
+                pathScheduler.atWaypoint( 0, () -> robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT ) );
+                // Drive to the final location prior to actual ball collection
+                xPos   = (isRed)? redStartx : blueStartx;
+                yPos   = ((isRed)? -26.9 : +26.9);
+                angDeg = (isRed)? -90.0 : +90.0;
+                int wpStart = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_40, TURN_SPEED_10, DRIVE_THRU);
+                // Drive into the 1st ball to collect it
+                yPos   = ((isRed)? -35.8 : +35.8);
+                int wpBall1 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
+                // Drive into the 2nd ball to collect it
+                yPos   = ((isRed)? -42.3 : +42.3);
+                int wpBall2 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
+                // Drive into the 3rd ball to collect it
+                yPos   = ((isRed)? -47.3 : +47.3);
+                int wpBall3 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_TO);
+                // Spindexer: collecting position before the 1st ball, then the next empty slot after
+                // each ball (as late as possible, so the ball we just collected can settle)
+                pathScheduler.addSpindexerGoal( (isRed)? SPIN_P1 : SPIN_P3, wpStart, -1 )   // red=P1/P2/P3 on left, blue=P3/P2/P1 on right
+                             .addSpindexerGoal( SPIN_P2, wpBall2, wpBall1 )
+                             .addSpindexerGoal( (isRed)? SPIN_P3 : SPIN_P1, wpBall3, wpBall2 );
+                return drivePath( pathScheduler ); } ),
+            // Drive back to the shooting zone (back the way we came!)
+            defer( () -> {
+                // reverse collector in case we over collected
+                robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
+                pathScheduler.clear();
+                int wpExit  = pathScheduler.addWaypoint( endx, ((isRed)? -39.3 : +39.3), ((isRed)? -80.0:80.0), DRIVE_SPEED_90, TURN_SPEED_30, DRIVE_THRU);
+                int wpShoot = pathScheduler.addWaypoint(-50.8, ((isRed)? -16.3 : +16.3), ((isRed)?  0.0:0.0), DRIVE_SPEED_80, TURN_SPEED_30, DRIVE_TO);
+                // Turn collector back on forward, and prepare the auto-aim as we return to the far shooting zone
+                pathScheduler.atWaypoint( wpExit, () -> {
+                    robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+                    autoAimEnabled = true; } );
+                // Pre-spindex to the first position we need to be in when we shoot all 3 (ready on arrival)
+                pathScheduler.addSpindexerGoal( firstBall, wpShoot, wpExit );
+                return drivePath( pathScheduler ); } ),
+            instant( () -> autoAimEnabled = false ) );
     } // collectSpikemarkFromFar
 
     /*--------------------------------------------------------------------------------------------*/
-    public void collectSpikemarkFromNear( int spikeMarkNumber, boolean isRed, SpindexerState firstBall ) {
-        double redStartx=0, blueStartx=0, endx=0, xPos, yPos, angDeg;
-        // Reset the spindexer for collecting
-        robot.spinServoSetPosition( (isRed)? SPIN_P3 : SPIN_P1 );   // red=P3/P2/P1 on right, blue=P1/P2/P3 on left
-        // Transition from shooting zone to spike-mark zone
-        if( opModeIsActive() ) {
-            // drive out of the NEAR shooting zone in a curved path toward the given spike mark
-            switch( spikeMarkNumber ) {
-                case 1  :
-                    sleep(5000);
-                    driveToPosition( 0.0, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_TO);
-                    sleep(5000);
-                    redStartx=-32.2; blueStartx=-32.2; endx=-42.8;
-                    break;
-                case 2  :
-                    driveToPosition( 1.5, ((isRed)? -22.0 : +22.0), ((isRed)? -107.0:107.0),  DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
-                    redStartx=-8.7; blueStartx=-8.7; endx=-7.7;
-                    break;
-                case 3  :
-                default :
-                    driveToPosition( 24.9, ((isRed)? -20.0 : +20.0), ((isRed)? -111.8:111.8), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
-                    redStartx=15.8;  blueStartx=15.8;   endx=14.3;
-                    break;
-            } // switch
-        }
-        // Collect the 3 balls at that spike mark
-        if( opModeIsActive() ) {
-            // Turn on collector
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Drive to the final location prior to actual ball collection
-            xPos   = (isRed)? redStartx : blueStartx;
-            yPos   = ((isRed)? -26.9 : +26.9);
-            angDeg = (isRed)? -90.0 : +90.0;
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_40, TURN_SPEED_10, DRIVE_THRU);
-            // Drive into the 1st ball to collect it
-            yPos   = ((isRed)? -36.9 : +36.9);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
-            robot.spinServoSetPosition( SPIN_P2 );
-            // Drive into the 2nd ball to collect it
-            yPos   = ((isRed)? -41.7 : +41.7);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
-            robot.spinServoSetPosition( (isRed)? SPIN_P1 : SPIN_P3 );
-            // Drive into the 3rd ball to collect it
-            yPos   = ((isRed)? -48.5 : +48.5);
-            driveToPosition( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_TO);
-        } // opModeIsActive
-        // Drive back to the shooting zone (back the way we came!)
-        if( opModeIsActive() ) {
-            // reverse collector in case we over collected
-            robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
-            driveToPosition( endx, ((isRed)? -43.2 : +43.2), ((isRed)? -96.5:96.5), DRIVE_SPEED_90, TURN_SPEED_30, DRIVE_THRU);
-            // Turn collector back on forward
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Pre-spindex to the first position we need to be in when we shoot all 3
-            robot.spinServoSetPosition( firstBall );
-            // Return to the far shooting zone, preparing the auto-aim as we go
-            autoAimEnabled = true;
-            driveToPosition(25.0, ((isRed)? -20.4 : +20.4), ((isRed)? -50.4:50.4), DRIVE_SPEED_80, TURN_SPEED_30, DRIVE_TO);
-            performEveryLoop();    // ensure one last auto-aim loop
-            sleep(100); // let turret settle at final angle
-            autoAimEnabled = false;
-        } // opModeIsActive
+    public AutoCommand collectSpikemarkFromNear( int spikeMarkNumber, boolean isRed, SpindexerState firstBall ) {
+        final double endx;
+        switch( spikeMarkNumber ) {
+            case 1  : endx = -42.8;  break;
+            case 2  : endx = -7.7;   break;
+            case 3  :
+            default : endx = 14.3;   break;
+        } // switch
+        Runnable collectorOn = () -> robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+        return sequence(
+            // Spike mark 1: wait before leaving, and again (stopped) before we turn on the collector
+            onlyIf( () -> (spikeMarkNumber == 1), sequence(
+                waitMsec( 5000 ),
+                driveTo( 0.0, ((isRed)? -15.3 : +15.3), ((isRed)? 0.0:0.0), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_TO),
+                waitMsec( 5000 ),
+                instant( collectorOn ) ) ),
+            // Transition from shooting zone to spike-mark zone, then collect the 3 balls there
+            defer( () -> {
+                double redStartx=0, blueStartx=0, xPos, yPos, angDeg;
+                pathScheduler.clear();
+                // drive out of the NEAR shooting zone in a curved path toward the given spike mark
+                switch( spikeMarkNumber ) {
+                    case 1  :
+                        // (already driven above)
+                        redStartx=-32.2; blueStartx=-32.2;
+                        break;
+                    case 2  :
+                        pathScheduler.addWaypoint( 1.5, ((isRed)? -22.0 : +22.0), ((isRed)? -107.0:107.0),  DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
+                        redStartx=-8.7; blueStartx=-8.7;
+                        break;
+                    case 3  :
+                    default :
+                        pathScheduler.addWaypoint( 24.9, ((isRed)? -20.0 : +20.0), ((isRed)? -111.8:111.8), DRIVE_SPEED_90, TURN_SPEED_20, DRIVE_THRU);
+                        redStartx=15.8;  blueStartx=15.8;
+                        break;
+                } // switch
+                // Turn on collector once we're out of the shooting zone
+                if( spikeMarkNumber != 1 ) {
+                    pathScheduler.atWaypoint( 0, collectorOn );
+                }
+                // Drive to the final location prior to actual ball collection
+                xPos   = (isRed)? redStartx : blueStartx;
+                yPos   = ((isRed)? -26.9 : +26.9);
+                angDeg = (isRed)? -90.0 : +90.0;
+                int wpStart = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_40, TURN_SPEED_10, DRIVE_THRU);
+                // Drive into the 1st ball to collect it
+                yPos   = ((isRed)? -36.9 : +36.9);
+                int wpBall1 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
+                // Drive into the 2nd ball to collect it
+                yPos   = ((isRed)? -41.7 : +41.7);
+                int wpBall2 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_THRU);
+                // Drive into the 3rd ball to collect it
+                yPos   = ((isRed)? -48.5 : +48.5);
+                int wpBall3 = pathScheduler.addWaypoint( xPos, yPos, angDeg, DRIVE_SPEED_15, TURN_SPEED_15, DRIVE_TO);
+                // Spindexer: collecting position before the 1st ball, then the next empty slot after
+                // each ball (as late as possible, so the ball we just collected can settle)
+                pathScheduler.addSpindexerGoal( (isRed)? SPIN_P3 : SPIN_P1, wpStart, -1 )   // red=P3/P2/P1 on right, blue=P1/P2/P3 on left
+                             .addSpindexerGoal( SPIN_P2, wpBall2, wpBall1 )
+                             .addSpindexerGoal( (isRed)? SPIN_P1 : SPIN_P3, wpBall3, wpBall2 );
+                return drivePath( pathScheduler ); } ),
+            // Drive back to the shooting zone (back the way we came!)
+            defer( () -> {
+                // reverse collector in case we over collected
+                robot.intakeMotor.setPower( robot.INTAKE_REV_REJECT );
+                pathScheduler.clear();
+                int wpExit  = pathScheduler.addWaypoint( endx, ((isRed)? -43.2 : +43.2), ((isRed)? -96.5:96.5), DRIVE_SPEED_90, TURN_SPEED_30, DRIVE_THRU);
+                int wpShoot = pathScheduler.addWaypoint(25.0, ((isRed)? -20.4 : +20.4), ((isRed)? -50.4:50.4), DRIVE_SPEED_80, TURN_SPEED_30, DRIVE_TO);
+                // Turn collector back on forward, and prepare the auto-aim as we return to the shooting zone
+                pathScheduler.atWaypoint( wpExit, () -> {
+                    robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+                    autoAimEnabled = true; } );
+                // Pre-spindex to the first position we need to be in when we shoot all 3 (ready on arrival)
+                pathScheduler.addSpindexerGoal( firstBall, wpShoot, wpExit );
+                return drivePath( pathScheduler ); } ),
+            // let turret settle at final angle (predicted arrival; don't wait for analog feedback)
+            waitUntil( () -> robot.turretServoReady ).withTimeout( 100 ),
+            instant( () -> autoAimEnabled = false ) );
     } // collectSpikemarkFromNear
 
     /*--------------------------------------------------------------------------------------------*/
@@ -1481,84 +1889,86 @@ protected boolean driveToXY(double xTarget, double yTarget, double angleTarget,
     /* - robot is already parked in a shooting zone                                               */
     /* - turret is already rotated toward the goal                                                */
     /* - shooter is already up to speed                                                           */
-    public void scoreThreeBallsFromField(BallOrder obeliskID, BallOrder loadOrder) {
-        if( opModeIsActive() ) {
+    public AutoCommand scoreThreeBallsFromField(BallOrder obeliskID, BallOrder loadOrder) {
+        return sequence(
             // Ensure collector to ON to retain balls while spindexing
-            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-            // Convert the obelisk value into a shooting order
-            SpindexerState[] shootOrder = getObeliskShootOrder(obeliskID, loadOrder);
-            // FIXME: should we swap SPIN_P1 and SPIN_P3 if alliance == blue since we reverse intake direction?
-            // Shoot all 3 balls
-            for(int i=0; i<shootOrder.length; i++) {
-                // rotate (if necessary) to the next position
-                robot.spinServoSetPosition( shootOrder[i] );
-                // wait for the rotation to complete and shooter to be at speed, then launch that ball
-                while( (robot.spinServoInPos == false) || (robot.shooterMotorsReady == false) ) {
-                    performEveryLoop();
+            instant( () -> robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT ) ),
+            // If we ended up at a pose where the goal is beyond turret range, rotate the chassis
+            // just enough to bring it back into range (no-op if the turret can already reach)
+            chassisAssistAim( 750 ),
+            // Convert the obelisk value into a shooting order (from where the spindexer is now)
+            defer( () -> {
+                ShotOrderPlanner.Plan shootOrder = getObeliskShootOrder(obeliskID, loadOrder);
+                // FIXME: should we swap SPIN_P1 and SPIN_P3 if alliance == blue since we reverse intake direction?
+                AutoCommand[] shots = new AutoCommand[ shootOrder.length() ];
+                for( int i=0; i<shots.length; i++ ) {
+                    shots[i] = shootBall( shootOrder.position(i), (i == 0) );
                 }
-                launchBall();
-                // If our auto routine has run long, we want to stop shooting balls early and
-                // move forward from the launch line so we can still score the move bonus.
-                // This logic assumes we have enough time to at least shoot one ball.
-                // There could be scenarios where we even run out of time before we start shooting, but not currently handled.
-                boolean outOfAutoTime = autonomousTimer.seconds() >= 29; // TODO: verify 1 second is enough.
-                if( !opModeIsActive() || outOfAutoTime) break;
+                return sequence( shots ); } ),
+            // Turn off shooter and collector while we go collect more balls
+            instant( () -> {
+                robot.shooterMotorsSetPower( 0.0 );
+                robot.intakeMotor.setPower( 0.0 ); } ) );
+    } // scoreThreeBallsFromField
+
+    //--------------------------------------------------------------------------------------------
+    // Rotate (if necessary) to the position, wait for the rotation to complete and the shooter to
+    // be at speed, then launch that ball.  A spindexer jam we couldn't clear skips the ball.
+    // If our auto routine has run long, we want to stop shooting balls early and move forward
+    // from the launch line so we can still score the move bonus (we always shoot the first ball).
+    AutoCommand shootBall( SpindexerState position, boolean first ) {
+        return onlyIf( () -> first || (autonomousTimer.seconds() < 29),  // TODO: verify 1 second is enough.
+            sequence(
+                spindexTo( position ),
+                waitUntil( () -> (robot.spinServoInPos && robot.shooterMotorsReady) || robot.spinServoJamFailed ),
+                onlyIf( () -> !robot.spinServoJamFailed, launchBall() ) ) );
+    } // shootBall
+
+    //--------------------------------------------------------------------------------------------
+    // Combined turret + chassis aiming.  The turret is re-aimed every loop while the chassis
+    // rotates only the portion of the yaw the turret can't reach (see computeChassisAssistYaw),
+    // so we end up inside the turret's fast zone in minimum time.
+    public AutoCommand chassisAssistAim( int timeoutMsec ) {
+        return new AutoCommand() {
+            @Override public void start() {
+                robot.chassisAssistActive = false;
+            }
+            @Override public boolean update() {
+                robot.setTurretAngleTracking( autoAimAngleDeg );
+                double assistYaw = robot.computeChassisAssistYaw( autoAimAngleDeg );
+                if( assistYaw == 0.0 ) return true;
+                ApplyMovement( 0.0, 0.0, robot.computeChassisAssistPower(assistYaw) );
+                return false;
             }
-        } // opModeIsActive
-        // Turn off shooter while we go collect more balls
-        robot.shooterMotorsSetPower( 0.0 );
-        // Turn off collector
-        robot.intakeMotor.setPower(0.0);
-    } // scoreThreeBallsFromFar
+            @Override public void end( boolean interrupted ) {
+                robot.driveTrainMotorsZero();
+            }
+        }.withTimeout( timeoutMsec );
+    } // chassisAssistAim
 
     //--------------------------------------------------------------------------------------------
-    public void launchBall(){
-        robot.startInjectionStateMachine();
-        do {
-            sleep(50);
-            if( !opModeIsActive() ) break;
-            performEveryLoop();
-        } while (robot.liftServoBusyU || robot.liftServoBusyD);
+    public AutoCommand launchBall(){
+        return new AutoCommand() {
+            @Override public void start() {
+                robot.startInjectionStateMachine();
+            }
+            @Override public boolean update() {
+                return !robot.liftServoBusyU && !robot.liftServoBusyD;
+            }
+        };
     } // launchBall
 
     //--------------------------------------------------------------------------------------------
-    static SpindexerState[] getObeliskShootOrder(BallOrder obeliskID, BallOrder loadOrder) {
-
-        // Based on our preload pattern PPG_23:
-        // SPIN_P1 = purple
-        // SPIN_P2 = purple
-        // SPIN_P3 = green
-
-        switch (loadOrder) {
-            case GPP_21:
-                switch (obeliskID) {
-                    case GPP_21:
-                        return new SpindexerState[] {SPIN_P1, SPIN_P2, SPIN_P3};
-                    case PGP_22:
-                        return new SpindexerState[] {SPIN_P2, SPIN_P1, SPIN_P3};
-                    case PPG_23:
-                        return new SpindexerState[] {SPIN_P3, SPIN_P2, SPIN_P1};
-                }
-            case PGP_22:
-                switch (obeliskID) {
-                    case GPP_21:
-                        return new SpindexerState[] {SPIN_P2, SPIN_P3, SPIN_P1};
-                    case PGP_22:
-                        return new SpindexerState[] {SPIN_P3, SPIN_P2, SPIN_P1};
-                    case PPG_23:
-                        return new SpindexerState[] {SPIN_P3, SPIN_P1, SPIN_P2};
-                }
-            case PPG_23:
-                switch (obeliskID) {
-                    case GPP_21:
-                        return new SpindexerState[] {SPIN_P3, SPIN_P2, SPIN_P1};
-                    case PGP_22:
-                        return new SpindexerState[] {SPIN_P2, SPIN_P3, SPIN_P1};
-                    case PPG_23:
-                        return new SpindexerState[] {SPIN_P2, SPIN_P1, SPIN_P3};
-                }
-        }
-        return new SpindexerState[] {SPIN_P3, SPIN_P2, SPIN_P1}; // default
+    // Pick the shooting order that lays down the obelisk motif with the least spindexer travel
+    // from where the spindexer is now.  Based on our preload pattern PPG_23:
+    // SPIN_P1 = purple
+    // SPIN_P2 = purple
+    // SPIN_P3 = green
+    ShotOrderPlanner.Plan getObeliskShootOrder(BallOrder obeliskID, BallOrder loadOrder) {
+        robot.updateShotPlanner();
+        return robot.shotPlanner.plan( robot.spinServoCurPos,
+                ShotOrderPlanner.loadColor(loadOrder,0), ShotOrderPlanner.loadColor(loadOrder,1),
+                ShotOrderPlanner.loadColor(loadOrder,2), obeliskID );
     } // getObeliskShootOrder
 
     //--------------------------------------------------------------------------------------------
@@ -1566,32 +1976,16 @@ protected boolean driveToXY(double xTarget, double yTarget, double angleTarget,
     // before we can shoot the first ball.  This function gives us advance insight into the
     // position of the first ball we need to shoot based on which spike mark we've collected
     // (ie, the loadOrder)
-    static SpindexerState getObeliskFirstBall(BallOrder obeliskID, BallOrder loadOrder) {
-        SpindexerState firstBall = SPIN_P3;
-        switch(loadOrder) {
-            case GPP_21:
-                switch(obeliskID) {
-                    case GPP_21: firstBall=SPIN_P1; break;
-                    case PGP_22: firstBall=SPIN_P2; break;
-                    case PPG_23: firstBall=SPIN_P3; break;
-                }
-                break;
-            case PGP_22:
-                switch(obeliskID) {
-                    case GPP_21: firstBall=SPIN_P2; break;
-                    case PGP_22: firstBall=SPIN_P3; break;
-                    case PPG_23: firstBall=SPIN_P3; break;
-                }
-                break;
-            case PPG_23:
-                switch(obeliskID) {
-                    case GPP_21: firstBall=SPIN_P3; break;
-                    case PGP_22: firstBall=SPIN_P2; break;
-                    case PPG_23: firstBall=SPIN_P2; break;
-                }
-                break;
-        }
-        return firstBall;
+    SpindexerState getObeliskFirstBall(BallOrder obeliskID, BallOrder loadOrder) {
+        return robot.shotPlanner.planFirst(
+                ShotOrderPlanner.loadColor(loadOrder,0), ShotOrderPlanner.loadColor(loadOrder,1),
+                ShotOrderPlanner.loadColor(loadOrder,2), obeliskID ).first();
     } // getObeliskFirstBall
 
+    // Build a step that needs the first ball when that step is reached (like the baseline, which
+    // looked it up at that point in the routine), eg deferFirstBall( obeliskID, loadOrder, this::spindexTo )
+    AutoCommand deferFirstBall( BallOrder obeliskID, BallOrder loadOrder, Function<SpindexerState,AutoCommand> step ) {
+        return defer( () -> step.apply( getObeliskFirstBall(obeliskID,loadOrder) ) );
+    } // deferFirstBall
+
 } // AutonomousBase
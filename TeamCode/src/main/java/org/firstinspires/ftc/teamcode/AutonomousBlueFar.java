@@ -2,10 +2,14 @@
  */
 package org.firstinspires.ftc.teamcode;
 
+import static org.firstinspires.ftc.teamcode.AutoCommand.*;
 import static org.firstinspires.ftc.teamcode.BallOrder.*;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  */
 @Autonomous(name="Blue Far", group="7592", preselectTeleOp = "Teleop-Blue")
@@ -26,7 +30,9 @@ public class AutonomousBlueFar extends AutonomousBase {
         telemetry.addData("State", "Initializing (please wait)");
         telemetry.update();
         robot.init(hardwareMap,true);
+        trajectories.load();
         redAlliance  = false;
+        robot.aimTargets.setTable( AimTargetTable.TABLE_AUTO_FAR );   // aim points tuned for this autonomous
 
         robot.limelightPipelineSwitch( 1 );
         robot.limelightStart();  // Start polling for data (skipping this has getLatestResult() return null results)
@@ -55,6 +61,10 @@ public class AutonomousBlueFar extends AutonomousBase {
         mainAutonomous( obeliskID );
         //---------------------------------------------------------------------------------
 
+        // Save anything learned during the match (never from inside the control loop)
+        robot.saveLearnedData();
+        trajectories.saveIfChanged();
+
         telemetry.addData("Program", "Complete");
         telemetry.update();
 
@@ -81,81 +91,78 @@ public class AutonomousBlueFar extends AutonomousBase {
     /*--------------------------------------------------------------------------------------------*/
     private void mainAutonomous(BallOrder obeliskID) {
         double shooterPowerFar = 0.55;
-        HardwareSwyftBot.SpindexerState firstBall;
         BallOrder loadOrder;
+        List<AutoCommand> steps = new ArrayList<>();
 
         //===== Score Preload Balls (from the FAR zone) ==========
         // Enable collector/InKeeper so it's safe to spindex
-        robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
-        // Even if we delay, we want to immediately start up getting shooter up to speed
-        robot.shooterMotorsSetPower( shooterPowerFar );
+        // Even if we delay, we want to immediately start getting shooter up to speed
+        steps.add( instant( () -> {
+            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+            robot.shooterMotorsSetPower( shooterPowerFar ); } ) );
         // Pre-index to the first spindexer position
         loadOrder = PPG_23;
-        firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-        robot.spinServoSetPosition( firstBall );
-        // Enable automatic shooter power/angle as we drive the next segment
-        autoAimEnabled = true;
+        steps.add( deferFirstBall( obeliskID, loadOrder, this::spindexTo ) );
+        // Automatic shooter power/angle as we drive the next segment
         // Drive out away from wall, both to allow us to rotate the turret and not have the
         // shooter drive belt touch the field wall, but also to be closer to the goal.
         // Must not go so far we are no longer within the scoring zone!
-        driveToPosition(-51.8, +14.3, 0.0, DRIVE_SPEED_30, TURN_SPEED_15, DRIVE_TO);
-        autoAimEnabled = false;
+        steps.add( deadline( driveTo(-51.8, +14.3, 0.0, DRIVE_SPEED_30, TURN_SPEED_15, DRIVE_TO), autoAim() ) );
         // Do we pause before shooting?
         if( waitBeforePL > 0 ) {
-            sleep( waitBeforePL * 500 );
+            steps.add( waitMsec( waitBeforePL * 500 ) );
         }
-        scoreThreeBallsFromField(obeliskID,loadOrder);
+        steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
 
         // Collect and Score corner balls
         if( doCorner3 ) {
             loadOrder = (redAlliance)? PPG_23:GPP_21;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectCorner3FromFar(redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectCorner3FromFar(redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeC3 > 0 ) {
-                sleep( waitBeforeC3 * 500 );
-                }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+                steps.add( waitMsec( waitBeforeC3 * 500 ) );
+            }
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Collect and Score 1st spike mark
         if( doSpikeMark1 ) {
             loadOrder = (redAlliance)? PGP_22:PGP_22;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromFar(1,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromFar(1,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeS1 > 0 ) {
-               sleep( waitBeforeS1 * 500 );
+                steps.add( waitMsec( waitBeforeS1 * 500 ) );
             }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Collect and Score 2nd spike mark
         if( doSpikeMark2 ) {
             loadOrder = (redAlliance)? PPG_23:GPP_21;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromFar(2,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromFar(2,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeS2 > 0 ) {
-               sleep( waitBeforeS2 * 500 );
+                steps.add( waitMsec( waitBeforeS2 * 500 ) );
             }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Collect and Score 3rd spike mark
         if( doSpikeMark3 ) {
             loadOrder = (redAlliance)? GPP_21:PPG_23;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromFar(3,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromFar(3,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeS3 > 0 ) {
-               sleep( waitBeforeS3 * 500 );
+                steps.add( waitMsec( waitBeforeS3 * 500 ) );
             }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Drive away from the score line for the MOVEMENT points
-        driveToPosition(-30.8, +14.3, 0.0, DRIVE_SPEED_30, TURN_SPEED_30, DRIVE_TO);
+        steps.add( driveTo(-30.8, +14.3, 0.0, DRIVE_SPEED_30, TURN_SPEED_30, DRIVE_TO) );
+
+        // Run the whole routine from a single control loop
+        runCommand( sequence( steps.toArray( new AutoCommand[0] ) ) );
 
         // ensure motors are turned off even if we run out of time
         robot.driveTrainMotorsZero();
@@ -2,10 +2,14 @@
  */
 package org.firstinspires.ftc.teamcode;
 
+import static org.firstinspires.ftc.teamcode.AutoCommand.*;
 import static org.firstinspires.ftc.teamcode.BallOrder.*;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  */
 @Autonomous(name="Blue Near", group="7592", preselectTeleOp = "Teleop-Blue")
@@ -24,8 +28,9 @@ public class AutonomousBlueNear extends AutonomousBase {
         telemetry.addData("State", "Initializing (please wait)");
         telemetry.update();
         robot.init(hardwareMap,true);
+        trajectories.load();
         redAlliance  = false;
-        runningAutonomousFar = false;
+        robot.aimTargets.setTable( AimTargetTable.TABLE_AUTO_NEAR );   // aim points tuned for this autonomous
 
         robot.limelightPipelineSwitch( 1 );
         robot.limelightStart();  // Start polling for data (skipping this has getLatestResult() return null results)
@@ -72,6 +77,9 @@ public class AutonomousBlueNear extends AutonomousBase {
         mainAutonomous( obeliskID );
 
         robot.limelightStop();
+        // Save anything learned during the match (never from inside the control loop)
+        robot.saveLearnedData();
+        trajectories.saveIfChanged();
         telemetry.addData("Program", "Complete");
         telemetry.update();
 
@@ -98,69 +106,67 @@ public class AutonomousBlueNear extends AutonomousBase {
     /*--------------------------------------------------------------------------------------------*/
     private void mainAutonomous(BallOrder obeliskID) {
         double shooterPowerNear = 0.45;
-        HardwareSwyftBot.SpindexerState firstBall;
         BallOrder loadOrder;
+        List<AutoCommand> steps = new ArrayList<>();
 
         //===== Score Preload Balls (from the NEAR zone) ==========
         // Enable collector/InKeeper so it's safe to spindex
-        robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
         // Even if we delay, we want to immediately start getting shooter up to speed
-        robot.shooterMotorsSetPower( shooterPowerNear );
+        steps.add( instant( () -> {
+            robot.intakeMotor.setPower( robot.INTAKE_FWD_COLLECT );
+            robot.shooterMotorsSetPower( shooterPowerNear ); } ) );
         // Pre-index to the first spindexer position for the preload order we use
         loadOrder = PPG_23;
-        firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-        robot.spinServoSetPosition( firstBall );
-        // Enable automatic shooter power/angle as we drive the next segment
-        autoAimEnabled = true;
+        steps.add( deferFirstBall( obeliskID, loadOrder, this::spindexTo ) );
+        // Automatic shooter power/angle as we drive the next segment
         // Drive to where we can both shoot and refresh our field position based on the AprilTag
-        driveToPosition( 24.2, 17.6, +49.0, DRIVE_SPEED_30, TURN_SPEED_15, DRIVE_TO);
-        autoAimEnabled = false;
+        steps.add( deadline( driveTo( 24.2, 17.6, +49.0, DRIVE_SPEED_30, TURN_SPEED_15, DRIVE_TO), autoAim() ) );
         // Do we pause before shooting?
         if( waitBeforePL > 0 ) {
-            sleep( waitBeforePL * 500 );
+            steps.add( waitMsec( waitBeforePL * 500 ) );
         }
-        scoreThreeBallsFromField(obeliskID,loadOrder);
+        steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         // update our field position based on the AprilTag
-        robot.setPinpointFieldPosition(robot.limelightFieldXpos, robot.limelightFieldYpos);
+        steps.add( instant( () -> robot.setPinpointFieldPosition(robot.limelightFieldXpos, robot.limelightFieldYpos) ) );
 
         // Collect and Score 3rd spike mark
         if( doSpikeMark3 ) {
             loadOrder = (redAlliance)? PPG_23:PPG_23;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromNear(3,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromNear(3,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeC3 > 0 ) {
-                sleep( waitBeforeC3 * 500 );
-                }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+                steps.add( waitMsec( waitBeforeC3 * 500 ) );
+            }
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Collect and Score 2nd spike mark
         if( doSpikeMark2 ) {
             loadOrder = (redAlliance)? GPP_21:GPP_21;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromNear(2,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromNear(2,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeS2 > 0 ) {
-               sleep( waitBeforeS2 * 500 );
+                steps.add( waitMsec( waitBeforeS2 * 500 ) );
             }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Collect and Score 1st spike mark
         if( doSpikeMark1 ) {
             loadOrder = (redAlliance)? PGP_22:PGP_22;
-            firstBall = getObeliskFirstBall(obeliskID,loadOrder);
-            collectSpikemarkFromNear(1,redAlliance,firstBall);
+            steps.add( deferFirstBall( obeliskID, loadOrder, firstBall -> collectSpikemarkFromNear(1,redAlliance,firstBall) ) );
             // Do we pause before shooting?
             if( waitBeforeS1 > 0 ) {
-               sleep( waitBeforeS1 * 500 );
+                steps.add( waitMsec( waitBeforeS1 * 500 ) );
             }
-            scoreThreeBallsFromField(obeliskID,loadOrder);
+            steps.add( scoreThreeBallsFromField(obeliskID,loadOrder) );
         }
 
         // Drive the final position we want for MOVEMENT points
-        driveToPosition(40.7, 17.6, +49.0, DRIVE_SPEED_30, TURN_SPEED_30, DRIVE_TO);
+        steps.add( driveTo(40.7, 17.6, +49.0, DRIVE_SPEED_30, TURN_SPEED_30, DRIVE_TO) );
+
+        // Run the whole routine from a single control loop
+        runCommand( sequence( steps.toArray( new AutoCommand[0] ) ) );
 
         // ensure motors are turned off even if we run out of time
         robot.driveTrainMotorsZero();
@@ -0,0 +1,197 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.NormalizedColorSensor;
+import com.qualcomm.robotcore.hardware.NormalizedRGBA;
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.HardwareSwyftBot.Ball;
+
+import java.io.File;
+
+/**
+ * Purple/green ball classifier for one color sensor (one instance per sensor).
+ *
+ * Works directly on the normalized RGB reading: after a per-sensor white-balance gain, each
+ * reading is reduced to chromaticity (r/(r+g+b), g/(r+g+b)) so brightness doesn't matter, and
+ * compared to the calibrated purple and green centroids.  The result is a class plus a
+ * confidence (0..1) that combines how much closer it is to one centroid than the other, how
+ * well it fits that centroid at all, and whether there's enough light to trust it.
+ *
+ * A ball sitting off-center can produce a misleading color, so addSample() only counts readings
+ * taken with the ball seated (sensor optical distance inside the calibrated window; there's no
+ * window until the cal file sets one, so every reading counts until then) and keeps
+ * the last VOTE_WINDOW of them.  decide() takes a confidence-weighted vote over that window and
+ * answers as soon as the vote is decisive (one very confident seated reading is enough; one
+ * misleading reading is outvoted by the next ones), so the caller never has to guess.
+ *
+ * No allocation per reading (other than the NormalizedRGBA the SDK returns).  Calibration can
+ * be overridden per sensor from FIRST/settings/BallColor_<name>.txt:
+ *    gain   1.00 1.10 0.95        (r g b white-balance multipliers)
+ *    purple 0.26 0.32             (chromaticity centroid r g)
+ *    green  0.20 0.46
+ *    spread 0.05                  (typical distance of a good reading from its centroid)
+ *    minIntensity 0.02            (r+g+b below this = nothing in view)
+ *    seated 0 30                  (optical distance window [mm] for a properly seated ball)
+ * To retune (new venue/lighting), record samples with TestColorCapture and let
+ * tools/ColorThresholdTrainer fit and write this file for each sensor.
+ */
+public class BallColorClassifier {
+    public final static String CAL_FILE_PREFIX = "BallColor_";
+    public final static int    VOTE_WINDOW   = 5;     // seated samples kept for voting
+    public final static double VOTE_MARGIN   = 0.60;  // weighted lead (2+ votes) that decides
+    public final static double VOTE_SURE     = 0.90;  // single-sample confidence that decides
+
+    public final String name;
+
+    // Calibration
+    public double gainR = 1.0, gainG = 1.0, gainB = 1.0;
+    public double purpleR = 0.26, purpleG = 0.32;   // ~hue 218 (old rule: hue > 180 = purple)
+    public double greenR  = 0.20, greenG  = 0.46;   // ~hue 152 (old rule: hue 110-180 = green)
+    public double spread  = 0.05;
+    public double minIntensity = 0.02;
+    public double seatedMinMm  = Double.NaN;   // NaN = no distance gate (not calibrated)
+    public double seatedMaxMm  = Double.NaN;
+    public String calError = null;
+
+    // Most recent reading
+    public Ball   ball       = Ball.None;
+    public double confidence = 0.0;
+    public double hue        = 0.0;   // degrees (for telemetry/comparison with the old thresholds)
+    public double intensity  = 0.0;   // r+g+b after gains
+
+    // Vote window since resetVotes() (ring buffer of seated samples)
+    private final Ball[]   voteBall = new Ball[VOTE_WINDOW];
+    private final double[] voteConf = new double[VOTE_WINDOW];
+    private int voteNext  = 0;
+    private int voteCount = 0;
+    public  int reads     = 0;    // samples offered
+    public  int unseated  = 0;    // samples rejected by the distance gate
+
+    /*--------------------------------------------------------------------------------------------*/
+    public BallColorClassifier( String name ) {
+        this.name = name;
+    } // BallColorClassifier
+
+    /*--------------------------------------------------------------------------------------------*/
+    public Ball classify( NormalizedColorSensor sensor ) {
+        NormalizedRGBA rgba = sensor.getNormalizedColors();
+        return classify( rgba.red, rgba.green, rgba.blue );
+    } // classify
+
+    public Ball classify( double red, double green, double blue ) {
+        double r = red * gainR, g = green * gainG, b = blue * gainB;
+        intensity = r + g + b;
+        hue = computeHue( r, g, b );
+        if( intensity < minIntensity ) {
+            ball = Ball.None;
+            confidence = 0.0;
+            return ball;
+        }
+        double cr = r / intensity;
+        double cg = g / intensity;
+        double dPurple = Math.hypot( cr - purpleR, cg - purpleG );
+        double dGreen  = Math.hypot( cr - greenR,  cg - greenG  );
+        double dNear   = Math.min( dPurple, dGreen );
+        double dFar    = Math.max( dPurple, dGreen );
+        double margin  = (dFar > 0.0)? (dFar - dNear) / (dFar + dNear) : 0.0;
+        double fit     = clip( 1.0 - dNear/(3.0*spread) );
+        double light   = clip( (intensity - minIntensity) / minIntensity );
+        confidence = margin * fit * light;
+        if( confidence <= 0.0 ) {
+            ball = Ball.None;
+        } else {
+            ball = (dPurple < dGreen)? Ball.Purple : Ball.Green;
+        }
+        return ball;
+    } // classify
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Offer a sample for voting (distanceMm = NaN if the sensor can't measure distance).
+    // Returns true if the ball was seated and the sample was counted.
+    public boolean addSample( double red, double green, double blue, double distanceMm ) {
+        reads++;
+        boolean gated = !Double.isNaN(seatedMinMm) && !Double.isNaN(seatedMaxMm);
+        if( gated && !Double.isNaN(distanceMm) && ((distanceMm < seatedMinMm) || (distanceMm > seatedMaxMm)) ) {
+            unseated++;
+            return false;
+        }
+        classify( red, green, blue );
+        voteBall[voteNext] = ball;
+        voteConf[voteNext] = confidence;
+        voteNext = (voteNext + 1) % VOTE_WINDOW;
+        if( voteCount < VOTE_WINDOW ) voteCount++;
+        return true;
+    } // addSample
+
+    public void resetVotes() {
+        voteNext  = 0;
+        voteCount = 0;
+        reads     = 0;
+        unseated  = 0;
+    } // resetVotes
+
+    // Weighted vote over the window: the winning color once it's decisive (None = not yet)
+    public Ball decide() {
+        double purple = 0.0, green = 0.0;
+        int purpleVotes = 0, greenVotes = 0;
+        for( int i=0; i<voteCount; i++ ) {
+            if( voteBall[i] == Ball.Purple )     { purple += voteConf[i];  purpleVotes++; }
+            else if( voteBall[i] == Ball.Green ) { green  += voteConf[i];  greenVotes++;  }
+        }
+        if( (purpleVotes == 1) && (greenVotes == 0) && (purple >= VOTE_SURE) ) return Ball.Purple;
+        if( (greenVotes == 1) && (purpleVotes == 0) && (green  >= VOTE_SURE) ) return Ball.Green;
+        if( (purpleVotes >= 2) && (purple - green >= VOTE_MARGIN) ) return Ball.Purple;
+        if( (greenVotes  >= 2) && (green - purple >= VOTE_MARGIN) ) return Ball.Green;
+        return Ball.None;
+    } // decide
+
+    /*--------------------------------------------------------------------------------------------*/
+    private static double clip( double value ) {
+        return Math.max( 0.0, Math.min( 1.0, value ) );
+    }
+
+    private static double computeHue( double r, double g, double b ) {
+        double max = Math.max( r, Math.max(g, b) );
+        double min = Math.min( r, Math.min(g, b) );
+        double delta = max - min;
+        if( delta <= 0.0 ) return 0.0;
+        double h;
+        if( max == r )      h = 60.0 * (((g - b) / delta) % 6.0);
+        else if( max == g ) h = 60.0 * (((b - r) / delta) + 2.0);
+        else                h = 60.0 * (((r - g) / delta) + 4.0);
+        return (h < 0.0)? (h + 360.0) : h;
+    } // computeHue
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void loadFromFile() {
+        String fileName = CAL_FILE_PREFIX + name + ".txt";
+        File file = AppUtil.getInstance().getSettingsFile( fileName );
+        calError = null;
+        if( !file.exists() ) return;
+        for( String line : ReadWriteFile.readFile( file ).split("\n") ) {
+            line = line.trim();
+            if( line.isEmpty() || line.startsWith("#") ) continue;
+            try {
+                String[] tok = line.split("\\s+");
+                switch( tok[0].toLowerCase() ) {
+                    case "gain"   : gainR = Double.parseDouble(tok[1]);
+                                    gainG = Double.parseDouble(tok[2]);
+                                    gainB = Double.parseDouble(tok[3]);  break;
+                    case "purple" : purpleR = Double.parseDouble(tok[1]);
+                                    purpleG = Double.parseDouble(tok[2]);  break;
+                    case "green"  : greenR  = Double.parseDouble(tok[1]);
+                                    greenG  = Double.parseDouble(tok[2]);  break;
+                    case "spread" : spread  = Double.parseDouble(tok[1]);  break;
+                    case "minintensity" : minIntensity = Double.parseDouble(tok[1]);  break;
+                    case "seated" : seatedMinMm = Double.parseDouble(tok[1]);
+                                    seatedMaxMm = Double.parseDouble(tok[2]);  break;
+                    default       : throw new IllegalArgumentException( tok[0] );
+                }
+            } catch( RuntimeException e ) {
+                calError = fileName + ": " + line;
+            }
+        }
+    } // loadFromFile
+
+} // BallColorClassifier
@@ -0,0 +1,199 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Debounced, timestamped ball arrive/leave events for the left and right spindexer positions.
+ *
+ * A background thread samples the BallPresenceSource every SAMPLE_PERIOD_MSEC (instead of once
+ * per control loop), so a slow loop can't lose a short pass-through.  Every sample is a hub
+ * round trip per sensor, so the rate is capped (and there's always an idle gap) to leave the
+ * hubs to the control loop; if a bus scheduler is attached with setBus() the reads show up in
+ * its report and back off while the loop is over budget.  A new reading only
+ * counts once it has held for the debounce window; the event is then stamped with the time the
+ * reading first changed (the real edge, not when we noticed it).  Events go into a fixed-size
+ * primitive ring buffer (one producer: the sampler thread, one consumer: the control loop) that
+ * the control loop drains with poll().  Nothing is allocated per sample or per event.
+ */
+public class BallPresenceMonitor implements Runnable {
+    public final static long   IDLE_EXIT_MSEC     = 500;
+    public final static double DEBOUNCE_MSEC      = 5.0;    // default; see setDebounceMsec()
+    public final static double SAMPLE_PERIOD_MSEC = 5.0;    // default; see setSamplePeriodMsec()
+    public final static long   MIN_IDLE_NANOS     = 1000000L;  // always leave the hubs 1 msec between samples
+    public final static long   THROTTLE_MSEC      = 5;      // extra pause while the bus is over budget
+    public final static int    QUEUE_SIZE         = 32;     // power of 2
+    public final static int    RATE_HISTORY       = 8;      // arrivals used for balls/sec
+    public final static double RATE_STALE_MSEC    = 2000.0; // no arrival this long = not intaking
+
+    private final static int QUEUE_MASK = QUEUE_SIZE - 1;
+    private final static int SIDES = 2;
+
+    public final BallPresenceSource source;
+
+    private volatile boolean running = false;
+    private volatile long    lastRequestNanos = 0;
+    private volatile long    debounceNanos = (long)(DEBOUNCE_MSEC * 1.0e6);
+    private volatile long    periodNanos   = (long)(SAMPLE_PERIOD_MSEC * 1.0e6);
+    private I2cBusScheduler  bus = null;
+    private int              busDevice = -1;
+
+    // Debouncer (sampler thread only)
+    private final boolean[] stable       = new boolean[SIDES];
+    private final boolean[] pending      = new boolean[SIDES];  // raw differs from stable
+    private final long[]    pendingSince = new long[SIDES];
+    private volatile int    stableMask   = 0;
+
+    // Event queue (written by the sampler thread, drained by the control loop)
+    private final long[]    qNanos  = new long[QUEUE_SIZE];
+    private final byte[]    qSide   = new byte[QUEUE_SIZE];
+    private final boolean[] qArrive = new boolean[QUEUE_SIZE];
+    private volatile int    qHead = 0;   // next write (sampler)
+    private volatile int    qTail = 0;   // next read (control loop)
+    public  volatile int    overflows = 0;
+
+    // Sampler statistics
+    public volatile double  samplesPerSec = 0.0;
+    public volatile double  readMsec      = 0.0;   // hub time of the most recent sample
+    public volatile double  maxReadMsec   = 0.0;
+    public volatile int     bounces       = 0;   // changes shorter than the debounce window
+
+    // Most recent event returned by poll() (control loop only)
+    public int     eventSide    = 0;
+    public boolean eventArrived = false;
+    public long    eventNanos   = 0;
+
+    // Intake throughput (control loop only, updated by poll())
+    private final long[] arrivalNanos = new long[RATE_HISTORY];
+    private int arrivalNext  = 0;
+    private int arrivalCount = 0;
+    public  int arrivals     = 0;      // since the OpMode started
+
+    /*--------------------------------------------------------------------------------------------*/
+    public BallPresenceMonitor( BallPresenceSource source ) {
+        this.source = source;
+    } // BallPresenceMonitor
+
+    public void setDebounceMsec( double msec ) {
+        debounceNanos = (long)(msec * 1.0e6);
+    } // setDebounceMsec
+
+    public void setSamplePeriodMsec( double msec ) {
+        periodNanos = (long)(msec * 1.0e6);
+    } // setSamplePeriodMsec
+
+    // Report reads to (and yield to) the bus scheduler; call before the first request()
+    public void setBus( I2cBusScheduler bus ) {
+        this.bus = bus;
+        this.busDevice = bus.addBackgroundDevice( "presence-" + source.name() );
+    } // setBus
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Call every loop that needs presence; sampling stops IDLE_EXIT_MSEC after the last call
+    public void request() {
+        lastRequestNanos = System.nanoTime();
+        if( !running ) {
+            running = true;
+            Thread thread = new Thread( this, "BallPresence-" + source.name() );
+            thread.setDaemon( true );
+            thread.start();
+        }
+    } // request
+
+    // Debounced state right now
+    public boolean isPresent( int side ) {
+        return (stableMask & (1 << side)) != 0;
+    } // isPresent
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Take the oldest event into eventSide/eventArrived/eventNanos; false if there are none
+    public boolean poll() {
+        int tail = qTail;
+        if( tail == qHead ) return false;
+        int i = tail & QUEUE_MASK;
+        eventSide    = qSide[i];
+        eventArrived = qArrive[i];
+        eventNanos   = qNanos[i];
+        qTail = tail + 1;
+        if( eventArrived ) {
+            arrivals++;
+            arrivalNanos[arrivalNext] = eventNanos;
+            arrivalNext = (arrivalNext + 1) % RATE_HISTORY;
+            if( arrivalCount < RATE_HISTORY ) arrivalCount++;
+        }
+        return true;
+    } // poll
+
+    // Recent intake rate (0 if fewer than 2 recent arrivals)
+    public double ballsPerSecond() {
+        if( arrivalCount < 2 ) return 0.0;
+        long newest = arrivalNanos[ (arrivalNext - 1 + RATE_HISTORY) % RATE_HISTORY ];
+        long oldest = arrivalNanos[ (arrivalNext - arrivalCount + RATE_HISTORY) % RATE_HISTORY ];
+        if( (System.nanoTime() - newest) / 1.0e6 > RATE_STALE_MSEC ) return 0.0;
+        return (arrivalCount - 1) * 1.0e9 / Math.max( 1L, newest - oldest );
+    } // ballsPerSecond
+
+    /*--------------------------------------------------------------------------------------------*/
+    @Override
+    public void run() {
+        long rateStart = System.nanoTime();
+        int  rateSamples = 0;
+        try {
+            while( (System.nanoTime() - lastRequestNanos) < IDLE_EXIT_MSEC * 1000000L ) {
+                long now = System.nanoTime();
+                int  raw = source.read();
+                long end = System.nanoTime();
+                sample( raw, now );
+                readMsec    = (end - now) / 1.0e6;
+                maxReadMsec = Math.max( maxReadMsec, readMsec );
+                if( ++rateSamples >= 100 ) {
+                    samplesPerSec = rateSamples * 1.0e9 / (end - rateStart);
+                    rateStart = end;
+                    rateSamples = 0;
+                }
+                if( bus != null ) {
+                    bus.record( busDevice, now, end );
+                    if( bus.isThrottled() ) Thread.sleep( THROTTLE_MSEC );
+                }
+                long spare = Math.max( MIN_IDLE_NANOS, periodNanos - (System.nanoTime() - now) );
+                Thread.sleep( spare / 1000000L, (int)(spare % 1000000L) );
+            }
+        } catch( InterruptedException | RuntimeException e ) {
+            // stopped at the end of the OpMode, or the source failed; the next request() restarts us
+        } finally {
+            running = false;
+        }
+    } // run
+
+    // Debounce one raw reading (sampler thread)
+    private void sample( int rawMask, long now ) {
+        int mask = stableMask;
+        for( int side=0; side<SIDES; side++ ) {
+            boolean raw = (rawMask & (1 << side)) != 0;
+            if( raw == stable[side] ) {
+                if( pending[side] ) bounces++;
+                pending[side] = false;
+            } else if( !pending[side] ) {
+                pending[side] = true;
+                pendingSince[side] = now;
+            } else if( now - pendingSince[side] >= debounceNanos ) {
+                stable[side]  = raw;
+                pending[side] = false;
+                mask = (raw)? (mask | (1 << side)) : (mask & ~(1 << side));
+                enqueue( side, raw, pendingSince[side] );
+            }
+        }
+        stableMask = mask;
+    } // sample
+
+    private void enqueue( int side, boolean arrive, long nanos ) {
+        int head = qHead;
+        if( head - qTail >= QUEUE_SIZE ) {   // control loop isn't draining; drop the newest
+            overflows++;
+            return;
+        }
+        int i = head & QUEUE_MASK;
+        qNanos[i]  = nanos;
+        qSide[i]   = (byte) side;
+        qArrive[i] = arrive;
+        qHead = head + 1;   // publishes the entry
+    } // enqueue
+
+} // BallPresenceMonitor
@@ -0,0 +1,17 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Where BallPresenceMonitor gets its raw (un-debounced) presence readings from.  Implementations
+ * are read from the monitor's sampler thread, so they must talk to the hardware directly (not
+ * through the hubs' MANUAL bulk cache, which only the control loop refreshes).
+ */
+public interface BallPresenceSource {
+    int LEFT  = 0;
+    int RIGHT = 1;
+
+    // Read both sensors now: bit LEFT / bit RIGHT set = ball present
+    int read();
+
+    String name();
+
+} // BallPresenceSource
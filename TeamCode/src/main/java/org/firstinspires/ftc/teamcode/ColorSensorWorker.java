@@ -0,0 +1,116 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.NormalizedColorSensor;
+import com.qualcomm.robotcore.hardware.NormalizedRGBA;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * Reads one color sensor on a background thread so the control loop never waits on its I2C
+ * transaction, and each sensor runs at its own full rate (instead of taking turns).
+ *
+ * Handoff is "latest value wins": the worker overwrites a single sample slot (numbered by a
+ * counter), and the control loop copies it out with fetch() only when there's something new.
+ * Both sides hold the worker's lock just long enough to copy a few fields (never during the
+ * I2C read), so nothing is queued or allocated and neither side waits on the bus.
+ *
+ * Sensors that also measure optical distance (eg REV Color Sensor V3) report it with each
+ * sample, so the caller can ignore readings taken before the ball is seated.
+ *
+ * Each read is reported to the I2C bus scheduler (if one is attached with setBus), and the
+ * worker backs off while the scheduler says the bus is over budget.
+ *
+ * The thread only runs while someone wants samples: call request() every loop you need color,
+ * and the worker exits on its own once it hasn't been asked for IDLE_EXIT_MSEC (so it never
+ * outlives the OpMode).  The next request() starts a new one.
+ */
+public class ColorSensorWorker implements Runnable {
+    public final static long IDLE_EXIT_MSEC = 500;
+    public final static long THROTTLE_MSEC  = 5;    // pause between reads while the bus is over budget
+
+    public final String name;
+    private final NormalizedColorSensor sensor;
+    private final DistanceSensor        distanceSensor;   // null if not supported
+
+    private I2cBusScheduler bus = null;
+    private int busDevice = -1;
+
+    private volatile boolean running = false;
+    private volatile long    lastRequestNanos = 0;
+
+    // Latest sample (guarded by this)
+    private int   seq = 0;
+    private float sRed, sGreen, sBlue;
+    private double sDist;
+    private long  sNanos;
+
+    // Copied out by fetch() (control loop only)
+    public float  red, green, blue;
+    public double distanceMm  = Double.NaN;   // NaN if the sensor doesn't measure distance
+    public long   sampleNanos = 0;     // System.nanoTime() when the sample was requested from the sensor
+    private int   lastSeq     = 0;
+    public volatile double readMsec = 0.0;  // how long the most recent I2C read took
+
+    /*--------------------------------------------------------------------------------------------*/
+    public ColorSensorWorker( String name, NormalizedColorSensor sensor ) {
+        this.name   = name;
+        this.sensor = sensor;
+        this.distanceSensor = (sensor instanceof DistanceSensor)? (DistanceSensor)sensor : null;
+    } // ColorSensorWorker
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Report reads to (and yield to) an I2C bus scheduler; call before the first request()
+    public void setBus( I2cBusScheduler bus ) {
+        this.bus = bus;
+        this.busDevice = bus.addBackgroundDevice( "color" + name );
+    } // setBus
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Keep (or start) sampling
+    public void request() {
+        lastRequestNanos = System.nanoTime();
+        if( !running ) {
+            running = true;
+            Thread thread = new Thread( this, "ColorSensor-" + name );
+            thread.setDaemon( true );
+            thread.start();
+        }
+    } // request
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Copy out the newest sample taken at or after sinceNanos; false if there isn't a new one
+    public synchronized boolean fetch( long sinceNanos ) {
+        if( (seq == lastSeq) || (sNanos < sinceNanos) ) return false;
+        lastSeq = seq;
+        red = sRed;  green = sGreen;  blue = sBlue;  distanceMm = sDist;  sampleNanos = sNanos;
+        return true;
+    } // fetch
+
+    /*--------------------------------------------------------------------------------------------*/
+    @Override
+    public void run() {
+        try {
+            while( (System.nanoTime() - lastRequestNanos) < IDLE_EXIT_MSEC * 1000000L ) {
+                long start = System.nanoTime();
+                NormalizedRGBA colors = sensor.getNormalizedColors();
+                double dist = (distanceSensor != null)? distanceSensor.getDistance( DistanceUnit.MM ) : Double.NaN;
+                long end = System.nanoTime();
+                readMsec = (end - start) / 1.0e6;
+                synchronized( this ) {
+                    sRed = colors.red;  sGreen = colors.green;  sBlue = colors.blue;  sDist = dist;  sNanos = start;
+                    seq++;
+                }
+                if( bus != null ) {
+                    bus.record( busDevice, start, end );
+                    if( bus.isThrottled() ) Thread.sleep( THROTTLE_MSEC );
+                }
+            }
+        } catch( InterruptedException | RuntimeException e ) {
+            // hardware went away (OpMode stopped); just quit
+        } finally {
+            running = false;
+        }
+    } // run
+
+} // ColorSensorWorker
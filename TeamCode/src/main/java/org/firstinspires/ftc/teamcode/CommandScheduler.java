@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Runs AutoCommands from the autonomous control loop.
+ *
+ * schedule() starts a command; update() (once per loop, after performEveryLoop) advances every
+ * running command by one step and ends the ones that finished.  Usually there's a single root
+ * command (the whole routine as one command graph), but an action can also schedule() a side
+ * command that runs alongside it.  Nothing here blocks or allocates per loop.
+ */
+public class CommandScheduler {
+    public final static int MAX_COMMANDS = 8;
+
+    private final AutoCommand[] running = new AutoCommand[MAX_COMMANDS];
+    private int count = 0;
+
+    // Diagnostics
+    public double lastUpdateMsec = 0.0;   // time spent in the commands last loop
+    public double maxUpdateMsec  = 0.0;
+    public int    loops          = 0;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void schedule( AutoCommand command ) {
+        if( count >= MAX_COMMANDS ) throw new IllegalStateException( "too many commands" );
+        command.start();
+        running[count++] = command;
+    } // schedule
+
+    public boolean isIdle() {
+        return (count == 0);
+    } // isIdle
+
+    /*--------------------------------------------------------------------------------------------*/
+    // One step of every running command
+    public void update() {
+        long start = System.nanoTime();
+        int n = count;   // commands scheduled during this update first run next loop
+        for( int i=0; i<n; i++ ) {
+            if( running[i].update() ) {
+                running[i].end( false );
+                running[i] = null;
+            }
+        }
+        compact();
+        loops++;
+        lastUpdateMsec = (System.nanoTime() - start) / 1.0e6;
+        maxUpdateMsec  = Math.max( maxUpdateMsec, lastUpdateMsec );
+    } // update
+
+    // Stop everything (eg the OpMode is stopping)
+    public void cancelAll() {
+        for( int i=0; i<count; i++ ) {
+            if( running[i] != null ) running[i].end( true );
+            running[i] = null;
+        }
+        count = 0;
+    } // cancelAll
+
+    private void compact() {
+        int k = 0;
+        for( int i=0; i<count; i++ ) {
+            if( running[i] != null ) running[k++] = running[i];
+        }
+        for( int i=k; i<count; i++ ) running[i] = null;
+        count = k;
+    } // compact
+
+} // CommandScheduler
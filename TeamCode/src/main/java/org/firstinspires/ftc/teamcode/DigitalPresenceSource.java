@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DigitalChannel;
+
+/**
+ * Ball presence from the digital LeftPresence/RightPresence sensors.
+ *
+ * Reads the configured DigitalChannels (set to INPUT by the caller).  NOTE: with MANUAL bulk
+ * caching getState() returns the pin from the hub's latest bulk read, so a new value only shows
+ * up once the control loop refreshes the cache (readBulkData); edges are timestamped to within
+ * one control loop, not to the sampler's own rate.
+ */
+public class DigitalPresenceSource implements BallPresenceSource {
+    private final DigitalChannel leftSensor, rightSensor;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public DigitalPresenceSource( DigitalChannel leftSensor, DigitalChannel rightSensor ) {
+        this.leftSensor  = leftSensor;
+        this.rightSensor = rightSensor;
+    } // DigitalPresenceSource
+
+    /*--------------------------------------------------------------------------------------------*/
+    @Override
+    public int read() {
+        int mask = 0;
+        if( leftSensor.getState() )  mask |= (1 << LEFT);
+        if( rightSensor.getState() ) mask |= (1 << RIGHT);
+        return mask;
+    } // read
+
+    @Override
+    public String name() {
+        return "digital";
+    } // name
+
+} // DigitalPresenceSource
@@ -245,6 +245,45 @@ public class MaxSonarI2CXL extends I2cDeviceSynchDevice<I2cDeviceSynch>
         return lastDistance;
     }
 
+    //------------------------------------------------------------------------------------------
+    // User non-blocking methods (for callers that schedule the pings themselves)
+    //------------------------------------------------------------------------------------------
+
+    /***
+     * Commands the sensor to send out a ping and
+     * returns immediately. Read the result with
+     * readRange() once the sound has had time to
+     * come back (see getDefaultPropagationDelay()).
+     */
+    public void startPing()
+    {
+        ping();
+        lastPingTime = System.currentTimeMillis();
+    }
+
+    /***
+     * Reads the range of the last commanded
+     * measurement with a single I2C read (no
+     * waiting, no retries)
+     *
+     * @return the range of the last commanded
+     *         measurement, or 0 if the sensor
+     *         returned no data
+     */
+    public int readRange()
+    {
+        return TypeConversion.byteArrayToShort(deviceClient.read(0, NUM_RANGE_BYTES));
+    }
+
+    /***
+     * @return how long a ping needs before its result
+     *         can be read (msec)
+     */
+    public int getDefaultPropagationDelay()
+    {
+        return DEFAULT_SONAR_PROPAGATION_DELAY_MS;
+    }
+
     //------------------------------------------------------------------------------------------
     // User I2C address changing methods
     //------------------------------------------------------------------------------------------
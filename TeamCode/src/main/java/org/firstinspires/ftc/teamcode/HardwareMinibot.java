@@ -92,8 +92,11 @@ public class HardwareMinibot
     public clawStateEnum clawState = clawStateEnum.CLAW_INIT;
     //==============================================================================================
 
-    //Ultrasonic sensors
+    //Ultrasonic sensors (pinged in the background by the scheduler; see readBulkData)
     private MaxSonarI2CXL sonarRangeF = null;
+    public SonarScheduler sonars = new SonarScheduler();
+    public int sonarFront = -1;   // index in sonars (-1 = not configured)
+    public final static double SONAR_SYNC_TIMEOUT_MSEC = 250.0;   // slow (one-off) sonar readings
 
     /* local OpMode members. */
     protected HardwareMap hwMap = null;
@@ -156,7 +159,10 @@ public class HardwareMinibot
         // Initialize REV Control Hub IMU
         initIMU();
 
-//      sonarRangeF = hwMap.get( MaxSonarI2CXL.class, "distance" );
+        sonarRangeF = hwMap.tryGet( MaxSonarI2CXL.class, "distance" );
+        if( sonarRangeF != null ) {
+            sonarFront = sonars.add( sonarRangeF, "front" );
+        }
 
     } /* init */
 
@@ -276,6 +282,8 @@ public class HardwareMinibot
         rearRightMotorVel  = rearRightMotor.getVelocity();
         rearLeftMotorPos   = rearLeftMotor.getCurrentPosition();
         rearLeftMotorVel   = rearLeftMotor.getVelocity();
+        // Ping/read the next sonar if it's time (never waits)
+        sonars.update();
     } // readBulkData
 
     /*--------------------------------------------------------------------------------------------*/
@@ -384,8 +392,8 @@ public class HardwareMinibot
     } // setRunToPosition
 
     public int singleSonarRangeF() {
-        //Query the current range sensor reading and wait for a response
-        return sonarRangeF.getDistanceSync();
+        //Wait for the sonar scheduler's next reading (a ping of our own would collide with its pings)
+        return (sonarFront >= 0)? sonars.getFreshRangeCm( sonarFront, SONAR_SYNC_TIMEOUT_MSEC ) : 0;
     } // singleSonarRangeF
 
     enum UltrasonicsInstances
@@ -402,27 +410,26 @@ public class HardwareMinibot
         SONIC_MOST_RECENT;
     }
     public int slowSonarRange( UltrasonicsInstances sensorInstance ) {
-        // This is the SLOW version that sends an ultrasonic ping, waits 50 msec for the result,
-        // and returns a value.  The returned valued is based on SINGLE reading (no averaging).
+        // This is the SLOW version that waits (50+ msec) for the result of the sonar scheduler's
+        // next ping, and returns a value.  The returned valued is based on SINGLE reading (no averaging).
         // This version is intended for 1-time readings where the 50msec is okay (not control loops).
         int cm = 0;
         switch( sensorInstance ) {
-            case SONIC_RANGE_FRONT : cm = sonarRangeF.getDistanceSync(); break;
+            case SONIC_RANGE_FRONT : cm = singleSonarRangeF(); break;
             default                : cm = 0;
         } // switch()
         return cm;
     } // slowSonarRange
 
     public int fastSonarRange( UltrasonicsInstances sensorInstance, UltrasonicsModes mode ) {
-        // This is the FAST version that assumes there's a continuous sequence of pings being
-        // triggered so it simply returns the "most recent" answer (no waiting!). This function is
-        // intended for control loops that can't afford to incur a 50msec delay in the loop time.
-        // The first call should pass SONIC_FIRST_PING and ignore the result; All subsequent calls
-        // (assuming at least 50 msec has elapsed) should pass SONIC_MOST_RECENT and use the distance
-        // returned.
+        // This is the FAST version that returns the "most recent" answer from the continuous
+        // sequence of pings the sonar scheduler triggers from readBulkData() (no waiting!). This
+        // function is intended for control loops that can't afford to incur a 50msec delay in the
+        // loop time.  SONIC_FIRST_PING returns 0 (result may be from another time/place); use
+        // sonars.ageMsec() to see how fresh a reading is.
         int cm = 0;
         switch( sensorInstance ) {
-            case SONIC_RANGE_FRONT : cm = sonarRangeF.getDistanceAsync(); break;
+            case SONIC_RANGE_FRONT : cm = (sonarFront >= 0)? sonars.getRangeCm(sonarFront) : 0; break;
             default                : cm = 0;
         } // switch()
         // Do we need to zero-out the value returned (likely from another time/place)?
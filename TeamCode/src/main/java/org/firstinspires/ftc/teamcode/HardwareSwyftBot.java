@@ -11,7 +11,6 @@ import com.qualcomm.robotcore.hardware.DigitalChannel;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.IMU;
 import com.qualcomm.robotcore.hardware.NormalizedColorSensor;
-import com.qualcomm.robotcore.hardware.NormalizedRGBA;
 import com.qualcomm.robotcore.hardware.PIDFCoefficients;
 import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.hardware.CRServo;
@@ -34,11 +33,7 @@ import static com.qualcomm.hardware.rev.RevHubOrientationOnRobot.LogoFacingDirec
 import static com.qualcomm.hardware.rev.RevHubOrientationOnRobot.UsbFacingDirection;
 import static java.lang.Thread.sleep;
 
-import android.graphics.Color;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 /*
  * Hardware class for Swyft Robotics SWYFT DRIVE V2 chassis with 86mm mecanum wheels
@@ -56,6 +51,11 @@ public class HardwareSwyftBot
     protected IMU imu          = null;
     public double headingAngle = 0.0;
     public double tiltAngle    = 0.0;
+    // Heading for driver-centric driving (Pinpoint/IMU/fused; one read per loop at most)
+    public HeadingProvider heading = new HeadingProvider(this);
+    // I2C devices polled by the control loop share a per-loop time budget (see readI2cDevices)
+    public I2cBusScheduler i2cBus = new I2cBusScheduler();
+    public final static double I2C_BUDGET_MSEC = 4.0;
 
     //====== GOBILDA PINPOINT ODOMETRY COMPUTER ======
     GoBildaPinpointDriver odom;
@@ -126,6 +126,9 @@ public class HardwareSwyftBot
     double limelightFieldYstd     = 0;
     double limelightFieldAnglestd = 0;
 
+    // Where to aim/range inside the goal for our current field zone (shared teleop/autonomous)
+    public AimTargetTable aimTargets = new AimTargetTable();
+
     //====== 2025 DECODE SEASON MECHANISM MOTORS (RUN_USING_ENCODER) =====
     protected DcMotorEx intakeMotor     = null;
 
@@ -150,6 +153,11 @@ public class HardwareSwyftBot
     public final static double SHOOTER_MOTOR_MID  = 0.45;
     public final static double SHOOTER_MOTOR_AUTO = 0.45;
 
+    // On-line correction to the shooter power model (learned from reported shot outcomes)
+    public ShooterPowerLearner shooterLearner = new ShooterPowerLearner();
+    public double  shooterPowerDistance = 0.0;  // distance used by the last computeShooterPower()
+    public double  shooterPowerComputed = 0.0;  // power returned by the last computeShooterPower()
+
     //====== TURRET 5-turn SERVOS =====
     public Servo       turretServo     = null;  // 2 servos! (controlled together via Y cable)
     public AnalogInput turretServoPos1 = null;
@@ -157,8 +165,10 @@ public class HardwareSwyftBot
 
     public double     turretServoSet    = 0.0;  // 5-turn servo commanded setpoint
     public double     turretServoGet    = 0.0;  // 5-turn servo queried setpoint
-    public double     turretServoPos    = 0.0;  // 5-turn servo position (analog feedback)
-    public boolean    turretServoIsBusy = false; // are we still moving toward position?
+    public double     turretServoPos    = 0.0;  // 5-turn servo position (last analog feedback read)
+    public boolean    turretServoIsBusy = false; // are we still moving toward position? (analog confirmed)
+    public boolean    turretServoReady  = true;  // predicted to be in position (OK to start shooting)
+    public TurretTracker turretTracker  = new TurretTracker();
 
     // NOTE: Although the turret can spin to +180deg, the cable blocks the shooter hood exit
     // once you reach +55deg, so that's our effect MAX turret angle on the right side.
@@ -173,6 +183,17 @@ public class HardwareSwyftBot
     public final static double TURRET_R1_OFFSET = -0.005; // ROBOT1 offset to align with reference
     public final static double TURRET_R2_OFFSET =  0.000; // ROBOT2 offset to align with reference
 
+    // Turret range in degrees (relative to robot forward, CCW positive) as set by setTurretAngle()
+    public final static double TURRET_ANGLE_MIN = -(TURRET_SERVO_MAX - TURRET_SERVO_INIT)/TURRET_CTS_PER_DEG; // -61 deg
+    public final static double TURRET_ANGLE_MAX =  (TURRET_SERVO_INIT - TURRET_SERVO_N90)/TURRET_CTS_PER_DEG; // +82 deg
+    // When the target is outside turret range we rotate the chassis until the turret is back
+    // this far inside its limits (short turret moves, and room to track while the robot turns)
+    public final static double TURRET_FAST_ZONE_DEG  = 10.0;
+    public final static double CHASSIS_ASSIST_KP     = 0.012;  // turn power per degree of yaw error
+    public final static double CHASSIS_ASSIST_MAXPOW = 0.40;   // don't whip the robot around
+    public boolean chassisAssistActive = false;  // are we currently rotating the chassis to aim?
+    public double  chassisAssistYawDeg = 0.0;    // how much yaw the chassis still needs to provide
+
     //====== SPINDEXER SERVO =====
     public Servo       spinServo    = null;
     public AnalogInput spinServoPos = null;
@@ -256,8 +277,54 @@ public class HardwareSwyftBot
     public boolean        spinServoAbort  = false; // are we currently in an aborted state?
     public ElapsedTime    spinServoTimer  = new ElapsedTime();
     public double         spinServoTime   = 0.0;   // msec to get into position
+
+    // Jerk-limited spindexer moves: we stream setpoints along an S-curve instead of commanding
+    // the final position and letting the servo slam there (and ring) with a load of balls
+    public final static double SPIN_PROFILE_MAX_VEL  = 2.4;    // servo units/sec
+    public final static double SPIN_PROFILE_MAX_ACC  = 30.0;   // servo units/sec^2
+    public final static double SPIN_PROFILE_MAX_JERK = 900.0;  // servo units/sec^3
+    public final static double SPIN_PROFILE_KP       = 0.5;    // lead the setpoint by this fraction of the lag
+    public final static double SPIN_PROFILE_MAX_CORR = 0.03;   // cap on the lag correction (servo units)
+    public final static double SPIN_TIMEOUT_MARGIN   = 250.0;  // msec beyond the profile duration
+    public SCurveMotionProfile spinProfile = new SCurveMotionProfile( SPIN_PROFILE_MAX_VEL,
+                                                 SPIN_PROFILE_MAX_ACC, SPIN_PROFILE_MAX_JERK );
+    public boolean        spinProfileActive = false;
+    public double         spinProfileStart  = 0.0;   // servo position at the start of the move
+    public double         spinProfileCmd    = 0.0;   // most recent streamed setpoint
+    // Measured move times [msec] indexed by [from][to] SpindexerState ordinal (0 = not yet measured)
+    public final double[][] spinMoveTimeMsec = new double[7][7];
+    public SpindexerState spinServoFromPos = SpindexerState.SPIN_P3;
+
+    // Jam detection: the analog feedback stops moving well short of the target
+    public final static double SPIN_JAM_STALL_VEL    = 0.20;   // servo units/sec (normal moves are ~2)
+    public final static double SPIN_JAM_STALL_MSEC   = 100.0;  // stalled this long = jammed
+    public final static double SPIN_JAM_MIN_MSEC     = 100.0;  // ignore the start of the S-curve
+    public final static double SPIN_JAM_BACKOFF      = 0.06;   // servo units to back away from the jam
+    public final static double SPIN_JAM_BACKOFF_MSEC = 150.0;  // back off (and reverse intake) this long
+    public final static int    SPIN_JAM_MAX_RETRIES  = 2;      // then give up on this move
+    public double         spinServoVel      = 0.0;    // filtered analog feedback velocity (units/sec)
+    public double         spinServoPrevPos  = 0.0;
+    public ElapsedTime    spinVelTimer      = new ElapsedTime();
+    public ElapsedTime    spinStallTimer    = new ElapsedTime();
+    public boolean        spinJamRecovering = false;  // currently backing off from a jam
+    public boolean        spinServoJamFailed= false;  // gave up on the current move (still jammed)
+    public int            spinJamAttempts   = 0;      // retries used on the current move
+    public int            spinJamCount      = 0;      // total jams detected (this opmode)
+    public double         spinJamTime       = 0.0;    // total msec lost to jams (this opmode)
+    public double         spinJamLastMsec   = 0.0;    // msec lost to the most recent jam
+    public ElapsedTime    spinJamTimer      = new ElapsedTime();
+    private double        spinJamIntakePower= 0.0;    // intake power to restore after recovery
     public ElapsedTime    shoot3Timer     = new ElapsedTime();
     public double         shoot3Time      = 0.0;   // msec to shoot all 3 balls
+    // Pipelined triple-shot: start the next spindexer move as soon as the injector has cleared
+    // the spindexer path on its way down, rather than waiting for it to fully reset
+    // (OFF until LIFT_SERVO_CLEAR_MARGIN has been measured on the robot; set SHOOT3_PIPELINED_OK
+    // once it has, otherwise shoot3Pipelined is ignored)
+    public final static boolean SHOOT3_PIPELINED_OK = false;
+    public boolean        shoot3Pipelined = false;
+    private boolean       shoot3PipelinedRun = false; // mode used by the triple-shot in progress
+    public double         shoot3TimeSequential = 0.0;  // last shoot3Time with pipelining OFF
+    public double         shoot3TimePipelined  = 0.0;  // last shoot3Time with pipelining ON
 
     public enum Shoot3state {
         SHOOT3_IDLE,
@@ -269,21 +336,29 @@ public class HardwareSwyftBot
         SHOOT3_INJECT_WAIT,
         SHOOT3_DONE,
     }
-    public Shoot3state currentShoot3state = Shoot3state.SHOOT3_IDLE;
+    public TimedStateMachine<Shoot3state> tripleShot =
+            new TimedStateMachine<>( "Shoot3", Shoot3state.class, Shoot3state.SHOOT3_IDLE );
 
-    public enum Shoot3order {   // other orders may be needed for motif shooting (132, 231, 312)
-        SHOOT3_123,
-        SHOOT3_213,
-        SHOOT3_321
-    }
-    public Shoot3order desiredShoot3order = Shoot3order.SHOOT3_123;
+    // Shot order comes from the planner (spinventory colors + motif, minimum spindexer travel)
+    public BallOrder        shootMotif   = null;  // obelisk motif to shoot (null = any order)
+    public ShotOrderPlanner shotPlanner  = ShotOrderPlanner.NOMINAL;
+    public ShotOrderPlanner.Plan shoot3Plan = null;
+    public int              shoot3Index  = 0;     // which entry of shoot3Plan we're shooting
+    private boolean         spinMoveTimesChanged = false;  // planner needs rebuilding
 
     //====== INJECTOR/LIFTER SERVO =====
     public Servo       liftServo      = null;
     public AnalogInput liftServoPos   = null;
     public boolean     liftServoBusyU = false;  // busy going UP (lifting)
     public boolean     liftServoBusyD = false;  // busy going DOWN (resetting)
-    public ElapsedTime liftServoTimer = new ElapsedTime();
+
+    public enum InjectorState {
+        LIFT_IDLE,
+        LIFT_UP,
+        LIFT_DOWN,
+    }
+    public TimedStateMachine<InjectorState> injector =
+            new TimedStateMachine<>( "Injector", InjectorState.class, InjectorState.LIFT_IDLE );
 
     //===== ROBOT1 injector/lift servo positions:
     public final static double LIFT_SERVO_INIT_R1   = 0.520;
@@ -292,6 +367,7 @@ public class HardwareSwyftBot
       //   173 (178)  . . .    (239)  235           <-- 5deg tolerance on RESET and INJECT
     public final static double LIFT_SERVO_RESET_ANG_R1  = 178.3;  // 0.520 = 173.3deg
     public final static double LIFT_SERVO_INJECT_ANG_R1 = 230.2;  // 0.330 = 235.2deg
+    public final static double LIFT_SERVO_CLEAR_MARGIN_R1 = 20.0; // NOT YET MEASURED (see LIFT_SERVO_CLEAR_ANG)
     //===== ROBOT2 injector/lift servo positions:
     public final static double LIFT_SERVO_INIT_R2   = 0.510;
     public final static double LIFT_SERVO_RESET_R2  = 0.510;
@@ -299,12 +375,29 @@ public class HardwareSwyftBot
       //   177 (182)  . . .    (230)  235           <-- 5deg tolerance on RESET and INJECT
     public final static double LIFT_SERVO_RESET_ANG_R2  = 182.0;  // 0.510 = 177.0deg
     public final static double LIFT_SERVO_INJECT_ANG_R2 = 230.4;  // 0.330 = 235.4deg
+    public final static double LIFT_SERVO_CLEAR_MARGIN_R2 = 20.0; // NOT YET MEASURED (see LIFT_SERVO_CLEAR_ANG)
     //===== These get populated after IMU init, when we know if we're ROBOT1 or ROBOT2
     public double LIFT_SERVO_INIT;
     public double LIFT_SERVO_RESET;
     public double LIFT_SERVO_INJECT;
     public double LIFT_SERVO_RESET_ANG;
     public double LIFT_SERVO_INJECT_ANG;
+    // Below this injector angle the lifter is out of the spindexer's path (OK to rotate).  Measure
+    // the margin (degrees above the reset angle) on each robot before turning on shoot3Pipelined.
+    public double LIFT_SERVO_CLEAR_ANG;
+    public double liftServoAngle = 0.0;  // injector angle from the most recent state machine update
+    // Peak extension is detected when the Axon feedback stops rising (or starts falling back)
+    public final static double LIFT_PEAK_DROP_DEG  = 1.5;    // fallen this far below the peak
+    public final static double LIFT_PEAK_STALL_VEL = 30.0;   // deg/sec: no longer rising
+    public final static double LIFT_PEAK_MOVING    = 200.0;  // deg/sec: the stroke really got going
+    public final static double LIFT_VEL_FILTER     = 0.4;    // low-pass on the analog velocity (1 = raw)
+    public final static int    LIFT_PEAK_LOOPS     = 2;      // consecutive loops the peak must hold
+    private int        liftServoPeakLoops = 0;   // consecutive loops the peak condition has held
+    public double      liftServoVel     = 0.0;   // injector angular velocity (deg/sec)
+    public double      liftServoPeakAng = 0.0;   // highest angle seen this UP stroke
+    public double      liftServoPeakVel = 0.0;   // fastest rise seen this UP stroke
+    public ElapsedTime liftServoVelTimer = new ElapsedTime();
+    public InjectorStrokeModel liftStroke = new InjectorStrokeModel();
 
     //====== LED CONTROLLERS (controlled via SERVO signals) =====
     public Servo  ledServo = null;   // goBilda RGB LED
@@ -329,6 +422,12 @@ public class HardwareSwyftBot
         Green
     }
 
+    public enum PresenceType   // ball presence sensor technology
+    {
+        DIGITAL,   // LeftPresence/RightPresence digital sensors
+        LASER      // goBILDA laser distance sensors (analog mode)
+    }
+
     // The position the spindexer is currently at. Init sets it to left.
     // -1 = Right
     //  0 = Centered
@@ -337,30 +436,37 @@ public class HardwareSwyftBot
     public final static int SPINDEXER_CENTER = 0;
     public final static int SPINDEXER_LEFT   = 1;
     protected int spindex = 1;
-    public int spindexerRight  = 1;
-    public int spindexerCenter = 2;
-    public int spindexerLeft   = 0;
-    // Index 0 = Right  - Rotate -1 to fire
-    // Index 1 = Center - No rotation to fire
-    // Index 2 = Left   - Rotate +1 to fire
     public double ballHueDetected = 0.0;
-    public List<Ball> spinventory = new ArrayList<>(Arrays.asList(Ball.None, Ball.None, Ball.None));
+    // Ball in each spindexer slot (and which slot is at the right/center/left position)
+    public Spinventory spinventory = new Spinventory();
     protected DigitalChannel        leftBallPresenceSensor;
     protected NormalizedColorSensor leftBallColorSensor;
-    public boolean leftBallWasPresent     = false;
     public boolean leftBallIsPresent      = false;
     public boolean leftBallDetectingColor = false;
     public double  leftBallHueDetected     = 0.0;
 
     private DigitalChannel          rightBallPresenceSensor;
     protected NormalizedColorSensor rightBallColorSensor;
-    public boolean rightBallWasPresent     = false;
     public boolean rightBallIsPresent      = false;
     public boolean rightBallDetectingColor = false;
     public double  rightBallHueDetected     = 0.0;
 
-    public int ballColorDetectingReads = 0;
-    public static int MAX_BALL_COLOR_READS = 10;
+    // Color sensor classifiers (calibrated per sensor); keep sampling a new ball until the
+    // vote over its seated samples is decisive
+    public BallColorClassifier leftBallClassifier  = new BallColorClassifier("Left");
+    public BallColorClassifier rightBallClassifier = new BallColorClassifier("Right");
+    // Each color sensor is read on its own background thread (see ColorSensorWorker)
+    public ColorSensorWorker leftColorWorker  = null;
+    public ColorSensorWorker rightColorWorker = null;
+    // Presence sensors are sampled/debounced in the background; arrive/leave events are
+    // drained each loop by processColorDetection() (see BallPresenceMonitor)
+    public BallPresenceMonitor ballPresence = null;
+    public LaserPresenceSource laserPresence = null;   // only if PRESENCE_TYPE is LASER
+    public final static PresenceType PRESENCE_TYPE = PresenceType.DIGITAL;   // (robot 2 only)
+    public long leftBallArriveNanos  = 0;   // System.nanoTime() of the presence edge
+    public long rightBallArriveNanos = 0;
+    public double ballColorLatencyMsec = 0.0;   // presence edge to confirmed color (most recent)
+    public double ballColorLatencyMax  = 0.0;   // (worst this OpMode)
 
     /* local OpMode members. */
     protected HardwareMap hwMap = null;
@@ -368,6 +474,8 @@ public class HardwareSwyftBot
 
     /* Constructor */
     public HardwareSwyftBot(){
+        buildTripleShotStateMachine();
+        buildInjectionStateMachine();
     }
 
     /* Initialize standard Hardware interfaces */
@@ -403,6 +511,8 @@ public class HardwareSwyftBot
         LIFT_SERVO_RESET      = (isRobot1)? LIFT_SERVO_RESET_R1 : LIFT_SERVO_RESET_R2;
         LIFT_SERVO_INJECT     = (isRobot1)? LIFT_SERVO_INJECT_R1 : LIFT_SERVO_INJECT_R2;
         LIFT_SERVO_RESET_ANG  = (isRobot1)? LIFT_SERVO_RESET_ANG_R1 : LIFT_SERVO_RESET_ANG_R2;
+        LIFT_SERVO_CLEAR_ANG  = LIFT_SERVO_RESET_ANG + ((isRobot1)? LIFT_SERVO_CLEAR_MARGIN_R1 : LIFT_SERVO_CLEAR_MARGIN_R2);
+        liftStroke.loadFromFile( (isRobot1)? "R1" : "R2" );
         LIFT_SERVO_INJECT_ANG = (isRobot1)? LIFT_SERVO_INJECT_ANG_R1 : LIFT_SERVO_INJECT_ANG_R2;
 
         //--------------------------------------------------------------------------------------------
@@ -497,6 +607,13 @@ public class HardwareSwyftBot
         turretServo     = hwMap.servo.get("turretServo");            // servo port 2 (Control Hub)
         turretServoPos1 = hwMap.tryGet(AnalogInput.class, "turretServoPos1");
         turretServoPos2 = hwMap.tryGet(AnalogInput.class, "turretServoPos2");
+        // Seed the turret position model with wherever the turret is sitting right now
+        turretServoPos  = (getTurretPosition(true) + getTurretPosition(false))/2.0;
+        turretTracker.reset( turretServoPos );
+        // Apply any calibrated aim-point overrides from the settings file
+        aimTargets.loadFromFile();
+        // Restore the shooter power corrections learned in earlier matches
+        shooterLearner.loadFromFile();
 
         //--------------------------------------------------------------------------------------------
         // Initialize the servo on the spindexer
@@ -531,12 +648,39 @@ public class HardwareSwyftBot
                 ((SwitchableLight) rightBallColorSensor).enableLight(true);
             }
             rightBallColorSensor.setGain(10.0F);
+            leftBallClassifier.loadFromFile();
+            rightBallClassifier.loadFromFile();
+            leftColorWorker  = new ColorSensorWorker( "Left",  leftBallColorSensor );
+            rightColorWorker = new ColorSensorWorker( "Right", rightBallColorSensor );
+            leftColorWorker.setBus( i2cBus );
+            rightColorWorker.setBus( i2cBus );
+
+            if( PRESENCE_TYPE == PresenceType.LASER ) {
+                AnalogInput leftLaser  = hwMap.get(AnalogInput.class, "LeftPresence");   // analog 2 (2-3)
+                AnalogInput rightLaser = hwMap.get(AnalogInput.class, "RightPresence");  // analog 2 (2-3)
+                laserPresence = new LaserPresenceSource( leftLaser, rightLaser );
+                laserPresence.loadFromFile();
+                ballPresence = new BallPresenceMonitor( laserPresence );
+            } else {
+                leftBallPresenceSensor  = hwMap.get(DigitalChannel.class, "LeftPresence");  // digital 0 (0-1)
+                rightBallPresenceSensor = hwMap.get(DigitalChannel.class, "RightPresence"); // digital 0 (0-1)
 
-            leftBallPresenceSensor  = hwMap.get(DigitalChannel.class, "LeftPresence");  // digital 0 (0-1)
-            rightBallPresenceSensor = hwMap.get(DigitalChannel.class, "RightPresence"); // digital 0 (0-1)
+                leftBallPresenceSensor.setMode(DigitalChannel.Mode.INPUT);
+                rightBallPresenceSensor.setMode(DigitalChannel.Mode.INPUT);
+                ballPresence = new BallPresenceMonitor( new DigitalPresenceSource(
+                        leftBallPresenceSensor, rightBallPresenceSensor ) );
+            }
+            ballPresence.setBus( i2cBus );
+        }
 
-            leftBallPresenceSensor.setMode(DigitalChannel.Mode.INPUT);
-            rightBallPresenceSensor.setMode(DigitalChannel.Mode.INPUT);
+        //--------------------------------------------------------------------------------------------
+        // I2C devices read by the control loop (see readI2cDevices); the color sensor workers
+        // registered themselves above as background devices
+        i2cBus.setBudgetMsec( I2C_BUDGET_MSEC );
+        i2cBus.addDevice( "pinpoint", I2cBusScheduler.CRITICAL, 0.0, this::updatePinpointFieldPosition );
+        // (the IMU heading watchdog only matters for driver-centric driving)
+        if( !isAutonomous ) {
+            i2cBus.addDevice( "imu", I2cBusScheduler.NORMAL, HeadingProvider.WATCHDOG_HZ, heading::watchdog );
         }
 
         // Ensure all servos are in the initialize position (YES for auto; NO for teleop)
@@ -554,6 +698,7 @@ public class HardwareSwyftBot
 //      robot.odom.resetPosAndIMU();   // don't need full recalibration; just reset our position in case of any movement
         setPinpointFieldPosition( posX, posY); // in case we don't run autonomous first!
         odom.setHeading(posAngleDegree, AngleUnit.DEGREES);
+        heading.realign();
         robotGlobalXCoordinatePosition = posX;  // This will get overwritten the first time
         robotGlobalYCoordinatePosition = posY;  // we call robot.odom.update()!
         robotOrientationDegrees        = posAngleDegree;
@@ -569,6 +714,7 @@ public class HardwareSwyftBot
         // Also initialize/calibrate the pinpoint odometry computer
         odom.resetPosAndIMU();
         imu.resetYaw();
+        heading.realign();
     } // resetEncoders
 
     /*--------------------------------------------------------------------------------------------*/
@@ -623,6 +769,7 @@ public class HardwareSwyftBot
     public void readBulkData() {
         // For MANUAL mode, we must clear the BulkCache once per control cycle
         expansionHub.clearBulkCache();
+        heading.newLoop();
         controlHub.clearBulkCache();
         // Get a fresh set of values for this cycle
         //   getCurrentPosition() / getTargetPosition() / getTargetPositionTolerance()
@@ -641,25 +788,34 @@ public class HardwareSwyftBot
 
         // Where has the turret been commanded to?
         turretServoGet   = turretServo.getPosition();
-        // Where is the turret currently located?  (average the two feedback values)
-        turretServoPos   = (getTurretPosition(true) + getTurretPosition(false))/2.0;
-        boolean turretInPos = (Math.abs(turretServoPos - turretServoSet) < 0.009)? true:false;
-        if(turretServoIsBusy && turretInPos ) {
-            turretServoIsBusy = false;
+        // Where is the turret currently located?  We predict it from the modeled slew rate and
+        // only average the two analog feedback values when the prediction needs confirming.
+        turretTracker.update();
+        if( turretTracker.needsFeedback() ) {
+            turretServoPos = (getTurretPosition(true) + getTurretPosition(false))/2.0;
+            turretTracker.feedback( turretServoPos );
         }
+        turretServoReady  = turretTracker.predictedInPos;
+        turretServoIsBusy = !turretTracker.confirmedInPos;
 
         // Update spindexer current position using spinServoPos analog feedback
         spinServoGetPos = getSpindexerPos();
 
-        // Read presence sensors
+        // Presence sensors (debounced state; the edges are handled in processColorDetection)
         if(isRobot2) {
-            leftBallWasPresent  = leftBallIsPresent;
-            leftBallIsPresent   = leftBallPresenceSensor.getState();
-            rightBallWasPresent = rightBallIsPresent;
-            rightBallIsPresent  = rightBallPresenceSensor.getState();
+            ballPresence.request();
+            leftBallIsPresent   = ballPresence.isPresent( BallPresenceSource.LEFT );
+            rightBallIsPresent  = ballPresence.isPresent( BallPresenceSource.RIGHT );
         }
     } // readBulkData
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Write out the models that learn during a match (call once, when the OpMode stops)
+    public void saveLearnedData() {
+        shooterLearner.saveIfChanged();
+        liftStroke.saveIfChanged();
+    } // saveLearnedData
+
     /*--------------------------------------------------------------------------------------------*/
     public void shooterMotorsSetPower( double shooterPower )
     {
@@ -803,10 +959,16 @@ public class HardwareSwyftBot
         if( isRobot2 ) {
             targetPosition += TURRET_R2_OFFSET;
         }
+        // Auto-aim re-issues the setpoint every loop; skip changes too small to matter
+        if( !turretTracker.isNewSetpoint(targetPosition) ) {
+            return;
+        }
         turretServo.setPosition(targetPosition);
-        
+
         // Store this setting so we can track progress of the turret motion
         turretServoSet    = targetPosition;
+        turretTracker.command( targetPosition );
+        turretServoReady  = turretTracker.predictedInPos;
         turretServoIsBusy = true;
     } // turretServoSetPosition
 
@@ -831,6 +993,55 @@ public class HardwareSwyftBot
         return Math.abs(targetAngleCounts - setAngleCounts) < epsilon;
     } // setTurretAngle
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Same as setTurretAngle(), but leads the target by the chassis rotation rate so the turret
+    // doesn't lag behind while the robot is turning.  The target angle is relative to the robot,
+    // so rotating CCW (+robotAngleVelocity) makes the required turret angle decrease.
+    public boolean setTurretAngleTracking( double targetAngleDegrees )
+    {
+        double leadSeconds = turretTracker.feedForwardLead();
+        return setTurretAngle( targetAngleDegrees - (robotAngleVelocity * leadSeconds) );
+    } // setTurretAngleTracking
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Split the yaw needed to face the target between the turret and the drivetrain.  The turret
+    // is much faster than rotating the chassis, so the minimum-time split is to let the turret
+    // cover everything it can (up to the edge of its fast zone) and have the chassis rotate only
+    // the remainder, both moving at the same time.  Assist engages once the target leaves the
+    // turret range, and releases once the target is back inside the fast zone (hysteresis).
+    // RETURNS: degrees the chassis must still rotate (CCW positive), 0.0 when turret-only aiming
+    public double computeChassisAssistYaw( double targetAngleDegrees )
+    {
+        double fastMin = TURRET_ANGLE_MIN + TURRET_FAST_ZONE_DEG;
+        double fastMax = TURRET_ANGLE_MAX - TURRET_FAST_ZONE_DEG;
+        boolean outOfRange = (targetAngleDegrees < TURRET_ANGLE_MIN) || (targetAngleDegrees > TURRET_ANGLE_MAX);
+        boolean inFastZone = (targetAngleDegrees >= fastMin) && (targetAngleDegrees <= fastMax);
+        if( outOfRange ) {
+            chassisAssistActive = true;
+        } else if( inFastZone ) {
+            chassisAssistActive = false;
+        }
+        if( chassisAssistActive ) {
+            chassisAssistYawDeg = targetAngleDegrees - Range.clip( targetAngleDegrees, fastMin, fastMax );
+        } else {
+            chassisAssistYawDeg = 0.0;
+        }
+        return chassisAssistYawDeg;
+    } // computeChassisAssistYaw
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Convert the chassis share of the aiming yaw into a rotation power (CCW positive)
+    public double computeChassisAssistPower( double assistYawDegrees )
+    {
+        if( assistYawDegrees == 0.0 ) return 0.0;
+        double turnPower = assistYawDegrees * CHASSIS_ASSIST_KP;
+        // Ensure minimum power to actually rotate the robot
+        if( Math.abs(turnPower) < MIN_TURN_POW ) {
+            turnPower = Math.signum(turnPower) * MIN_TURN_POW;
+        }
+        return Range.clip( turnPower, -CHASSIS_ASSIST_MAXPOW, CHASSIS_ASSIST_MAXPOW );
+    } // computeChassisAssistPower
+
     /*--------------------------------------------------------------------------------------------*/
     // Due to the complexity of 5-turn servos and two robots (4 total position sensors) we don't  
     // attempt to convert the servo position from a 0..1 value to an actual 0..360deg value.  All
@@ -857,6 +1068,13 @@ public class HardwareSwyftBot
         return positionFeedback;
     } // getTurretPosition
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Poll the I2C devices that are due this loop (Pinpoint every loop, IMU heading watchdog at a
+    // low rate in teleop), within the per-loop I2C budget
+    public void readI2cDevices() {
+        i2cBus.runLoop();
+    } // readI2cDevices
+
     /*--------------------------------------------------------------------------------------------*/
     public void updatePinpointFieldPosition() {
         // Request an update from the Pinpoint odometry computer (single I2C read)
@@ -866,6 +1084,7 @@ public class HardwareSwyftBot
         robotGlobalXCoordinatePosition = pos.getX(DistanceUnit.INCH);
         robotGlobalYCoordinatePosition = pos.getY(DistanceUnit.INCH);
         robotOrientationDegrees        = pos.getHeading(AngleUnit.DEGREES);
+        heading.pinpointUpdated( robotOrientationDegrees );
         // Parse for velocities (inches/sec, degrees/sec)
         robotGlobalXvelocity = odom.getVelX(DistanceUnit.INCH);
         robotGlobalYvelocity = odom.getVelY(DistanceUnit.INCH);
@@ -957,9 +1176,9 @@ public class HardwareSwyftBot
     public double getShootDistance(Alliance alliance) {
         double currentX = robotGlobalXCoordinatePosition;
         double currentY = robotGlobalYCoordinatePosition;
-        // Positions for targets based on values from ftc2025DECODE.fmap
-        double targetX = (alliance == Alliance.BLUE)? +60.0 : +60.0;  // 6ft = 72"
-        double targetY = (alliance == Alliance.BLUE)? +60.0 : -60.0;  // 6ft = 72"
+        // Range point inside the goal for the zone we're shooting from
+        double targetX = aimTargets.getRangeX( alliance, currentX, currentY );
+        double targetY = aimTargets.getRangeY( alliance, currentX, currentY );
         // Compute distance to target point inside the goal
         double deltaX = targetX - currentX;
         double deltaY = targetY - currentY;
@@ -973,8 +1192,12 @@ public class HardwareSwyftBot
     public double computeShooterPower(double x) {
         // power = 0.051 + (-2.53E-03)x + 3.9E-05x^2 + -1.21E-07x^3
         double shooterPower = 0.51 + -2.53E-3 * x + 3.9E-5 * Math.pow(x,2) + -1.21E-7 * Math.pow(x,3);
+        // Apply the correction learned from recent shot outcomes at this distance
+        shooterPower += shooterLearner.getCorrection(x);
         shooterPower = Math.max(shooterPower, 0.45); // We should never be below 0.45
         shooterPower = Math.min(shooterPower, 0.60); // We should never exceed 0.60
+        shooterPowerDistance = x;
+        shooterPowerComputed = shooterPower;
         return shooterPower;
     } // computeShooterPower
 
@@ -990,8 +1213,9 @@ public class HardwareSwyftBot
 
     /*--------------------------------------------------------------------------------------------*/
     public double getShootAngleDeg(Alliance alliance) {
-        double targetX = calculateShootTargetX(alliance);
-        double targetY = calculateShootTargetY(alliance);
+        // Aim point inside the goal for the zone we're shooting from
+        double targetX = aimTargets.getAimX( alliance, robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
+        double targetY = aimTargets.getAimY( alliance, robotGlobalXCoordinatePosition, robotGlobalYCoordinatePosition );
         // Compute distance to target point inside the goal
         double deltaX = targetX - robotGlobalXCoordinatePosition;
         double deltaY = targetY - robotGlobalYCoordinatePosition;
@@ -1002,62 +1226,6 @@ public class HardwareSwyftBot
         return shootAngle;
     } // getShootAngleDeg
 
-    private double calculateShootTargetX(Alliance alliance) {
-        boolean nearSide = (alliance == Alliance.BLUE) ?
-                robotGlobalYCoordinatePosition >= 0 : robotGlobalYCoordinatePosition <= 0;
-
-        // Near Shooting Zone
-        if(robotGlobalXCoordinatePosition > 42) {
-            if(nearSide) {
-                return (alliance == Alliance.BLUE)? +60.0 : +60.0;
-            } else {
-                return (alliance == Alliance.BLUE) ? +60.0 : +60.0;
-            }
-        }
-        // Mid Shooting Zone
-        if(robotGlobalXCoordinatePosition > -10) {
-            if(nearSide) {
-                return (alliance == Alliance.BLUE)? +60.0 : +60.0;
-            } else {
-                return (alliance == Alliance.BLUE) ? +60.0 : +60.0;
-            }
-        }
-        // Far Shooting Zone
-        if(nearSide) {
-            return (alliance == Alliance.BLUE)? +60.0 : +60.0;
-        } else {
-            return (alliance == Alliance.BLUE) ? +60.0 : +60.0;
-        }
-    }// calculateShootTargetX
-
-    private double calculateShootTargetY(Alliance alliance) {
-        boolean nearSide = (alliance == Alliance.BLUE) ?
-                robotGlobalYCoordinatePosition >= 0 : robotGlobalYCoordinatePosition <= 0;
-
-        // Near Shooting Zone
-        if(robotGlobalXCoordinatePosition > 42) {
-            if(nearSide) {
-                return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-            } else {
-                return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-            }
-        }
-        // Mid Shooting Zone
-        if(robotGlobalXCoordinatePosition > -10) {
-            if(nearSide) {
-                return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-            } else {
-                return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-            }
-        }
-        // Far Shooting Zone
-        if(nearSide) {
-            return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-        } else {
-            return (alliance == Alliance.BLUE)? +60.0 : -58.0;
-        }
-    } // calculateShootTargetY
-
     /*--------------------------------------------------------------------------------------------*/
     public double computeAxonPos( double measuredVoltage )
     {
@@ -1236,6 +1404,8 @@ public class HardwareSwyftBot
     /*--------------------------------------------------------------------------------------------*/
     public void initSpindexerMovement( double servoTargetValue, SpindexerState spindexerTargetState )
     {
+        // Where are we moving from? (only meaningful if the last move completed)
+        spinServoFromPos = spinServoCurPos;
         // Store the target position (enumerated state); only valid once InPos is achieved!
         spinServoCurPos = spindexerTargetState;
 
@@ -1243,46 +1413,96 @@ public class HardwareSwyftBot
         // NOTE: we can monitor for this value with our analog position feedback
         spinServoSetPos  = servoTargetValue;
 
-        // Establish timeout based on a 1-pos (0.380) or 2-pos (0.750) movement
+        // A new move cancels any jam recovery still underway from the previous one
+        if( spinJamRecovering ) {
+            intakeMotor.setPower( spinJamIntakePower );
+            spinJamRecovering = false;
+        }
+        spinJamAttempts    = 0;
+        spinServoJamFailed = false;
+        startSpindexerProfile();
+    } // initSpindexerMovement
+
+    /*--------------------------------------------------------------------------------------------*/
+    // (Re)start the profiled move toward spinServoSetPos from the current analog position
+    private void startSpindexerProfile()
+    {
+        // Plan a jerk-limited move from where the spindexer actually is right now, and
+        // establish a timeout based on how long that profile should take
         spinServoDelta   = Math.abs( spinServoSetPos - spinServoGetPos );
-        spinServoTimeout = (spinServoDelta < 0.500)? 300:700; // msec
-        
-        // Initiate servo movement toward that target setting
-        spinServo.setPosition( spinServoSetPos );
+        spinProfileStart = spinServoGetPos;
+        spinServoTimeout = 1000.0*spinProfile.compute( spinServoSetPos - spinProfileStart ) + SPIN_TIMEOUT_MARGIN;
+        spinProfileActive = true;
+
+        // Initiate servo movement along the profile (first setpoint is the start position)
+        spinProfileCmd = spinProfileStart;
+        spinServo.setPosition( spinProfileCmd );
 
         // Start a timer and reset our status flags
         spinServoTimer.reset();
+        spinStallTimer.reset();
+        spinVelTimer.reset();
+        spinServoPrevPos = spinServoGetPos;
+        spinServoVel   = 0.0;
         spinServoInPos = false;
         spinServoAbort = false;
         
-    } // initSpindexerMovement
-
-    /*--------------------------------------------------------------------------------------------*/
-    // NOTE: Measured timing data for spindexer movements using AxonMax+ MK2 servo
-    //                     +-------+-------+-------+-------+-------+-------+
-    //   [times in msec]   | P1-P2 | P2-P1 | P2-P3 | P3-P2 | P1-P3 | P3-P1 |
-    //                     +-------+-------+-------+-------+-------+-------+
-    //   ROBOT1: (0 balls) |  250  |  264  |  253  |  257  |  000  |  000  |
-    //           (3 balls) |  266  |  265  |  267  |  292  |  000  |  000  |
-    //   ROBOT2: (0 balls) |  000  |  000  |  000  |  000  |  000  |  000  |
-    //           (3 balls) |  000  |  000  |  000  |  000  |  000  |  000  |
-    //                     +-------+-------+-------+-------+-------+-------+
+    } // startSpindexerProfile
 
     /*--------------------------------------------------------------------------------------------*/
     // Must be called from performEveryLoop() in AutonomousBase and performEveryLoopTeleop()
     public void processSpindexerMovement()
     {
-        // Are we already in position?
-        if( spinServoInPos == true ) {
+        // Are we already in position? (or did we give up on a jammed move?)
+        if( spinServoInPos || spinServoJamFailed ) {
            return;
         }
-        
+
+        // Track how fast the spindexer is actually moving (lightly filtered analog feedback)
+        double dt = spinVelTimer.seconds();
+        spinVelTimer.reset();
+        if( dt > 0.0 ) {
+            double vel = (spinServoGetPos - spinServoPrevPos) / dt;
+            spinServoVel += 0.3 * (vel - spinServoVel);
+        }
+        spinServoPrevPos = spinServoGetPos;
+        if( Math.abs(spinServoVel) >= SPIN_JAM_STALL_VEL ) {
+            spinStallTimer.reset();
+        }
+
+        // Are we backing off from a jam?
+        if( spinJamRecovering ) {
+            processSpindexerJamRecovery();
+            return;
+        }
+
+        // Stream the next setpoint along the S-curve.  The servo lags the profile under load,
+        // so lead the setpoint by part of the measured lag (analog feedback), but never past
+        // the final target.
+        if( spinProfileActive ) {
+            double t = spinServoTimer.seconds();
+            if( spinProfile.isComplete(t) ) {
+                spinProfileCmd = spinServoSetPos;
+                spinProfileActive = false;
+            } else {
+                spinProfile.sample( t );
+                double profilePos = spinProfileStart + spinProfile.position;
+                double lag = Range.clip( SPIN_PROFILE_KP*(profilePos - spinServoGetPos),
+                                         -SPIN_PROFILE_MAX_CORR, SPIN_PROFILE_MAX_CORR );
+                spinProfileCmd = Range.clip( profilePos + lag,
+                                             Math.min(spinProfileStart, spinServoSetPos),
+                                             Math.max(spinProfileStart, spinServoSetPos) );
+            }
+            spinServo.setPosition( spinProfileCmd );
+        }
+
         // Has the spindexer moved within tolerance of the commanded position?
         // (spinServoGetPos is updated during every bulk read)
         double spindexerError = Math.abs( spinServoSetPos - spinServoGetPos );
         if( spindexerError < 0.02 ) {
             spinServoTime = spinServoTimer.milliseconds();
             spinServoInPos = true;
+            recordSpindexerMoveTime();
         }
 
         // Have we timed-out for this movement?
@@ -1292,13 +1512,118 @@ public class HardwareSwyftBot
            if( spindexerError < 0.04 ) {
               spinServoTime = spinServoTimer.milliseconds();
               spinServoInPos = true;
+              recordSpindexerMoveTime();
            } else {
-               // TODO: handle cases where spindexer is pinned/jammed on ball
+              // pinned/jammed on a ball
+              startSpindexerJamRecovery();
            }
         } // timeout
-        
+
+        // Has the spindexer stopped moving well short of the target? (pinned/jammed on a ball)
+        else if( (spindexerError >= 0.04) &&
+                 (spinServoTimer.milliseconds() > SPIN_JAM_MIN_MSEC) &&
+                 (spinStallTimer.milliseconds() > SPIN_JAM_STALL_MSEC) ) {
+            startSpindexerJamRecovery();
+        }
+
     } // processSpindexerMovement
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Jam recovery: back the spindexer away from the jam while briefly reversing the intake to
+    // free the ball, then retry the move.  After SPIN_JAM_MAX_RETRIES we give up on this move
+    // (spinServoJamFailed) so the triple-shot and autonomous can skip it rather than hang.
+    private void startSpindexerJamRecovery()
+    {
+        if( spinJamAttempts == 0 ) {
+            spinJamCount++;
+            spinJamTimer.reset();
+        }
+        spinProfileActive = false;
+        if( spinJamAttempts >= SPIN_JAM_MAX_RETRIES ) {
+            // Out of retries; hold where we are and report the failure
+            spinServo.setPosition( spinServoGetPos );
+            resyncSpindexerState();
+            spinServoJamFailed = true;
+            endSpindexerJam();
+            return;
+        }
+        spinJamAttempts++;
+        // Back away from the jam (opposite the direction we were trying to move)
+        double direction = Math.signum( spinServoSetPos - spinServoGetPos );
+        spinServo.setPosition( Range.clip( spinServoGetPos - direction*SPIN_JAM_BACKOFF, 0.0, 1.0 ) );
+        // Reverse the intake to push the pinned ball back out
+        spinJamIntakePower = intakeMotor.getPower();
+        intakeMotor.setPower( INTAKE_REV_REJECT );
+        spinJamRecovering = true;
+        spinServoTimer.reset();
+    } // startSpindexerJamRecovery
+
+    private void processSpindexerJamRecovery()
+    {
+        if( spinServoTimer.milliseconds() < SPIN_JAM_BACKOFF_MSEC ) return;
+        // Restore the intake and try the move again
+        intakeMotor.setPower( spinJamIntakePower );
+        spinJamRecovering = false;
+        startSpindexerProfile();
+    } // processSpindexerJamRecovery
+
+    // We never reached the target, so the commanded state is wrong: take the state (and the
+    // spinventory rotation) closest to where the analog feedback says we actually are
+    private void resyncSpindexerState()
+    {
+        SpindexerState[] states = { SpindexerState.SPIN_H1, SpindexerState.SPIN_P1, SpindexerState.SPIN_H2,
+                SpindexerState.SPIN_P2, SpindexerState.SPIN_H3, SpindexerState.SPIN_P3, SpindexerState.SPIN_H4 };
+        double[] positions = { SPIN_SERVO_H1, SPIN_SERVO_P1, SPIN_SERVO_H2, SPIN_SERVO_P2,
+                               SPIN_SERVO_H3, SPIN_SERVO_P3, SPIN_SERVO_H4 };
+        int nearest = 0, nearestFull = 1;
+        for( int i=1; i<states.length; i++ ) {
+            double error = Math.abs( positions[i] - spinServoGetPos );
+            if( error < Math.abs( positions[nearest] - spinServoGetPos ) ) nearest = i;
+            if( ((i % 2) == 1) && (error < Math.abs( positions[nearestFull] - spinServoGetPos )) ) nearestFull = i;
+        }
+        spinServoCurPos = states[nearest];
+        spinServoSetPos = spinServoGetPos;
+        switch( states[nearestFull] ) {
+            case SPIN_P1 : setSpindexPosition(SPINDEXER_RIGHT);  break;
+            case SPIN_P2 : setSpindexPosition(SPINDEXER_CENTER); break;
+            default      : setSpindexPosition(SPINDEXER_LEFT);   break;
+        }
+    } // resyncSpindexerState
+
+    private void endSpindexerJam()
+    {
+        spinJamLastMsec = spinJamTimer.milliseconds();
+        spinJamTime    += spinJamLastMsec;
+    } // endSpindexerJam
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Keep a running average of how long each spindexer move actually takes (these replace the
+    // hand-measured timing table, and let us tune the profile limits from real data)
+    private void recordSpindexerMoveTime()
+    {
+        // We may arrive within tolerance just before the profile ends; finish on the target
+        if( spinProfileActive ) {
+            spinProfileActive = false;
+            spinServo.setPosition( spinServoSetPos );
+        }
+        // Recovered from a jam? Account for the lost time, but don't pollute the move timing
+        if( spinJamAttempts > 0 ) {
+            endSpindexerJam();
+            return;
+        }
+        int from = spinServoFromPos.ordinal();
+        int to   = spinServoCurPos.ordinal();
+        if( (from >= 7) || (to >= 7) || (from == to) ) return;
+        double prior = spinMoveTimeMsec[from][to];
+        spinMoveTimeMsec[from][to] = (prior == 0.0)? spinServoTime : (0.7*prior + 0.3*spinServoTime);
+        spinMoveTimesChanged = true;
+    } // recordSpindexerMoveTime
+
+    public double getSpindexerMoveTime( SpindexerState from, SpindexerState to )
+    {
+        return spinMoveTimeMsec[from.ordinal()][to.ordinal()];
+    } // getSpindexerMoveTime
+
     /*--------------------------------------------------------------------------------------------*/
     public void abortSpindexerMovement()
     {
@@ -1308,6 +1633,11 @@ public class HardwareSwyftBot
           // servo position to abort any in-process movement by re-commanding
           // to the current position.
           spinServo.setPosition( spinServoGetPos );
+          spinProfileActive = false;
+          if( spinJamRecovering ) {
+              intakeMotor.setPower( spinJamIntakePower );
+              spinJamRecovering = false;
+          }
           spinServoAbort = true;
         }
         
@@ -1318,190 +1648,223 @@ public class HardwareSwyftBot
     /*--------------------------------------------------------------------------------------------*/
     public void startTripleShotStateMachine()
     {
-        // Determine SHOOTING ORDER based on initial spindexer orientation
-        switch( spinServoCurPos ) {
-            case SPIN_P1 : desiredShoot3order = Shoot3order.SHOOT3_123;  break;
-            case SPIN_P2 : desiredShoot3order = Shoot3order.SHOOT3_213;  break;
-            case SPIN_P3 : desiredShoot3order = Shoot3order.SHOOT3_321;  break;
-            default      : desiredShoot3order = Shoot3order.SHOOT3_123;  break; // error case
-        } // switch()
-
-        // Engage state machine by shooting the ball in the current position
-        currentShoot3state = Shoot3state.SHOOT3_INJECT;
-        // NOTE: this initial state will have to change if we shoot in motif color order
-        // (the 1st entry in shoot order will no longer be CURRENT POSITION)
+        // Determine SHOOTING ORDER based on spindexer orientation, ball colors and motif
+        updateShotPlanner();
+        int inventory = spinventory.snapshot();
+        shoot3Plan  = shotPlanner.plan( spinServoCurPos, Spinventory.slot(inventory,0),
+                Spinventory.slot(inventory,1), Spinventory.slot(inventory,2), shootMotif );
+        shoot3Index = 0;
+
+        // Engage state machine (shoot the current position right away if it's first in the plan)
+        tripleShot.resetStats();
+        tripleShot.transitionTo( (shoot3Plan.first() == spinServoCurPos)?
+                Shoot3state.SHOOT3_INJECT : getShoot3SpinState( shoot3Plan.first() ) );
 
         // Keep track of how long it takes to shoot all 3 (compare AxonMax to AxonMini !)
         shoot3Timer.reset();
         shoot3Time = 0.0;
+        shoot3PipelinedRun = shoot3Pipelined && SHOOT3_PIPELINED_OK;
 
     } // startTripleShotStateMachine
 
     /*--------------------------------------------------------------------------------------------*/
-    public void processTripleShotStateMachine()
+    private void buildTripleShotStateMachine()
     {
-       switch( currentShoot3state ) {
-           case SHOOT3_IDLE :
-             // nothing to do, waiting for next sequence to begin
-             break;
-           case SHOOT3_SPIN_P1 :
-             setSpindexPosition(SPINDEXER_RIGHT);
-             initSpindexerMovement( SPIN_SERVO_P1, SpindexerState.SPIN_P1 );
-             currentShoot3state = Shoot3state.SHOOT3_SPIN_WAIT;
-             break;
-           case SHOOT3_SPIN_P2 :
-             setSpindexPosition(SPINDEXER_CENTER);
-             initSpindexerMovement( SPIN_SERVO_P2, SpindexerState.SPIN_P2 );
-             currentShoot3state = Shoot3state.SHOOT3_SPIN_WAIT;
-             break;
-           case SHOOT3_SPIN_P3 :
-             setSpindexPosition(SPINDEXER_LEFT);
-             initSpindexerMovement( SPIN_SERVO_P3, SpindexerState.SPIN_P3 );
-             currentShoot3state = Shoot3state.SHOOT3_SPIN_WAIT;
-             break;
-           case SHOOT3_SPIN_WAIT :
-             // As soon as the spindexer get to the position, transition to shooting
-             if( spinServoInPos ) {
-                 currentShoot3state = Shoot3state.SHOOT3_INJECT;
-             } else {
-                // still waiting...
-             }
-             break;
-           case SHOOT3_INJECT :
-             // We're in position but is shooter up to speed?
-               if( shooterMotorsReady ){
-                   startInjectionStateMachine(); // start the injection cycle
-                   currentShoot3state = Shoot3state.SHOOT3_INJECT_WAIT;
-               }
-             break;
-           case SHOOT3_INJECT_WAIT :
-             if( liftServoBusyU || liftServoBusyD ) {
-                 // still waiting...
-             }
-             else {
-                 // We've finished shooting this spindexer position; where to next?
-                 setNextShoot3state();
-             }
-             break;
-           case SHOOT3_DONE :
+        tripleShot
+           // Rotate the spindexer to the next position in the plan (on the update after we get
+           // to SPIN_Px, not on entry, which is when the old switch code started the move too)
+           .transition( Shoot3state.SHOOT3_SPIN_P1, TimedStateMachine.ALWAYS, Shoot3state.SHOOT3_SPIN_WAIT, () -> {
+               setSpindexPosition(SPINDEXER_RIGHT);
+               initSpindexerMovement( SPIN_SERVO_P1, SpindexerState.SPIN_P1 ); } )
+           .transition( Shoot3state.SHOOT3_SPIN_P2, TimedStateMachine.ALWAYS, Shoot3state.SHOOT3_SPIN_WAIT, () -> {
+               setSpindexPosition(SPINDEXER_CENTER);
+               initSpindexerMovement( SPIN_SERVO_P2, SpindexerState.SPIN_P2 ); } )
+           .transition( Shoot3state.SHOOT3_SPIN_P3, TimedStateMachine.ALWAYS, Shoot3state.SHOOT3_SPIN_WAIT, () -> {
+               setSpindexPosition(SPINDEXER_LEFT);
+               initSpindexerMovement( SPIN_SERVO_P3, SpindexerState.SPIN_P3 ); } )
+           // As soon as the spindexer get to the position, transition to shooting
+           // (if we couldn't clear a jam, skip this ball rather than wait forever)
+           .transition( Shoot3state.SHOOT3_SPIN_WAIT, () -> spinServoInPos, Shoot3state.SHOOT3_INJECT )
+           .transition( Shoot3state.SHOOT3_SPIN_WAIT, () -> spinServoJamFailed, this::getNextShoot3state )
+           // We're in position but is shooter up to speed? (and injector fully reset, since
+           // in pipelined mode we may have started rotating before it got there)
+           .transition( Shoot3state.SHOOT3_INJECT,
+                   () -> shooterMotorsReady && !liftServoBusyU && !liftServoBusyD,
+                   Shoot3state.SHOOT3_INJECT_WAIT, this::startInjectionStateMachine )
+           // We've finished shooting this spindexer position once the injector is out of the way;
+           // where to next?
+           .transition( Shoot3state.SHOOT3_INJECT_WAIT,
+                   () -> !liftServoBusyU && (!liftServoBusyD || (shoot3PipelinedRun && (liftServoAngle <= LIFT_SERVO_CLEAR_ANG))),
+                   this::getNextShoot3state )
+           .transition( Shoot3state.SHOOT3_DONE, TimedStateMachine.ALWAYS, Shoot3state.SHOOT3_IDLE, () -> {
                shoot3Time = shoot3Timer.milliseconds();
-               currentShoot3state = Shoot3state.SHOOT3_IDLE;
-               break;
-           default:
-               currentShoot3state = Shoot3state.SHOOT3_IDLE;
-             break;
-       } // switch
+               if( shoot3PipelinedRun ) shoot3TimePipelined = shoot3Time;
+               else shoot3TimeSequential = shoot3Time; } );
+    } // buildTripleShotStateMachine
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void processTripleShotStateMachine()
+    {
+       tripleShot.update();
     } // processTripleShotStateMachine
 
     /*--------------------------------------------------------------------------------------------*/
-    public void setNextShoot3state()
+    private Shoot3state getNextShoot3state()
+    {
+       // Where we go next is the next entry in the shot plan
+       shoot3Index++;
+       if( (shoot3Plan == null) || (shoot3Index >= shoot3Plan.length()) ) {
+          return Shoot3state.SHOOT3_DONE;
+       }
+       return getShoot3SpinState( shoot3Plan.position(shoot3Index) );
+    } // getNextShoot3state
+
+    private Shoot3state getShoot3SpinState( SpindexerState position )
+    {
+       switch( position ) {
+          case SPIN_P1 : return Shoot3state.SHOOT3_SPIN_P1;
+          case SPIN_P2 : return Shoot3state.SHOOT3_SPIN_P2;
+          case SPIN_P3 : return Shoot3state.SHOOT3_SPIN_P3;
+          default      : return Shoot3state.SHOOT3_IDLE;   // error case
+       }
+    } // getShoot3SpinState
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Rebuild the shot planner if we've measured new spindexer move times since the last build
+    // (unmeasured moves keep their nominal times)
+    public void updateShotPlanner()
     {
-       // Where we go next is a function of the specified shoot-order
-       switch( desiredShoot3order ) {
-           case SHOOT3_123 :
-              // What have we completed so far?
-              switch( spinServoCurPos ) {
-                 case SPIN_P1 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P2;  break;
-                 case SPIN_P2 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P3;  break;
-                 case SPIN_P3 : currentShoot3state = Shoot3state.SHOOT3_DONE;     break;
-                 default      : currentShoot3state = Shoot3state.SHOOT3_IDLE;     break; // error case
-                 } // switch()
-              break;
-           case SHOOT3_213 :
-              // What have we completed so far?
-              switch( spinServoCurPos ) {
-                 case SPIN_P1 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P3;  break;
-                 case SPIN_P2 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P1;  break;
-                 case SPIN_P3 : currentShoot3state = Shoot3state.SHOOT3_DONE;     break;
-                 default      : currentShoot3state = Shoot3state.SHOOT3_IDLE;     break; // error case
-                 } // switch()
-              break;
-           case SHOOT3_321 :
-              // What have we completed so far?
-              switch( spinServoCurPos ) {
-                 case SPIN_P1 : currentShoot3state = Shoot3state.SHOOT3_DONE;     break;
-                 case SPIN_P2 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P1;  break;
-                 case SPIN_P3 : currentShoot3state = Shoot3state.SHOOT3_SPIN_P2;  break;
-                 default      : currentShoot3state = Shoot3state.SHOOT3_IDLE;     break; // error case
-                 } // switch()
-              break;
-           default :
-              currentShoot3state = Shoot3state.SHOOT3_IDLE; // error case
-              break;
+       if( !spinMoveTimesChanged ) return;
+       spinMoveTimesChanged = false;
+       double[][] moveMsec = ShotOrderPlanner.nominalMoveTimes();
+       for( int from=0; from<3; from++ ) {
+          for( int to=0; to<3; to++ ) {
+             double measured = getSpindexerMoveTime( ShotOrderPlanner.POSITIONS[from], ShotOrderPlanner.POSITIONS[to] );
+             if( measured > 0.0 ) moveMsec[from][to] = measured;
+          }
        }
-    } // setNextShoot3state
+       shotPlanner = new ShotOrderPlanner( moveMsec );
+    } // updateShotPlanner
 
     /*--------------------------------------------------------------------------------------------*/
     public void abortTripleShotStateMachine()
     {
         // Abort any current triple-shot movement in effect.
         // Spindexing and Injecting will finish their current movements.
-        currentShoot3state = Shoot3state.SHOOT3_IDLE;
+        tripleShot.transitionTo( Shoot3state.SHOOT3_IDLE );
 
     } // abortTripleShotStateMachine
 
     /*--------------------------------------------------------------------------------------------*/
     public void startInjectionStateMachine()
     {
-        // Command the lift/injection servso to the INJECT position
-        liftServo.setPosition( LIFT_SERVO_INJECT );
-        // Start a timer (in case we need to timeout)
-        liftServoTimer.reset();
-        // Set a flag indicating the liftServo is busy lifting UP
-        liftServoBusyU = true;
-        liftServoBusyD = false; // ensure the reset flag is cleared
+        injector.transitionTo( InjectorState.LIFT_UP );
     } // startInjectionStateMachine
 
+    /*--------------------------------------------------------------------------------------------*/
+    private void buildInjectionStateMachine()
+    {
+        injector
+           // Command the lift/injection servo to the INJECT position (AxonMax+ no-load 60deg = 115 msec)
+           .onEnter( InjectorState.LIFT_UP, () -> {
+               liftServo.setPosition( LIFT_SERVO_INJECT );
+               liftServoVelTimer.reset();
+               liftServoAngle   = getInjectorAngle();
+               liftServoPeakAng = liftServoAngle;
+               liftServoPeakVel = 0.0;
+               liftServoVel     = 0.0;
+               liftServoPeakLoops = 0;
+               injector.setTimeout( InjectorState.LIFT_UP, liftStroke.upTimeoutMsec() );
+               liftServoBusyU = true;
+               liftServoBusyD = false; } )
+           .transition( InjectorState.LIFT_UP, this::injectorPeaked, InjectorState.LIFT_DOWN, () -> {
+               liftStroke.learnUp( injector.timeInState(), liftServoPeakAng );
+               injectorReleasedBall(); } )
+           .timeout( InjectorState.LIFT_UP, InjectorStrokeModel.DEFAULT_UP_TIMEOUT,
+                     InjectorState.LIFT_DOWN, this::injectorReleasedBall )
+           // Begin the DOWN/reset phase
+           .onEnter( InjectorState.LIFT_DOWN, () -> {
+               liftServo.setPosition( LIFT_SERVO_RESET );
+               injector.setTimeout( InjectorState.LIFT_DOWN, liftStroke.downTimeoutMsec() );
+               liftServoBusyU = false;
+               liftServoBusyD = true; } )
+           .transition( InjectorState.LIFT_DOWN, () -> (liftServoAngle <= LIFT_SERVO_RESET_ANG),
+                   InjectorState.LIFT_IDLE, () -> liftStroke.learnDown( injector.timeInState() ) )
+           .timeout( InjectorState.LIFT_DOWN, InjectorStrokeModel.DEFAULT_DOWN_TIMEOUT, InjectorState.LIFT_IDLE )
+           .onEnter( InjectorState.LIFT_IDLE, () -> {
+               liftServoBusyU = false;
+               liftServoBusyD = false; } );
+    } // buildInjectionStateMachine
+
     /*--------------------------------------------------------------------------------------------*/
     public void processInjectionStateMachine()
     {
-        boolean servoFullyInjected, servoFullyReset, servoTimeoutU, servoTimeoutD;
-        // Process the LIFTING case (AxonMax+ no-load 60deg rotation = 115 msec
-        if( liftServoBusyU ) {
-            // Are we "done" because the servo position is now close enough? (Axon position feedback)
-            servoFullyInjected = (getInjectorAngle() >= LIFT_SERVO_INJECT_ANG);
-            servoTimeoutU = (liftServoTimer.milliseconds() > 750);
-            // Has the injector servo reached the desired position? (or timed-out?)
-            if( servoFullyInjected || servoTimeoutU ) {
-                liftServoBusyU = false;  // the UP phase is complete
-                // Begin the DOWN/reset phase
-                liftServo.setPosition( LIFT_SERVO_RESET );
-                liftServoTimer.reset();
-                liftServoBusyD = true;
-                // Empty the spinventory
-                setCenterBall(Ball.None);
+        if( !injector.isIn( InjectorState.LIFT_IDLE ) ) {
+            updateInjectorAngle();
+            if( injector.isIn( InjectorState.LIFT_UP ) ) {
+                liftServoPeakAng = Math.max( liftServoPeakAng, liftServoAngle );
+                liftServoPeakVel = Math.max( liftServoPeakVel, liftServoVel );
+                liftServoPeakLoops = (peakConditionMet())? liftServoPeakLoops+1 : 0;
             }
-        } // UP
-        
-        // Process the RESETTING case (AxonMax+ no-load 60deg rotation = 115 msec
-        if( liftServoBusyD ) {
-            servoFullyReset = (getInjectorAngle() <= LIFT_SERVO_RESET_ANG);
-            servoTimeoutD = (liftServoTimer.milliseconds() > 500);
-            // Has the injector servo reached the desired position? (or timed-out?)
-            if( servoFullyReset || servoTimeoutD ) {
-              liftServoBusyD = false;  // the DOWN phase is complete
-              liftServoBusyU = false;  // ensure the flag is cleared
-              }
-        } // DOWN
-                
+        }
+        injector.update();
     } // processInjectionStateMachine
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Are we "done" because the stroke has peaked? (Axon position feedback stopped rising,
+    // or started falling back, after getting clear of the spindexer, for LIFT_PEAK_LOOPS loops
+    // in a row so one noisy analog sample can't end the stroke early)
+    private boolean injectorPeaked()
+    {
+        return (liftServoPeakLoops >= LIFT_PEAK_LOOPS) || (liftServoAngle >= LIFT_SERVO_INJECT_ANG);
+    } // injectorPeaked
+
+    private boolean peakConditionMet()
+    {
+        boolean reversed = (liftServoPeakAng - liftServoAngle) >= LIFT_PEAK_DROP_DEG;
+        boolean stalled  = (liftServoPeakVel >= LIFT_PEAK_MOVING) && (liftServoVel <= LIFT_PEAK_STALL_VEL);
+        return (liftServoAngle > LIFT_SERVO_CLEAR_ANG) && (reversed || stalled);
+    } // peakConditionMet
+
+    /*--------------------------------------------------------------------------------------------*/
+    private void injectorReleasedBall()
+    {
+        // Empty the spinventory
+        setCenterBall(Ball.None);
+        // Ball has been released; remember the conditions in case we get feedback on
+        // the outcome (only if the shooter power came from the distance model)
+        if( Math.abs(shooterMotorsSet - shooterPowerComputed) < 0.001 ) {
+            double velPerPower = (computeShooterVelocity(shooterMotorsSet + 0.01) -
+                                  computeShooterVelocity(shooterMotorsSet - 0.01)) / 0.02;
+            shooterLearner.recordRelease( shooterPowerDistance,
+                    (shooterMotor1Vel + shooterMotor2Vel)/2.0, shooterTargetVel, velPerPower );
+        }
+    } // injectorReleasedBall
+
+    /*--------------------------------------------------------------------------------------------*/
+    private void updateInjectorAngle()
+    {
+        double lastAngle = liftServoAngle;
+        double dt = liftServoVelTimer.seconds();
+        liftServoVelTimer.reset();
+        liftServoAngle = getInjectorAngle();
+        if( dt > 0.0 ) {
+            liftServoVel += LIFT_VEL_FILTER * ((liftServoAngle - lastAngle) / dt - liftServoVel);
+        }
+    } // updateInjectorAngle
+
     /*--------------------------------------------------------------------------------------------*/
     public void abortInjectionStateMachine()
     {
        // if we don't want to wait for injection
-       liftServo.setPosition( LIFT_SERVO_RESET );
-       liftServoTimer.reset();
-       liftServoBusyD = true;        
+       injector.transitionTo( InjectorState.LIFT_DOWN );
     } // abortInjectionStateMachine
 
     /*--------------------------------------------------------------------------------------------*/
     public void setSpindexPosition(int spindexSetting)
     {
         spindex = spindexSetting;
-        spindexerRight  = Math.floorMod(spindex, 3);
-        spindexerCenter = Math.floorMod(1 + spindex, 3);
-        spindexerLeft   = Math.floorMod(2 + spindex, 3);
+        spinventory.setRotation(spindex);
     }
     public void setStartingSpinventory(Ball left, Ball center, Ball right)
     {
@@ -1511,124 +1874,88 @@ public class HardwareSwyftBot
     }
     public Ball getRightBall()
     {
-        return spinventory.get(spindexerRight);
+        return spinventory.getAt(Spinventory.POS_RIGHT);
     }
     public void setRightBall(Ball rightBall)
     {
-        spinventory.set(spindexerRight, rightBall);
+        spinventory.setAt(Spinventory.POS_RIGHT, rightBall);
     }
     public Ball getCenterBall()
     {
-        return spinventory.get(spindexerCenter);
+        return spinventory.getAt(Spinventory.POS_CENTER);
     }
     public void setCenterBall(Ball centerBall)
     {
-        spinventory.set(spindexerCenter, centerBall);
+        spinventory.setAt(Spinventory.POS_CENTER, centerBall);
     }
     public Ball getLeftBall()
     {
-        return spinventory.get(spindexerLeft);
+        return spinventory.getAt(Spinventory.POS_LEFT);
     }
     public void setLeftBall(Ball leftBall)
     {
-        spinventory.set(spindexerLeft, leftBall);
-    }
-    public Ball getBallColor(NormalizedColorSensor colorSensor)
-    {
-        Ball detectedBall = Ball.None;
-        NormalizedRGBA ballColors;
-        final float[] hsvValues = new float[3];
-        ballColors = colorSensor.getNormalizedColors();
-        Color.colorToHSV(ballColors.toColor(), hsvValues);
-        ballHueDetected = hsvValues[0];
-        if(hsvValues[0] > 180.0)
-        {
-            detectedBall = Ball.Purple;
-            ballColorDetectingReads = 0;
-        }
-        else if (hsvValues[0] > 110.0)
-        {
-            detectedBall = Ball.Green;
-            ballColorDetectingReads = 0;
-        }
-        else
-        {
-            ballColorDetectingReads++;
-            if(ballColorDetectingReads > MAX_BALL_COLOR_READS)
-            {
-                detectedBall = Ball.Purple;
-                ballColorDetectingReads = 0;
-            }
-        }
-        return detectedBall;
+        spinventory.setAt(Spinventory.POS_LEFT, leftBall);
     }
-
     public void processColorDetection ()
     {
         if(isRobot1) return;
 
-        // First check if there are undetected balls present
-        if((leftBallIsPresent) && (!leftBallWasPresent) && (getLeftBall() == Ball.None))
-        {
-            leftBallDetectingColor = true;
-            ballColorDetectingReads = 0;
-        }
-        if((rightBallIsPresent) && (!rightBallWasPresent) && (getRightBall() == Ball.None))
-        {
-            rightBallDetectingColor = true;
-            ballColorDetectingReads = 0;
-        }
-
-        // If we are checking for a color
-        if((leftBallDetectingColor) || (rightBallDetectingColor))
+        // Handle every arrive/leave since last loop, in order (even ones that came and went)
+        while( ballPresence.poll() )
         {
-            // Left side detection cycle
-            if((ballColorDetectingReads % 2) == 0)
-            {
-                if(leftBallDetectingColor)
-                {
-                    setLeftBall(getBallColor(leftBallColorSensor));
-                    leftBallHueDetected = ballHueDetected;
-                    if(getLeftBall() != Ball.None)
-                    {
-                        leftBallDetectingColor = false;
-                    }
-                }
-                else // it is left's turn, but not in need.  If we're in here
-                {    // then right must have a need.  Use this cycle to scan it.
-                    setRightBall(getBallColor(rightBallColorSensor));
-                    rightBallHueDetected = ballHueDetected;
-                    if(getRightBall() != Ball.None)
-                    {
-                        rightBallDetectingColor = false;
-                    }
-                }
-            }
-            // Right side detection cycle
-            else
+            boolean left = (ballPresence.eventSide == BallPresenceSource.LEFT);
+            if( ballPresence.eventArrived )
             {
-                if(rightBallDetectingColor)
-                {
-                    setRightBall(getBallColor(rightBallColorSensor));
-                    rightBallHueDetected = ballHueDetected;
-                    if(getRightBall() != Ball.None)
-                    {
-                        rightBallDetectingColor = false;
-                    }
+                // A new ball we don't know the color of yet
+                if( left && (getLeftBall() == Ball.None) ) {
+                    leftBallDetectingColor = true;
+                    leftBallClassifier.resetVotes();
+                    leftBallArriveNanos = ballPresence.eventNanos;
                 }
-                else // it is rights's turn, but not in need.  If we're in here
-                {    // then left must have a need.  Use this cycle to scan it.
-                    setLeftBall(getBallColor(leftBallColorSensor));
-                    leftBallHueDetected = ballHueDetected;
-                    if(getLeftBall() != Ball.None)
-                    {
-                        leftBallDetectingColor = false;
-                    }
+                else if( !left && (getRightBall() == Ball.None) ) {
+                    rightBallDetectingColor = true;
+                    rightBallClassifier.resetVotes();
+                    rightBallArriveNanos = ballPresence.eventNanos;
                 }
             }
+            // A ball that's gone (spindexer rotated) before we were sure stays unknown; we don't guess
+            else if( left ) leftBallDetectingColor  = false;
+            else            rightBallDetectingColor = false;
+        }
+
+        // Both sides are sampled in the background at full sensor rate; classify whatever's new
+        if(leftBallDetectingColor)
+        {
+            leftBallDetectingColor = !detectBallColor( leftBallClassifier, leftColorWorker,
+                                                       leftBallArriveNanos, Spinventory.POS_LEFT );
+            leftBallHueDetected = leftBallClassifier.hue;
+        }
+        if(rightBallDetectingColor)
+        {
+            rightBallDetectingColor = !detectBallColor( rightBallClassifier, rightColorWorker,
+                                                        rightBallArriveNanos, Spinventory.POS_RIGHT );
+            rightBallHueDetected = rightBallClassifier.hue;
         }
     } // processColorDetection
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Vote with the newest sample for a ball whose color we're still deciding (only samples
+    // taken after the ball arrived, with it seated, count); true once it's decided
+    private boolean detectBallColor( BallColorClassifier classifier, ColorSensorWorker worker,
+                                     long arriveNanos, int position )
+    {
+        worker.request();
+        if( !worker.fetch( arriveNanos ) ) return false;
+        if( !classifier.addSample( worker.red, worker.green, worker.blue, worker.distanceMm ) ) return false;
+        ballHueDetected = classifier.hue;
+        Ball ball = classifier.decide();
+        if( ball == Ball.None ) return false;
+        spinventory.setAt( position, ball );
+        ballColorLatencyMsec = (System.nanoTime() - arriveNanos) / 1.0e6;
+        ballColorLatencyMax  = Math.max( ballColorLatencyMax, ballColorLatencyMsec );
+        return true;
+    } // detectBallColor
+
     /*--------------------------------------------------------------------------------------------*/
 
     /***
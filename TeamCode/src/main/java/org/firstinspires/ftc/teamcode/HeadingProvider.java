@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Robot heading for driver-centric driving, from a selectable source, cached once per loop.
+ *
+ * Heading is reported in the headingIMU() convention (degrees, +90 is CW) and in the hub IMU's
+ * frame, so it's a drop-in replacement for headingIMU().  The sources:
+ *   IMU      - read the hub IMU (an I2C read) once per loop, like headingIMU() every loop did
+ *   PINPOINT - reuse the heading updatePinpointFieldPosition() already read from the Pinpoint
+ *              this loop (no extra I2C), plus the offset between the two frames (autonomous and
+ *              the touchpad reset set the Pinpoint heading, the IMU keeps its own zero)
+ *   FUSED    - PINPOINT, with each watchdog IMU read also slowly trimming that offset
+ * In PINPOINT/FUSED the IMU is still read as a watchdog (watchdog(), run at a low rate by the
+ * I2C bus scheduler): if the Pinpoint disagrees by more than WATCHDOG_TOL_DEG on
+ * WATCHDOG_STRIKES checks in a row, or hasn't been updated this loop, we fall back to the IMU
+ * (so there's never more than one heading read per loop either way).  realign() restarts the
+ * offset after the Pinpoint heading is reset.
+ */
+public class HeadingProvider {
+    public enum Source { IMU, PINPOINT, FUSED }
+
+    public final static double WATCHDOG_HZ      = 4.0;
+    public final static double WATCHDOG_TOL_DEG = 5.0;
+    public final static int    WATCHDOG_STRIKES = 3;
+    public final static double FUSED_GAIN       = 0.05;  // offset correction per watchdog read
+
+    private final HardwareSwyftBot robot;
+    public  Source source = Source.FUSED;
+
+    // Per-loop cache
+    private boolean cached     = false;
+    private double  heading    = 0.0;
+    private boolean pinpointFresh = false;   // updatePinpointFieldPosition() ran this loop
+    private double  pinpointDeg   = 0.0;     // in headingIMU() convention (Pinpoint frame)
+
+    // Pinpoint -> IMU frame
+    private boolean aligned = false;
+    private double  offsetDeg = 0.0;
+
+    // Watchdog
+    private int strikes = 0;
+    public  boolean pinpointFault = false;   // latched until realign()
+    public  double  lastErrorDeg  = 0.0;     // Pinpoint minus IMU at the last watchdog check
+    public  int     imuReads      = 0;       // since the OpMode started
+    public  Source  lastUsed      = Source.IMU;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public HeadingProvider( HardwareSwyftBot robot ) {
+        this.robot = robot;
+    } // HeadingProvider
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Start of a control loop (from readBulkData)
+    public void newLoop() {
+        cached = false;
+        pinpointFresh = false;
+    } // newLoop
+
+    // The Pinpoint was read this loop (from updatePinpointFieldPosition)
+    public void pinpointUpdated( double pinpointHeadingDeg ) {
+        pinpointDeg   = -pinpointHeadingDeg;   // Pinpoint is +CCW
+        pinpointFresh = true;
+    } // pinpointUpdated
+
+    // The Pinpoint (or IMU) heading was reset: measure the offset again
+    public void realign() {
+        aligned = false;
+        pinpointFault = false;
+        strikes = 0;
+    } // realign
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Heading this loop [deg] (at most one I2C read per loop, and usually none)
+    public double get() {
+        if( cached ) return heading;
+        cached = true;
+        boolean usePinpoint = (source != Source.IMU) && pinpointFresh && !pinpointFault;
+        if( !usePinpoint ) {
+            heading  = readImu();
+            lastUsed = Source.IMU;
+            return heading;
+        }
+        if( !aligned ) {
+            checkWatchdog( readImu() );
+        }
+        heading  = normalize( pinpointDeg + offsetDeg );
+        lastUsed = source;
+        return heading;
+    } // get
+
+    // Most recent heading from get() [deg], for display (never reads the hardware)
+    public double lastHeading() {
+        return heading;
+    } // lastHeading
+
+    // Check the Pinpoint against the IMU (one IMU read; nothing to do when we're using the IMU,
+    // or it was already read this loop)
+    public void watchdog() {
+        if( (source == Source.IMU) || !pinpointFresh || pinpointFault || cached ) return;
+        double imuDeg = readImu();
+        checkWatchdog( imuDeg );
+        if( pinpointFault ) {   // use the reading we just paid for
+            heading  = imuDeg;
+            lastUsed = Source.IMU;
+            cached   = true;
+        }
+    } // watchdog
+
+    private double readImu() {
+        imuReads++;
+        return robot.headingIMU();
+    } // readImu
+
+    private void checkWatchdog( double imuDeg ) {
+        if( !aligned ) {
+            offsetDeg = normalize( imuDeg - pinpointDeg );
+            aligned   = true;
+            strikes   = 0;
+            lastErrorDeg = 0.0;
+            return;
+        }
+        double error = normalize( pinpointDeg + offsetDeg - imuDeg );
+        lastErrorDeg = error;
+        if( Math.abs(error) > WATCHDOG_TOL_DEG ) {
+            if( ++strikes >= WATCHDOG_STRIKES ) pinpointFault = true;
+        } else {
+            strikes = 0;
+            if( source == Source.FUSED ) offsetDeg = normalize( offsetDeg - FUSED_GAIN * error );
+        }
+    } // checkWatchdog
+
+    private static double normalize( double deg ) {
+        while( deg >=  180.0 ) deg -= 360.0;
+        while( deg <  -180.0 ) deg += 360.0;
+        return deg;
+    } // normalize
+
+} // HeadingProvider
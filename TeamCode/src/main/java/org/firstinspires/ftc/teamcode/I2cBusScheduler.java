@@ -0,0 +1,165 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Locale;
+
+/**
+ * Per-loop I2C budget for the devices the control loop polls (Pinpoint, IMU, ...).
+ *
+ * Each device has a priority and a target rate.  runLoop() (once per control loop) runs every
+ * device that's due, most important first, timing each read, and stops starting reads once the
+ * loop's I2C time budget is used up: whatever didn't fit is deferred to the next loop (it's still
+ * due, so it goes first among its priority).  CRITICAL devices always run, and a device deferred
+ * MAX_DEFERRALS loops in a row runs anyway so nothing starves.  The expected duration of a read
+ * is learned, so we don't start a read that would blow the budget.
+ *
+ * Devices read on their own threads (the color sensor workers, the presence monitor) are
+ * registered as background devices: they record() their transactions here, and the bus time they
+ * used since the last runLoop() is charged to that loop's budget before any loop device runs.
+ * They back off while isThrottled() (the last loop's total went over budget).
+ */
+public class I2cBusScheduler {
+    public final static int CRITICAL = 0;   // never skipped (eg odometry)
+    public final static int HIGH     = 1;
+    public final static int NORMAL   = 2;
+    public final static int LOW      = 3;
+
+    public final static int    MAX_DEVICES   = 8;
+    public final static int    MAX_DEFERRALS = 10;
+    public final static double DURATION_GAIN = 0.1;   // learning rate of the expected duration
+
+    private final String[]   names      = new String[MAX_DEVICES];
+    private final int[]      priority   = new int[MAX_DEVICES];
+    private final long[]     periodNanos = new long[MAX_DEVICES];   // 0 = every loop
+    private final Runnable[] reads      = new Runnable[MAX_DEVICES];   // null = background device
+    private final int[]      order      = new int[MAX_DEVICES];   // loop devices by priority
+    private int numDevices = 0;
+    private int numLoopDevices = 0;
+
+    // Scheduling (control loop)
+    private final long[] lastRunNanos = new long[MAX_DEVICES];
+    private final int[]  deferStreak  = new int[MAX_DEVICES];
+    private long budgetNanos = 4000000L;   // 4 msec
+    private volatile boolean throttled = false;
+    private final long[] expectNanos = new long[MAX_DEVICES];   // copy of expectMsec for this loop
+
+    // Statistics (guarded by this)
+    private final int[]    count     = new int[MAX_DEVICES];
+    private final int[]    deferred  = new int[MAX_DEVICES];
+    private final double[] totalMsec = new double[MAX_DEVICES];
+    private final double[] maxMsec   = new double[MAX_DEVICES];
+    private final double[] expectMsec = new double[MAX_DEVICES];
+    private final long[]   firstNanos = new long[MAX_DEVICES];
+    private final long[]   lastNanos  = new long[MAX_DEVICES];
+    private long   backgroundNanos = 0;     // background device time since the last runLoop()
+    public  double lastLoopMsec    = 0.0;   // I2C time spent by runLoop() last loop
+    public  double lastBackgroundMsec = 0.0;   // background device time charged to the last loop
+    public  int    overBudgetLoops = 0;
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Device read from runLoop(); rateHz = 0 means every loop.  Returns its index.
+    public int addDevice( String name, int devicePriority, double rateHz, Runnable read ) {
+        if( numDevices >= MAX_DEVICES ) throw new IllegalStateException( "more than " + MAX_DEVICES + " I2C devices" );
+        int i = numDevices++;
+        names[i]       = name;
+        priority[i]    = devicePriority;
+        periodNanos[i] = (rateHz > 0.0)? (long)(1.0e9 / rateHz) : 0L;
+        reads[i]       = read;
+        // keep the loop devices sorted by priority (stable: ties run in the order added)
+        int k = numLoopDevices++;
+        while( (k > 0) && (priority[order[k-1]] > devicePriority) ) {
+            order[k] = order[k-1];
+            k--;
+        }
+        order[k] = i;
+        return i;
+    } // addDevice
+
+    // Device that does its own reads (on its own thread) and reports them with record()
+    public int addBackgroundDevice( String name ) {
+        if( numDevices >= MAX_DEVICES ) throw new IllegalStateException( "more than " + MAX_DEVICES + " I2C devices" );
+        int i = numDevices++;
+        names[i]    = name;
+        priority[i] = LOW;
+        reads[i]    = null;
+        return i;
+    } // addBackgroundDevice
+
+    public void setBudgetMsec( double msec ) {
+        budgetNanos = (long)(msec * 1.0e6);
+    } // setBudgetMsec
+
+    public boolean isThrottled() {
+        return throttled;
+    } // isThrottled
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Run the devices that are due, within the budget
+    public void runLoop() {
+        long loopStart = System.nanoTime();
+        long spent;
+        synchronized( this ) {
+            spent = backgroundNanos;   // the workers' reads share the bus with ours
+            backgroundNanos = 0;
+            for( int k=0; k<numLoopDevices; k++ ) {
+                expectNanos[order[k]] = (long)(expectMsec[order[k]] * 1.0e6);
+            }
+        }
+        lastBackgroundMsec = spent / 1.0e6;
+        for( int k=0; k<numLoopDevices; k++ ) {
+            int i = order[k];
+            long now = System.nanoTime();
+            if( (lastRunNanos[i] != 0) && (now - lastRunNanos[i] < periodNanos[i]) ) continue;
+            boolean fits = (spent + expectNanos[i] <= budgetNanos);
+            if( !fits && (priority[i] != CRITICAL) && (deferStreak[i] < MAX_DEFERRALS) ) {
+                deferStreak[i]++;
+                synchronized( this ) { deferred[i]++; }
+                continue;
+            }
+            reads[i].run();
+            long end = System.nanoTime();
+            spent += end - now;
+            lastRunNanos[i] = now;
+            deferStreak[i]  = 0;
+            record( i, now, end );
+        }
+        lastLoopMsec = (System.nanoTime() - loopStart) / 1.0e6;
+        throttled = (spent > budgetNanos);
+        if( throttled ) overBudgetLoops++;
+    } // runLoop
+
+    // One transaction of device i took startNanos..endNanos (any thread)
+    public synchronized void record( int i, long startNanos, long endNanos ) {
+        double msec = (endNanos - startNanos) / 1.0e6;
+        if( count[i] == 0 ) {
+            firstNanos[i] = startNanos;
+            expectMsec[i] = msec;
+        }
+        count[i]++;
+        totalMsec[i] += msec;
+        maxMsec[i]    = Math.max( maxMsec[i], msec );
+        expectMsec[i] += DURATION_GAIN * (msec - expectMsec[i]);
+        lastNanos[i]  = startNanos;
+        if( reads[i] == null ) backgroundNanos += endNanos - startNanos;
+    } // record
+
+    /*--------------------------------------------------------------------------------------------*/
+    public int size() {
+        return numDevices;
+    } // size
+
+    public synchronized void resetStats() {
+        for( int i=0; i<numDevices; i++ ) {
+            count[i] = 0;  deferred[i] = 0;  totalMsec[i] = 0.0;  maxMsec[i] = 0.0;
+        }
+        overBudgetLoops = 0;
+    } // resetStats
+
+    // Per-device report, eg "pinpoint 1234x 1.9/3.2ms 48Hz 0 deferred" (telemetry only; allocates)
+    public synchronized String format( int i ) {
+        double avg  = (count[i] > 0)? (totalMsec[i] / count[i]) : 0.0;
+        double rate = (count[i] > 1)? ((count[i] - 1) * 1.0e9 / Math.max( 1L, lastNanos[i] - firstNanos[i] )) : 0.0;
+        return String.format( Locale.US, "%s %dx %.1f/%.1fms %.0fHz %d deferred",
+                names[i], count[i], avg, maxMsec[i], rate, deferred[i] );
+    } // format
+
+} // I2cBusScheduler
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Learned stroke timing for the injector/lift servo (one file per robot).
+ *
+ * Each injection cycle reports how long the UP stroke took to reach its peak (detected from the
+ * Axon feedback) and how long the DOWN stroke took to reset.  The running averages replace the
+ * fixed 750/500 msec fallbacks, so a stuck or slow stroke is caught in a little more than the
+ * time this particular servo really needs.  Saved when the OpMode stops (saveIfChanged).
+ */
+public class InjectorStrokeModel {
+    public final static String STROKE_FILE_PREFIX = "InjectorStroke_";
+    public final static double DEFAULT_UP_TIMEOUT   = 750.0;  // msec (until we've learned better)
+    public final static double DEFAULT_DOWN_TIMEOUT = 500.0;  // msec
+    public final static double TIMEOUT_SCALE  = 2.0;    // allow this multiple of the learned time
+    public final static double TIMEOUT_MARGIN = 50.0;   // plus this many msec (loop jitter)
+    public final static double LEARN_GAIN     = 0.2;
+
+    public double upMsec    = 0.0;   // learned time to peak extension (0 = not learned)
+    public double downMsec  = 0.0;   // learned time to reset
+    public double peakAngle = 0.0;   // learned peak extension angle (degrees)
+    public int    strokes   = 0;     // strokes learned from (persisted)
+
+    private String robotName = "R2";
+    private boolean changed  = false;   // learned since the last save
+
+    /*--------------------------------------------------------------------------------------------*/
+    public double upTimeoutMsec() {
+        if( upMsec <= 0.0 ) return DEFAULT_UP_TIMEOUT;
+        return Math.min( DEFAULT_UP_TIMEOUT, TIMEOUT_SCALE*upMsec + TIMEOUT_MARGIN );
+    } // upTimeoutMsec
+
+    public double downTimeoutMsec() {
+        if( downMsec <= 0.0 ) return DEFAULT_DOWN_TIMEOUT;
+        return Math.min( DEFAULT_DOWN_TIMEOUT, TIMEOUT_SCALE*downMsec + TIMEOUT_MARGIN );
+    } // downTimeoutMsec
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void learnUp( double msec, double angle ) {
+        upMsec    = (upMsec    <= 0.0)? msec  : upMsec    + LEARN_GAIN*(msec  - upMsec);
+        peakAngle = (peakAngle <= 0.0)? angle : peakAngle + LEARN_GAIN*(angle - peakAngle);
+    } // learnUp
+
+    public void learnDown( double msec ) {
+        downMsec = (downMsec <= 0.0)? msec : downMsec + LEARN_GAIN*(msec - downMsec);
+        strokes++;
+        changed = true;
+    } // learnDown
+
+    /*--------------------------------------------------------------------------------------------*/
+    // File format: "upMsec downMsec peakAngle strokes"
+    public void loadFromFile( String robot ) {
+        robotName = robot;
+        File file = AppUtil.getInstance().getSettingsFile( STROKE_FILE_PREFIX + robotName + ".txt" );
+        if( !file.exists() ) return;
+        try {
+            String[] tok = ReadWriteFile.readFile( file ).trim().split("\\s+");
+            upMsec    = Double.parseDouble( tok[0] );
+            downMsec  = Double.parseDouble( tok[1] );
+            peakAngle = Double.parseDouble( tok[2] );
+            strokes   = Integer.parseInt( tok[3] );
+        } catch( RuntimeException e ) {
+            upMsec = downMsec = peakAngle = 0.0;   // corrupt file; start learning over
+            strokes = 0;
+        }
+    } // loadFromFile
+
+    public void saveIfChanged() {
+        if( changed ) saveToFile();
+    } // saveIfChanged
+
+    public void saveToFile() {
+        changed = false;
+        ReadWriteFile.writeFile( AppUtil.getInstance().getSettingsFile( STROKE_FILE_PREFIX + robotName + ".txt" ),
+                String.format(Locale.US, "%.1f %.1f %.1f %d\n", upMsec, downMsec, peakAngle, strokes) );
+    } // saveToFile
+
+} // InjectorStrokeModel
@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.AnalogInput;
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+
+/**
+ * Ball presence from goBILDA laser distance sensors in analog mode (0-3.3V = 0-1000mm, see
+ * TestLaserAnalog), as an alternative to the digital presence sensors.
+ *
+ * Knowing the distance (not just yes/no) gives us:
+ *  - presence with hysteresis: a ball arrives below presentMm and only leaves above clearMm,
+ *    so a ball rocking right at the threshold doesn't chatter
+ *  - a slot occupancy estimate (0 = empty, 1 = ball fully seated) from where the distance sits
+ *    between the calibrated empty and seated readings
+ *  - a measured sample rate and read time, to compare against the digital sensors
+ * Like DigitalPresenceSource, the voltages come from the hub's latest bulk read (MANUAL caching),
+ * so they only change as fast as the control loop refreshes the cache.  Thresholds can be
+ * overridden from
+ * FIRST/settings/LaserPresence.txt:
+ *    present 40     (mm; closer than this = ball arrived)
+ *    clear   55     (mm; farther than this = ball gone)
+ *    seated  20     (mm; reading with a ball fully seated)
+ *    empty   80     (mm; reading with the slot empty)
+ */
+public class LaserPresenceSource implements BallPresenceSource {
+    public final static String CAL_FILE        = "LaserPresence.txt";
+    public final static double MAX_VOLTS       = 3.3;
+    public final static double MAX_DISTANCE_MM = 1000.0;
+
+    // Calibration
+    public double presentMm = 40.0;
+    public double clearMm   = 55.0;
+    public double seatedMm  = 20.0;
+    public double emptyMm   = 80.0;
+    public String calError  = null;
+
+    private final AnalogInput[] sensor = new AnalogInput[2];
+    private int mask = 0;   // presence with hysteresis (sampler thread)
+
+    // Most recent readings (written by the sampler thread, read by the control loop)
+    private volatile double leftMm     = MAX_DISTANCE_MM;
+    private volatile double rightMm    = MAX_DISTANCE_MM;
+    public volatile double  readMsec      = 0.0;   // both sensors
+    public volatile double  samplesPerSec = 0.0;
+    private long rateStart   = 0;
+    private int  rateSamples = 0;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public LaserPresenceSource( AnalogInput leftSensor, AnalogInput rightSensor ) {
+        sensor[LEFT]  = leftSensor;
+        sensor[RIGHT] = rightSensor;
+    } // LaserPresenceSource
+
+    /*--------------------------------------------------------------------------------------------*/
+    @Override
+    public int read() {
+        long start = System.nanoTime();
+        for( int side=LEFT; side<=RIGHT; side++ ) {
+            double mm = (sensor[side].getVoltage() / MAX_VOLTS) * MAX_DISTANCE_MM;
+            if( side == LEFT ) leftMm = mm;  else rightMm = mm;
+            if( mm < presentMm )     mask |= (1 << side);
+            else if( mm > clearMm )  mask &= ~(1 << side);
+        }
+        long end = System.nanoTime();
+        readMsec = (end - start) / 1.0e6;
+        if( rateSamples == 0 ) rateStart = start;
+        if( ++rateSamples > 100 ) {
+            samplesPerSec = (rateSamples - 1) * 1.0e9 / (start - rateStart);
+            rateSamples = 0;
+        }
+        return mask;
+    } // read
+
+    @Override
+    public String name() {
+        return "laser";
+    } // name
+
+    /*--------------------------------------------------------------------------------------------*/
+    public double getDistanceMm( int side ) {
+        return (side == LEFT)? leftMm : rightMm;
+    } // getDistanceMm
+
+    // 0 = slot empty .. 1 = ball fully seated
+    public double occupancy( int side ) {
+        double fraction = (emptyMm - getDistanceMm( side )) / (emptyMm - seatedMm);
+        return Math.max( 0.0, Math.min( 1.0, fraction ) );
+    } // occupancy
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void loadFromFile() {
+        File file = AppUtil.getInstance().getSettingsFile( CAL_FILE );
+        calError = null;
+        if( !file.exists() ) return;
+        for( String line : ReadWriteFile.readFile( file ).split("\n") ) {
+            line = line.trim();
+            if( line.isEmpty() || line.startsWith("#") ) continue;
+            try {
+                String[] tok = line.split("\\s+");
+                double value = Double.parseDouble( tok[1] );
+                switch( tok[0].toLowerCase() ) {
+                    case "present" : presentMm = value;  break;
+                    case "clear"   : clearMm   = value;  break;
+                    case "seated"  : seatedMm  = value;  break;
+                    case "empty"   : emptyMm   = value;  break;
+                    default        : throw new IllegalArgumentException( tok[0] );
+                }
+            } catch( RuntimeException e ) {
+                calError = CAL_FILE + ": " + line;
+            }
+        }
+    } // loadFromFile
+
+} // LaserPresenceSource
@@ -0,0 +1,191 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState;
+
+/**
+ * Path-aware scheduling of spindexer moves during autonomous drives.
+ *
+ * A path is a list of waypoints (driven in order by AutonomousBase.drivePath) plus
+ * mechanism goals such as "P2 ready by waypoint 3, but not before waypoint 2 is reached" or
+ * "first shot position ready on arrival".  Every loop we predict when the robot will arrive at
+ * each goal's waypoint (remaining path length / expected speed for each leg) and start the move
+ * at the latest point that still has it finished, with a safety margin, on arrival.  Holding
+ * a collection position as long as possible lets the previous ball settle; nothing here ever
+ * makes the robot wait.  Actions (intake power, auto-aim, etc) can be attached to a waypoint
+ * and run the moment it's reached.
+ *
+ * The expected speed per unit drive power is refined from odometry as we drive.
+ */
+public class MechanismScheduler {
+    public final static int    MAX_WAYPOINTS      = 16;
+    public final static int    MAX_GOALS          = 8;
+    public final static double SAFETY_MARGIN_MSEC = 150.0;  // finish this early (prediction error)
+    public final static double DRIVE_TO_SETTLE_MSEC = 300.0; // extra time to slow down at a DRIVE_TO
+    public final static double IPS_PER_POWER      = 50.0;   // initial guess (inches/sec at power 1.0)
+    public final static double IPS_LEARN_GAIN     = 0.05;
+    public final static double MIN_SPEED_IPS      = 4.0;
+
+    private final HardwareSwyftBot robot;
+
+    // Waypoints
+    private final double[] wpX        = new double[MAX_WAYPOINTS];
+    private final double[] wpY        = new double[MAX_WAYPOINTS];
+    private final double[] wpAngle    = new double[MAX_WAYPOINTS];
+    private final double[] wpSpeed    = new double[MAX_WAYPOINTS];
+    private final double[] wpTurn     = new double[MAX_WAYPOINTS];
+    private final int[]    wpType     = new int[MAX_WAYPOINTS];
+    private final Runnable[] wpAction = new Runnable[MAX_WAYPOINTS];
+    private int numWaypoints = 0;
+
+    // Spindexer goals (triggered in the order they were added)
+    private final SpindexerState[] goalPos = new SpindexerState[MAX_GOALS];
+    private final int[]     goalReadyBy   = new int[MAX_GOALS];
+    private final int[]     goalNotBefore = new int[MAX_GOALS];
+    private int numGoals  = 0;
+    private int nextGoal  = 0;
+
+    // Progress along the path
+    private int    current = 0;        // waypoint we're driving toward
+    private double lastX, lastY;
+    private final ElapsedTime loopTimer = new ElapsedTime();
+    public  double ipsPerPower = IPS_PER_POWER;  // learned (carries over between paths)
+
+    // Diagnostics
+    public double lastLeadMsec = 0.0;  // predicted msec to arrival when the last move was started
+    public int    lateGoals    = 0;    // goals still moving when their waypoint was reached
+
+    /*--------------------------------------------------------------------------------------------*/
+    public MechanismScheduler( HardwareSwyftBot robot ) {
+        this.robot = robot;
+    } // MechanismScheduler
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Start a new path (keeps the learned speed)
+    public MechanismScheduler clear() {
+        numWaypoints = 0;
+        numGoals     = 0;
+        return this;
+    } // clear
+
+    // Returns the index of the new waypoint
+    public int addWaypoint( double x, double y, double angleDeg, double speedMax, double turnMax, int driveType ) {
+        if( numWaypoints >= MAX_WAYPOINTS ) throw new IllegalStateException( "path has more than " + MAX_WAYPOINTS + " waypoints" );
+        int k = numWaypoints++;
+        wpX[k] = x;  wpY[k] = y;  wpAngle[k] = angleDeg;
+        wpSpeed[k] = speedMax;  wpTurn[k] = turnMax;  wpType[k] = driveType;
+        wpAction[k] = null;
+        return k;
+    } // addWaypoint
+
+    // Run an action when waypoint k is reached
+    public MechanismScheduler atWaypoint( int k, Runnable action ) {
+        wpAction[k] = action;
+        return this;
+    } // atWaypoint
+
+    // Spindexer at position by the time we reach waypoint readyBy, but not started until
+    // waypoint notBefore has been reached (-1 = any time)
+    public MechanismScheduler addSpindexerGoal( SpindexerState position, int readyBy, int notBefore ) {
+        if( numGoals >= MAX_GOALS ) throw new IllegalStateException( "path has more than " + MAX_GOALS + " spindexer goals" );
+        goalPos[numGoals]       = position;
+        goalReadyBy[numGoals]   = readyBy;
+        goalNotBefore[numGoals] = notBefore;
+        numGoals++;
+        return this;
+    } // addSpindexerGoal
+
+    /*--------------------------------------------------------------------------------------------*/
+    public int    size()            { return numWaypoints; }
+    public double getX( int k )     { return wpX[k]; }
+    public double getY( int k )     { return wpY[k]; }
+    public double getAngle( int k ) { return wpAngle[k]; }
+    public double getSpeed( int k ) { return wpSpeed[k]; }
+    public double getTurn( int k )  { return wpTurn[k]; }
+    public int    getDriveType( int k ) { return wpType[k]; }
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void start( double robotX, double robotY ) {
+        current  = 0;
+        nextGoal = 0;
+        lastX = robotX;
+        lastY = robotY;
+        loopTimer.reset();
+    } // start
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Call every control loop with the current odometry position
+    public void update( double robotX, double robotY ) {
+        double dt = loopTimer.seconds();
+        loopTimer.reset();
+        // Refine the speed estimate while cruising through a waypoint
+        if( (current < numWaypoints) && (wpType[current] == AutonomousBase.DRIVE_THRU) &&
+            (wpSpeed[current] >= 0.30) && (dt > 0.0) && (dt < 0.2) ) {
+            double ips = Math.hypot( robotX - lastX, robotY - lastY ) / dt;
+            ipsPerPower += IPS_LEARN_GAIN * (ips/wpSpeed[current] - ipsPerPower);
+        }
+        lastX = robotX;
+        lastY = robotY;
+        // Start the next spindexer move once we're at the latest safe point (one per loop)
+        if( (nextGoal < numGoals) && (goalNotBefore[nextGoal] < current) ) {
+            double moveMsec = estimateMoveMsec( robot.spinServoCurPos, goalPos[nextGoal] );
+            double leadMsec = (goalReadyBy[nextGoal] < current)? 0.0 :
+                              predictArrivalMsec( robotX, robotY, goalReadyBy[nextGoal] );
+            if( leadMsec <= moveMsec + SAFETY_MARGIN_MSEC ) {
+                startGoal( leadMsec );
+            }
+        }
+    } // update
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Waypoint k has been reached
+    public void reached( int k ) {
+        current = k + 1;
+        for( int g=0; g<numGoals; g++ ) {
+            if( (goalReadyBy[g] != k) || (g < nextGoal-1) ) continue;
+            if( (g >= nextGoal) || !robot.spinServoInPos ) lateGoals++;
+        }
+        if( wpAction[k] != null ) wpAction[k].run();
+    } // reached
+
+    // Path is done (or aborted): go straight to the final goal if we never got there
+    public void finish() {
+        if( nextGoal < numGoals ) {
+            nextGoal = numGoals - 1;
+            startGoal( 0.0 );
+        }
+    } // finish
+
+    private void startGoal( double leadMsec ) {
+        robot.spinServoSetPosition( goalPos[nextGoal] );
+        lastLeadMsec = leadMsec;
+        nextGoal++;
+    } // startGoal
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Predicted msec until we reach waypoint k
+    public double predictArrivalMsec( double robotX, double robotY, int k ) {
+        double msec = 0.0;
+        double fromX = robotX, fromY = robotY;
+        for( int j=current; (j <= k) && (j < numWaypoints); j++ ) {
+            double dist  = Math.hypot( wpX[j] - fromX, wpY[j] - fromY );
+            double speed = Math.max( MIN_SPEED_IPS, wpSpeed[j] * ipsPerPower );
+            msec += 1000.0 * dist / speed;
+            if( wpType[j] == AutonomousBase.DRIVE_TO ) msec += DRIVE_TO_SETTLE_MSEC;
+            fromX = wpX[j];
+            fromY = wpY[j];
+        }
+        return msec;
+    } // predictArrivalMsec
+
+    // Measured spindexer move time if we have one, otherwise the nominal time
+    private double estimateMoveMsec( SpindexerState from, SpindexerState to ) {
+        if( from == to ) return 0.0;
+        double measured = robot.getSpindexerMoveTime( from, to );
+        if( measured > 0.0 ) return measured;
+        boolean oneStep = (Math.abs( from.ordinal() - to.ordinal() ) <= 2);   // eg P1-H2-P2
+        return (oneStep)? ShotOrderPlanner.NOMINAL_1STEP_MSEC : ShotOrderPlanner.NOMINAL_2STEP_MSEC;
+    } // estimateMoveMsec
+
+} // MechanismScheduler
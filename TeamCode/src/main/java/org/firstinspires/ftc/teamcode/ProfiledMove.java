@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * Profiled point-to-point move for the mecanum drive: translation and rotation each follow a
+ * jerk-limited S-curve (SCurveMotionProfile, the same math the spindexer uses), run together.
+ *
+ * The translation profile runs along the straight line from the start to the target; every loop
+ * we sample where the robot should be and how fast it should be going, and command
+ *    power = kV*velocity + kA*acceleration + kS (feedforward)  +  kP*position error (feedback)
+ * with the position error in both directions, so we're pulled back onto the line too.  Heading
+ * works the same way in degrees.  Ramping up through a jerk-limited profile (instead of jumping
+ * to speedMax) keeps the wheels from slipping, so odometry stays good, and the planned
+ * deceleration avoids the overshoot of a proportional stop.  Once the profile is finished,
+ * feedback alone holds the target until we're within tolerance.  If SETTLE_MSEC runs out first
+ * the move ends with timedOut set: that's not arrival, and the caller has to finish the job.
+ *
+ * kV comes from the measured inches/sec per unit power (MechanismScheduler.ipsPerPower).
+ * Powers are in the field frame; the caller converts them to wheel powers.
+ */
+public class ProfiledMove {
+    // Translation (inches)
+    public final static double MAX_ACCEL_IPS2   = 60.0;
+    public final static double MAX_JERK_IPS3    = 400.0;
+    public final static double KA_DRIVE         = 0.002;   // power per in/sec^2
+    public final static double KS_DRIVE         = 0.06;    // power to overcome static friction
+    public final static double KP_DRIVE         = 0.05;    // power per inch of error
+    public final static double POS_TOLERANCE    = 0.5;     // inches
+    // Rotation (degrees)
+    public final static double DPS_PER_POWER    = 360.0;   // deg/sec at full turn power
+    public final static double MIN_TURN_DPS     = 90.0;
+    public final static double MAX_TURN_ACCEL   = 600.0;   // deg/sec^2
+    public final static double MAX_TURN_JERK    = 3000.0;  // deg/sec^3
+    public final static double KA_TURN          = 0.0002;  // power per deg/sec^2
+    public final static double KS_TURN          = 0.06;
+    public final static double KP_TURN          = 0.016;   // power per degree of error
+    public final static double HEADING_TOLERANCE = 2.0;    // degrees
+    public final static double SETTLE_MSEC      = 500.0;   // max time after the profile ends
+
+    private final SCurveMotionProfile driveProfile = new SCurveMotionProfile( 1.0, MAX_ACCEL_IPS2, MAX_JERK_IPS3 );
+    private final SCurveMotionProfile turnProfile  = new SCurveMotionProfile( 1.0, MAX_TURN_ACCEL, MAX_TURN_JERK );
+    private final ElapsedTime timer = new ElapsedTime();
+
+    private double startX, startY, startDeg;
+    private double targetX, targetY, targetDeg;
+    private double ux, uy;          // unit vector from the start to the target
+    private double ipsPerPower;
+    private double duration;        // seconds (the longer of the two profiles)
+
+    // Outputs of update()
+    public double fieldX    = 0.0;  // field-frame drive power
+    public double fieldY    = 0.0;
+    public double turnPower = 0.0;  // +CCW
+    public double posError  = 0.0;  // inches from where the profile says we should be
+    public double headingError = 0.0;
+    public boolean timedOut = false;  // update() finished without reaching the target
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Plan a move from the current pose.  speedMax/turnMax are the usual drive/turn powers; they
+    // become the profile's velocity limits.  Returns the planned duration in seconds.
+    public double start( double x, double y, double angleDeg, double xTarget, double yTarget,
+                         double angleTarget, double speedMax, double turnMax, double ipsPerPower ) {
+        startX  = x;        startY  = y;        startDeg  = angleDeg;
+        targetX = xTarget;  targetY = yTarget;  targetDeg = angleTarget;
+        this.ipsPerPower = ipsPerPower;
+        double distance = Math.hypot( xTarget - x, yTarget - y );
+        ux = (distance > 0.0)? (xTarget - x) / distance : 0.0;
+        uy = (distance > 0.0)? (yTarget - y) / distance : 0.0;
+        driveProfile.maxVelocity = Math.max( 1.0, speedMax * ipsPerPower );   // (0 = just rotate)
+        turnProfile.maxVelocity  = Math.max( MIN_TURN_DPS, turnMax * DPS_PER_POWER );
+        double driveSec = driveProfile.compute( distance );
+        double turnSec  = turnProfile.compute( wrapDegrees( angleTarget - angleDeg ) );
+        duration = Math.max( driveSec, turnSec );
+        timedOut = false;
+        timer.reset();
+        return duration;
+    } // start
+
+    /*--------------------------------------------------------------------------------------------*/
+    // One control loop with the current pose; returns true once the move is done (check timedOut)
+    public boolean update( double x, double y, double angleDeg ) {
+        double t = timer.seconds();
+        driveProfile.sample( t );
+        turnProfile.sample( t );
+        // Translation: feedforward along the line, feedback toward where we should be
+        double refX = startX + ux * driveProfile.position;
+        double refY = startY + uy * driveProfile.position;
+        double ff   = driveProfile.velocity / ipsPerPower + KA_DRIVE * driveProfile.acceleration;
+        if( driveProfile.velocity > 0.0 ) ff += KS_DRIVE;
+        fieldX   = ux * ff + KP_DRIVE * (refX - x);
+        fieldY   = uy * ff + KP_DRIVE * (refY - y);
+        posError = Math.hypot( refX - x, refY - y );
+        // Rotation
+        double refDeg = startDeg + turnProfile.position;
+        headingError  = wrapDegrees( refDeg - angleDeg );
+        turnPower = turnProfile.velocity / DPS_PER_POWER + KA_TURN * turnProfile.acceleration
+                  + Math.signum( turnProfile.velocity ) * KS_TURN + KP_TURN * headingError;
+        if( t < duration ) return false;
+        // Profile finished: hold the target until we're close enough (at least enough power to move)
+        double toTarget = Math.hypot( targetX - x, targetY - y );
+        double toHeading = wrapDegrees( targetDeg - angleDeg );
+        boolean inPosition = (toTarget < POS_TOLERANCE);
+        boolean onHeading  = (Math.abs( toHeading ) < HEADING_TOLERANCE);
+        if( (inPosition && onHeading) || ((t - duration) * 1000.0 > SETTLE_MSEC) ) {
+            fieldX = 0.0;  fieldY = 0.0;  turnPower = 0.0;
+            timedOut = !(inPosition && onHeading);
+            return true;
+        }
+        double power = Math.hypot( fieldX, fieldY );
+        if( inPosition ) {
+            fieldX = 0.0;  fieldY = 0.0;
+        } else if( power < KS_DRIVE ) {
+            fieldX = KS_DRIVE * (targetX - x) / toTarget;
+            fieldY = KS_DRIVE * (targetY - y) / toTarget;
+        }
+        if( onHeading ) {
+            turnPower = 0.0;
+        } else if( Math.abs( turnPower ) < KS_TURN ) {
+            turnPower = Math.signum( toHeading ) * KS_TURN;
+        }
+        return false;
+    } // update
+
+    public double getDuration() {
+        return duration;
+    } // getDuration
+
+    private static double wrapDegrees( double deg ) {
+        while( deg >=  180.0 ) deg -= 360.0;
+        while( deg <  -180.0 ) deg += 360.0;
+        return deg;
+    } // wrapDegrees
+
+} // ProfiledMove
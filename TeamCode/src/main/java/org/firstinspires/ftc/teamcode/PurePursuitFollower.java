@@ -0,0 +1,226 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Smooth-path follower for the mecanum drive (pure pursuit along a spline).
+ *
+ * The waypoints (starting from where the robot is) are joined by a centripetal Catmull-Rom
+ * spline, which passes through every waypoint without the overshoot/cusps of a uniform one, and
+ * sampled about every SAMPLE_SPACING inches.  Heading is interpolated along the arc from one
+ * waypoint's angle to the next (the mecanum drive can face anywhere while it translates).  Each
+ * sample gets a speed limit: the max power of the leg it's on, slowed where the curve is tight
+ * (lateral acceleration) and ahead of the end of the path (deceleration), and ramped from the
+ * starting speed (acceleration), so speed carries through the intermediate waypoints instead of
+ * chasing each one and switching at a tolerance.
+ *
+ * Every loop update() finds the closest sample (progress only moves forward), then steers toward
+ * the point LOOKAHEAD inches further along the path (longer at higher speed), at the profiled
+ * power for where we are, turning toward the heading there (limited to MAX_TURN_POWER).
+ * Results are the field-frame drive direction, drive power and turn power; the caller converts
+ * those into wheel powers.  Everything is allocated up front.
+ */
+public class PurePursuitFollower {
+    public final static int    MAX_WAYPOINTS    = 16;
+    public final static int    MAX_SAMPLES      = 600;
+    public final static double SAMPLE_SPACING   = 1.0;    // inches
+    public final static double LOOKAHEAD_MIN    = 6.0;    // inches
+    public final static double LOOKAHEAD_MAX    = 16.0;   // inches
+    public final static double LOOKAHEAD_PER_POWER = 14.0;   // extra inches per unit of power
+    public final static double MAX_LATERAL_IPS2 = 70.0;   // in/sec^2 allowed around curves
+    public final static double MAX_ACCEL_IPS2   = 60.0;
+    public final static double MAX_DECEL_IPS2   = 45.0;
+    public final static double TURN_GAIN        = 0.033;  // turn power per degree of heading error
+    public final static double MAX_TURN_POWER   = 0.40;   // so a big heading error can't swamp the drive
+    public final static double END_TOLERANCE    = 2.0;    // inches from the end = done
+
+    // Waypoints (index 0 is the starting pose)
+    private final double[] wpX     = new double[MAX_WAYPOINTS + 1];
+    private final double[] wpY     = new double[MAX_WAYPOINTS + 1];
+    private final double[] wpAngle = new double[MAX_WAYPOINTS + 1];   // degrees
+    private final double[] wpSpeed = new double[MAX_WAYPOINTS + 1];   // max power driving TO this one
+    private final double[] wpS     = new double[MAX_WAYPOINTS + 1];   // arc length at the waypoint
+    private int numWaypoints = 0;
+
+    // Sampled path
+    private final double[] px      = new double[MAX_SAMPLES];
+    private final double[] py      = new double[MAX_SAMPLES];
+    private final double[] ps      = new double[MAX_SAMPLES];   // arc length [in]
+    private final double[] pAngle  = new double[MAX_SAMPLES];   // target heading [deg]
+    private final double[] pPower  = new double[MAX_SAMPLES];   // profiled drive power
+    private int numSamples = 0;
+
+    // Following
+    private int closest = 0;
+    public  double driveAngleRad = 0.0;   // field-frame direction to drive
+    public  double drivePower    = 0.0;
+    public  double turnPower     = 0.0;
+    public  double crossTrack    = 0.0;   // distance from the path [in] (diagnostics)
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Start a new path at the robot's current pose and speed
+    public void begin( double x, double y, double angleDeg, double power ) {
+        numWaypoints = 0;
+        addWaypoint( x, y, angleDeg, power );
+    } // begin
+
+    // Returns the index of the waypoint (1 = first one after the start)
+    public int addWaypoint( double x, double y, double angleDeg, double speedMax ) {
+        int k = numWaypoints++;
+        wpX[k] = x;  wpY[k] = y;  wpAngle[k] = angleDeg;  wpSpeed[k] = speedMax;
+        return k;
+    } // addWaypoint
+
+    public double totalLength() {
+        return ps[ numSamples-1 ];
+    } // totalLength
+
+    // Arc length at waypoint k, and how far along the path we are now
+    public double getWaypointS( int k ) {
+        return wpS[k];
+    } // getWaypointS
+
+    public double progress() {
+        return ps[closest];
+    } // progress
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Sample the spline and compute the speed profile.  endPower = speed to finish at (0 = stop);
+    // ipsPerPower converts drive power to inches/sec (see MechanismScheduler.ipsPerPower).
+    public void build( double endPower, double ipsPerPower ) {
+        numSamples = 0;
+        addSample( wpX[0], wpY[0] );
+        wpS[0] = 0.0;
+        for( int k=1; k<numWaypoints; k++ ) {
+            // Centripetal Catmull-Rom from waypoint k-1 to k (end tangents by reflection)
+            double x0 = (k >= 2)? wpX[k-2] : 2*wpX[k-1] - wpX[k];
+            double y0 = (k >= 2)? wpY[k-2] : 2*wpY[k-1] - wpY[k];
+            double x3 = (k+1 < numWaypoints)? wpX[k+1] : 2*wpX[k] - wpX[k-1];
+            double y3 = (k+1 < numWaypoints)? wpY[k+1] : 2*wpY[k] - wpY[k-1];
+            double chord = Math.hypot( wpX[k] - wpX[k-1], wpY[k] - wpY[k-1] );
+            int steps = Math.max( 1, (int)Math.ceil( chord / SAMPLE_SPACING ) );
+            steps = Math.max( 1, Math.min( steps, (MAX_SAMPLES - 1 - numSamples) - (numWaypoints - 1 - k) ) );
+            for( int j=1; j<=steps; j++ ) {
+                spline( x0, y0, wpX[k-1], wpY[k-1], wpX[k], wpY[k], x3, y3, (double)j / steps );
+            }
+            wpS[k] = ps[ numSamples-1 ];
+        }
+        // Heading: from one waypoint's angle to the next, in proportion to arc length
+        int k = 1;
+        for( int i=0; i<numSamples; i++ ) {
+            while( (k < numWaypoints-1) && (ps[i] > wpS[k]) ) k++;
+            double legLength = wpS[k] - wpS[k-1];
+            double fraction  = (legLength > 0.0)? (ps[i] - wpS[k-1]) / legLength : 1.0;
+            pAngle[i] = wpAngle[k-1] + fraction * wrapDegrees( wpAngle[k] - wpAngle[k-1] );
+            pPower[i] = wpSpeed[k];
+        }
+        // Slow down for tight curves (curvature from each sample and its neighbors)
+        for( int i=1; i<numSamples-1; i++ ) {
+            double curvature = curvature( i );
+            if( curvature > 1.0e-6 ) {
+                double ips = Math.sqrt( MAX_LATERAL_IPS2 / curvature );
+                pPower[i] = Math.min( pPower[i], ips / ipsPerPower );
+            }
+        }
+        // Decelerate into the end, and accelerate from our starting speed
+        pPower[numSamples-1] = Math.min( pPower[numSamples-1], endPower );
+        for( int i=numSamples-2; i>=0; i-- ) {
+            double ips = Math.sqrt( sq(pPower[i+1]*ipsPerPower) + 2.0*MAX_DECEL_IPS2*(ps[i+1] - ps[i]) );
+            pPower[i] = Math.min( pPower[i], ips / ipsPerPower );
+        }
+        pPower[0] = Math.max( pPower[0], wpSpeed[0] );
+        for( int i=1; i<numSamples; i++ ) {
+            double ips = Math.sqrt( sq(pPower[i-1]*ipsPerPower) + 2.0*MAX_ACCEL_IPS2*(ps[i] - ps[i-1]) );
+            pPower[i] = Math.min( pPower[i], ips / ipsPerPower );
+        }
+        closest = 0;
+    } // build
+
+    /*--------------------------------------------------------------------------------------------*/
+    // One control loop; returns true once we're at the end of the path
+    public boolean update( double x, double y, double angleDeg ) {
+        // Closest sample (searching forward only, so a path that crosses itself still works)
+        double best = Double.MAX_VALUE;
+        int    from = closest;
+        for( int i=from; i<numSamples; i++ ) {
+            double d = Math.hypot( px[i] - x, py[i] - y );
+            if( d < best ) {
+                best = d;
+                closest = i;
+            } else if( d > best + LOOKAHEAD_MAX ) {
+                break;   // well past the closest point
+            }
+        }
+        crossTrack = best;
+        int last = numSamples - 1;
+        double toEnd = Math.hypot( px[last] - x, py[last] - y );
+        if( (toEnd < END_TOLERANCE) || ((closest == last) && pastEnd( x, y )) ) {
+            drivePower = 0.0;
+            turnPower  = 0.0;
+            return true;
+        }
+        // Steer for the lookahead point
+        double power = pPower[closest];
+        double lookahead = Math.min( LOOKAHEAD_MAX, LOOKAHEAD_MIN + LOOKAHEAD_PER_POWER * power );
+        int target = closest;
+        while( (target < last) && (ps[target] - ps[closest] < lookahead) ) target++;
+        driveAngleRad = Math.atan2( py[target] - y, px[target] - x );
+        drivePower    = power;
+        turnPower     = TURN_GAIN * wrapDegrees( pAngle[target] - angleDeg );
+        turnPower     = Math.max( -MAX_TURN_POWER, Math.min( MAX_TURN_POWER, turnPower ) );
+        return false;
+    } // update
+
+    // Beyond the end of the path (in the direction it was going)
+    private boolean pastEnd( double x, double y ) {
+        int last = numSamples - 1;
+        double dx = px[last] - px[last-1], dy = py[last] - py[last-1];
+        return ((x - px[last])*dx + (y - py[last])*dy) > 0.0;
+    } // pastEnd
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Point at fraction t of the way from p1 to p2 (Barry-Goldman evaluation, alpha = 0.5)
+    private void spline( double x0, double y0, double x1, double y1, double x2, double y2,
+                         double x3, double y3, double t ) {
+        double t0 = 0.0;
+        double t1 = t0 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x1-x0, y1-y0 ) ) );
+        double t2 = t1 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x2-x1, y2-y1 ) ) );
+        double t3 = t2 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x3-x2, y3-y2 ) ) );
+        double u  = t1 + t * (t2 - t1);
+        double a1x = lerp( x0, x1, t0, t1, u ), a1y = lerp( y0, y1, t0, t1, u );
+        double a2x = lerp( x1, x2, t1, t2, u ), a2y = lerp( y1, y2, t1, t2, u );
+        double a3x = lerp( x2, x3, t2, t3, u ), a3y = lerp( y2, y3, t2, t3, u );
+        double b1x = lerp( a1x, a2x, t0, t2, u ), b1y = lerp( a1y, a2y, t0, t2, u );
+        double b2x = lerp( a2x, a3x, t1, t3, u ), b2y = lerp( a2y, a3y, t1, t3, u );
+        addSample( lerp( b1x, b2x, t1, t2, u ), lerp( b1y, b2y, t1, t2, u ) );
+    } // spline
+
+    private static double lerp( double a, double b, double ta, double tb, double t ) {
+        return a + (b - a) * (t - ta) / (tb - ta);
+    } // lerp
+
+    private void addSample( double x, double y ) {
+        int i = numSamples++;
+        px[i] = x;
+        py[i] = y;
+        ps[i] = (i == 0)? 0.0 : ps[i-1] + Math.hypot( x - px[i-1], y - py[i-1] );
+    } // addSample
+
+    // Menger curvature (1/radius) through samples i-1, i, i+1
+    private double curvature( int i ) {
+        double ax = px[i] - px[i-1],   ay = py[i] - py[i-1];
+        double bx = px[i+1] - px[i],   by = py[i+1] - py[i];
+        double cx = px[i+1] - px[i-1], cy = py[i+1] - py[i-1];
+        double denominator = Math.hypot(ax,ay) * Math.hypot(bx,by) * Math.hypot(cx,cy);
+        return (denominator > 1.0e-9)? Math.abs( 2.0*(ax*by - ay*bx) ) / denominator : 0.0;
+    } // curvature
+
+    private static double sq( double v ) {
+        return v * v;
+    } // sq
+
+    private static double wrapDegrees( double deg ) {
+        while( deg >=  180.0 ) deg -= 360.0;
+        while( deg <  -180.0 ) deg += 360.0;
+        return deg;
+    } // wrapDegrees
+
+} // PurePursuitFollower
@@ -0,0 +1,120 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Jerk-limited (S-curve) rest-to-rest motion profile.
+ *
+ * The move is split into the usual 7 segments: jerk-up, constant accel, jerk-down, cruise,
+ * and the mirror image for deceleration.  Short moves that can't reach maxVelocity (or even
+ * maxAcceleration) get shortened segments automatically.  Units are whatever the caller uses
+ * (servo units, degrees, inches) as long as velocity/acceleration/jerk are per-second of those.
+ *
+ * compute() does all the work up front (no tables, no allocation), so sample() is cheap enough
+ * to call every control loop.  After sample(t) the position/velocity/acceleration fields hold the
+ * profile state at time t, measured from the start of the move (position relative to the start).
+ */
+public class SCurveMotionProfile {
+    public double maxVelocity;
+    public double maxAcceleration;
+    public double maxJerk;
+
+    public double distance = 0.0;   // signed distance of the current move
+    public double duration = 0.0;   // seconds from start to finish
+
+    // Profile state from the most recent sample()
+    public double position     = 0.0;
+    public double velocity     = 0.0;
+    public double acceleration = 0.0;
+
+    // Jerk direction of each segment (times maxJerk)
+    private final static double[] JERK_SIGN = { +1.0, 0.0, -1.0, 0.0, -1.0, 0.0, +1.0 };
+
+    // Segment boundaries: start time, and the state at the start of each segment
+    private final double[] segLen  = new double[7];
+    private final double[] segTime = new double[8];
+    private final double[] segJerk = new double[7];
+    private final double[] segPos  = new double[8];
+    private final double[] segVel  = new double[8];
+    private final double[] segAcc  = new double[8];
+
+    /*--------------------------------------------------------------------------------------------*/
+    public SCurveMotionProfile( double maxVelocity, double maxAcceleration, double maxJerk ) {
+        this.maxVelocity     = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk         = maxJerk;
+    } // SCurveMotionProfile
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Plan a move of the given (signed) distance.  Returns the move duration in seconds.
+    public double compute( double moveDistance ) {
+        double dir  = Math.signum( moveDistance );
+        double dist = Math.abs( moveDistance );
+        double jerk = maxJerk;
+        // Time to ramp acceleration from 0 to maxAcceleration
+        double tj = maxAcceleration / jerk;
+        // Can we even reach maxAcceleration before hitting maxVelocity?
+        if( maxVelocity < maxAcceleration * tj ) {
+            tj = Math.sqrt( maxVelocity / jerk );
+        }
+        double aPeak = jerk * tj;
+        double ta    = Math.max( 0.0, maxVelocity/aPeak - tj );   // constant-acceleration time
+        double vPeak = aPeak * (tj + ta);
+        double dAccel = vPeak * (2.0*tj + ta) / 2.0;             // distance to reach vPeak
+        // Too short to reach vPeak?  Shrink the ramp until the accel+decel exactly cover the move
+        if( 2.0*dAccel > dist ) {
+            // Try keeping peak acceleration: d = vPeak*(vPeak/aPeak + tj)
+            vPeak = aPeak * ( -tj + Math.sqrt( tj*tj + 4.0*dist/aPeak ) ) / 2.0;
+            ta    = vPeak/aPeak - tj;
+            if( ta < 0.0 ) {
+                // Not even enough distance to reach peak acceleration: d = 2*jerk*tj^3
+                ta    = 0.0;
+                tj    = Math.cbrt( dist / (2.0*jerk) );
+                vPeak = jerk * tj * tj;
+            }
+            dAccel = dist / 2.0;
+        }
+        double tc = (vPeak > 0.0)? (dist - 2.0*dAccel) / vPeak : 0.0;  // cruise time
+
+        segLen[0] = tj;  segLen[1] = ta;  segLen[2] = tj;  segLen[3] = tc;
+        segLen[4] = tj;  segLen[5] = ta;  segLen[6] = tj;
+        segTime[0] = 0.0;  segPos[0] = 0.0;  segVel[0] = 0.0;  segAcc[0] = 0.0;
+        for( int i=0; i<7; i++ ) {
+            double t = segLen[i];
+            double j = dir * JERK_SIGN[i] * jerk;
+            segJerk[i]   = j;
+            segTime[i+1] = segTime[i] + t;
+            segPos[i+1]  = segPos[i] + segVel[i]*t + segAcc[i]*t*t/2.0 + j*t*t*t/6.0;
+            segVel[i+1]  = segVel[i] + segAcc[i]*t + j*t*t/2.0;
+            segAcc[i+1]  = segAcc[i] + j*t;
+        }
+        distance = moveDistance;
+        duration = segTime[7];
+        sample( 0.0 );
+        return duration;
+    } // compute
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Evaluate the profile at time t (seconds since the start of the move)
+    public void sample( double t ) {
+        if( t >= duration ) {
+            position = distance;  velocity = 0.0;  acceleration = 0.0;
+            return;
+        }
+        if( t <= 0.0 ) {
+            position = 0.0;  velocity = 0.0;  acceleration = 0.0;
+            return;
+        }
+        int i = 0;
+        while( (i < 6) && (t >= segTime[i+1]) ) i++;
+        double dt = t - segTime[i];
+        double j  = segJerk[i];
+        position     = segPos[i] + segVel[i]*dt + segAcc[i]*dt*dt/2.0 + j*dt*dt*dt/6.0;
+        velocity     = segVel[i] + segAcc[i]*dt + j*dt*dt/2.0;
+        acceleration = segAcc[i] + j*dt;
+    } // sample
+
+    /*--------------------------------------------------------------------------------------------*/
+    public boolean isComplete( double t ) {
+        return (t >= duration);
+    } // isComplete
+
+} // SCurveMotionProfile
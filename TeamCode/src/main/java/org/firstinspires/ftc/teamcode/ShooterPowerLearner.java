@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Adaptive correction layered on top of computeShooterPower().
+ *
+ * Ball wear, battery sag and flywheel temperature slowly shift the ideal shooter power over an
+ * event.  We keep a power bias per distance bin and nudge it each time a shot outcome is reported
+ * (SHORT / LONG / HIT).  Part of a miss may be explained by the flywheel not being at its target
+ * velocity when the ball was released; that part is NOT a model error, so it's removed before
+ * updating the bias.  The learning rate decays as a bin collects samples, but never below a floor
+ * so the bias can keep tracking drift.  A HIT pulls the bias back toward zero, so it relaxes
+ * once the misses stop.  Biases persist in the settings folder across matches (saved at stop).
+ */
+public class ShooterPowerLearner {
+    public final static String BIAS_FILE = "ShooterPowerBias.txt";
+
+    public final static double BIN_MIN_DIST  = 24.0;   // center of the first distance bin (inches)
+    public final static double BIN_WIDTH     = 12.0;   // inches
+    public final static int    NUM_BINS      = 11;     // 24" .. 144"
+    public final static double OUTCOME_STEP  = 0.010;  // power error implied by a single SHORT/LONG
+    public final static double MAX_BIAS      = 0.040;  // never correct the model by more than this
+    public final static double RATE_MAX      = 0.50;   // learning rate for a bin with no history
+    public final static double RATE_MIN      = 0.15;   // learning rate floor (keeps tracking drift)
+    public final static double HIT_DECAY     = 0.25;   // a HIT removes this fraction of the bias
+
+    public final static int OUTCOME_HIT   =  0;
+    public final static int OUTCOME_SHORT = +1;   // needed more power
+    public final static int OUTCOME_LONG  = -1;   // needed less power
+
+    public final double[] bias  = new double[NUM_BINS];
+    public final int[]    count = new int[NUM_BINS];
+
+    // Most recent ball release (waiting for an outcome to be reported)
+    public boolean releasePending    = false;
+    public double  releaseDistance   = 0.0;   // inches
+    public double  releaseVelocity   = 0.0;   // measured flywheel velocity (counts/sec)
+    public double  releaseTargetVel  = 0.0;   // target flywheel velocity (counts/sec)
+    public double  releasePowerError = 0.0;   // flywheel velocity error expressed as power
+    public double  lastUpdate        = 0.0;   // last bias change applied (for telemetry)
+
+    public String  fileError = null;
+    private boolean changed  = false;   // biases not yet saved
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Power correction to add to the model output at this distance (linear between bins)
+    public double getCorrection( double distance ) {
+        double pos = (distance - BIN_MIN_DIST) / BIN_WIDTH;
+        if( pos <= 0.0 ) return bias[0];
+        if( pos >= NUM_BINS-1 ) return bias[NUM_BINS-1];
+        int    lo = (int)pos;
+        double w  = pos - lo;
+        return (1.0-w)*bias[lo] + w*bias[lo+1];
+    } // getCorrection
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Called when a ball leaves the injector.  velPerPower is the slope of the flywheel
+    // velocity model at the commanded power (counts/sec per unit power).
+    public void recordRelease( double distance, double measuredVel, double targetVel, double velPerPower ) {
+        releasePending    = true;
+        releaseDistance   = distance;
+        releaseVelocity   = measuredVel;
+        releaseTargetVel  = targetVel;
+        releasePowerError = (velPerPower > 0.0)? (targetVel - measuredVel) / velPerPower : 0.0;
+    } // recordRelease
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Apply an outcome (OUTCOME_SHORT/LONG/HIT) to the most recent release
+    public boolean reportOutcome( int outcome ) {
+        if( !releasePending ) return false;
+        releasePending = false;
+        double error = outcome * OUTCOME_STEP;
+        // A slow flywheel explains a SHORT shot (a fast one a LONG shot); only learn the remainder
+        if( (error != 0.0) && (Math.signum(error) == Math.signum(releasePowerError)) ) {
+            error = Math.signum(error) * Math.max( 0.0, Math.abs(error) - Math.abs(releasePowerError) );
+        }
+        // Split the update between the two bins that bracket this distance
+        double pos = (releaseDistance - BIN_MIN_DIST) / BIN_WIDTH;
+        pos = Math.max( 0.0, Math.min( NUM_BINS-1, pos ) );
+        int    lo = Math.min( (int)pos, NUM_BINS-2 );
+        double w  = pos - lo;
+        boolean hit = (outcome == OUTCOME_HIT);
+        lastUpdate = updateBin( lo, (1.0-w), error, hit ) + updateBin( lo+1, w, error, hit );
+        changed = true;
+        return true;
+    } // reportOutcome
+
+    private double updateBin( int bin, double weight, double error, boolean hit ) {
+        if( weight < 0.05 ) return 0.0;
+        double rate = Math.max( RATE_MIN, Math.min( RATE_MAX, 1.0/(1.0 + count[bin]) ) );
+        double prev = bias[bin];
+        double step = (hit)? -weight*HIT_DECAY*prev : weight*rate*error;
+        bias[bin] = Math.max( -MAX_BIAS, Math.min( MAX_BIAS, prev + step ) );
+        count[bin]++;
+        return bias[bin] - prev;
+    } // updateBin
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void reset() {
+        for( int i=0; i<NUM_BINS; i++ ) {
+            bias[i]  = 0.0;
+            count[i] = 0;
+        }
+        releasePending = false;
+        changed = true;
+    } // reset
+
+    /*--------------------------------------------------------------------------------------------*/
+    // File format: one "bin bias count" line per distance bin
+    public void loadFromFile() {
+        File file = AppUtil.getInstance().getSettingsFile( BIAS_FILE );
+        fileError = null;
+        if( !file.exists() ) return;
+        String[] lines = ReadWriteFile.readFile( file ).split("\n");
+        for( String line : lines ) {
+            line = line.trim();
+            if( line.isEmpty() || line.startsWith("#") ) continue;
+            try {
+                String[] tok = line.split("\\s+");
+                int bin = Integer.parseInt( tok[0] );
+                bias[bin]  = Math.max( -MAX_BIAS, Math.min( MAX_BIAS, Double.parseDouble(tok[1]) ) );
+                count[bin] = Integer.parseInt( tok[2] );
+            } catch( RuntimeException e ) {
+                fileError = BIAS_FILE + ": " + line;
+            }
+        }
+    } // loadFromFile
+
+    // Write the biases if they've changed (at the end of the OpMode, not from the control loop)
+    public void saveIfChanged() {
+        if( changed ) saveToFile();
+    } // saveIfChanged
+
+    public void saveToFile() {
+        StringBuilder sb = new StringBuilder("# bin bias count  (bin 0 = 24in, 12in per bin)\n");
+        for( int i=0; i<NUM_BINS; i++ ) {
+            sb.append( String.format(Locale.US, "%d %.5f %d\n", i, bias[i], count[i]) );
+        }
+        ReadWriteFile.writeFile( AppUtil.getInstance().getSettingsFile(BIAS_FILE), sb.toString() );
+        changed = false;
+    } // saveToFile
+
+} // ShooterPowerLearner
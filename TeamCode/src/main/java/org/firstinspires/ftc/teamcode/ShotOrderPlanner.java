@@ -0,0 +1,155 @@
+package org.firstinspires.ftc.teamcode;
+
+import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P1;
+import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P2;
+import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P3;
+
+import org.firstinspires.ftc.teamcode.HardwareSwyftBot.Ball;
+import org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState;
+
+/**
+ * Chooses the order to shoot the 3 spindexer positions.
+ *
+ * Given where the spindexer is now, the ball color in each slot (spinventory: slot k is the
+ * ball fired from position P(k+1)) and the obelisk motif, the best order is the one that matches
+ * the most motif colors, with ties broken by the least spindexer travel time.  There are only
+ * 3 starts x 27 slot-color combinations x 4 motifs (including "no motif"), each with 6 possible
+ * orders, so every answer is worked out when the planner is built and lookups are a table index.
+ * Plans are immutable and shared; callers must not keep state in them.
+ */
+public class ShotOrderPlanner {
+    // Nominal move times [msec] until we've measured real ones (see HardwareSwyftBot.spinMoveTimeMsec)
+    public final static double NOMINAL_1STEP_MSEC = 270.0;   // P1-P2 or P2-P3
+    public final static double NOMINAL_2STEP_MSEC = 430.0;   // P1-P3
+
+    public final static SpindexerState[] POSITIONS = { SPIN_P1, SPIN_P2, SPIN_P3 };
+
+    private final static int NUM_STARTS = 3;
+    private final static int NUM_INV    = 27;   // 3 slots x 3 colors (None/Purple/Green)
+    private final static int NUM_MOTIFS = 4;    // GPP_21, PGP_22, PPG_23, or none
+    private final static int[][] ORDERS = {     // slot indices, in firing order
+            {0,1,2}, {0,2,1}, {1,0,2}, {1,2,0}, {2,0,1}, {2,1,0} };
+
+    /** One precomputed shot sequence */
+    public static class Plan {
+        private final SpindexerState[] positions;
+        public final int    motifMatches;   // how many shots land the motif color
+        public final double travelMsec;     // estimated spindexer travel (including the first move)
+
+        Plan( int[] order, int motifMatches, double travelMsec ) {
+            positions = new SpindexerState[order.length];
+            for( int i=0; i<order.length; i++ ) positions[i] = POSITIONS[order[i]];
+            this.motifMatches = motifMatches;
+            this.travelMsec   = travelMsec;
+        }
+        public int length()                      { return positions.length; }
+        public SpindexerState position( int i )  { return positions[i]; }
+        public SpindexerState first()            { return positions[0]; }
+    } // Plan
+
+    /** Planner using nominal move times, built at class load */
+    public final static ShotOrderPlanner NOMINAL = new ShotOrderPlanner( nominalMoveTimes() );
+
+    private final Plan[] plans     = new Plan[NUM_STARTS * NUM_INV * NUM_MOTIFS];
+    private final Plan[] bestFirst = new Plan[NUM_INV * NUM_MOTIFS];
+
+    /*--------------------------------------------------------------------------------------------*/
+    // moveMsec[from][to] indexed 0..2 for P1..P3
+    public ShotOrderPlanner( double[][] moveMsec ) {
+        for( int inv=0; inv<NUM_INV; inv++ ) {
+            for( int motif=0; motif<NUM_MOTIFS; motif++ ) {
+                Plan best = null;
+                for( int start=0; start<NUM_STARTS; start++ ) {
+                    Plan plan = solve( start, inv, motif, moveMsec );
+                    plans[index(start,inv,motif)] = plan;
+                    // Best plan if we get to pre-position the spindexer for the first ball
+                    if( (plan.first() == POSITIONS[start]) && isBetter(plan, best) ) best = plan;
+                }
+                bestFirst[inv*NUM_MOTIFS + motif] = (best != null)? best : plans[index(0,inv,motif)];
+            }
+        }
+    } // ShotOrderPlanner
+
+    private static Plan solve( int start, int inv, int motif, double[][] moveMsec ) {
+        Plan best = null;
+        for( int[] order : ORDERS ) {
+            int matches = 0;
+            double travel = 0.0;
+            int from = start;
+            for( int i=0; i<order.length; i++ ) {
+                int slot = order[i];
+                if( (motif < 3) && (slotColor(inv,slot) == motifColor(motif,i)) ) matches++;
+                travel += (slot == from)? 0.0 : moveMsec[from][slot];
+                from = slot;
+            }
+            Plan plan = new Plan( order, matches, travel );
+            if( isBetter(plan, best) ) best = plan;
+        }
+        return best;
+    } // solve
+
+    private static boolean isBetter( Plan plan, Plan best ) {
+        if( best == null ) return true;
+        if( plan.motifMatches != best.motifMatches ) return (plan.motifMatches > best.motifMatches);
+        return (plan.travelMsec < best.travelMsec);
+    } // isBetter
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Best order starting from where the spindexer is right now
+    public Plan plan( SpindexerState start, Ball slot0, Ball slot1, Ball slot2, BallOrder motif ) {
+        return plans[ index( startIndex(start), invIndex(slot0,slot1,slot2), motifIndex(motif) ) ];
+    } // plan
+
+    // Best order when we're free to pre-position the spindexer at the first ball
+    public Plan planFirst( Ball slot0, Ball slot1, Ball slot2, BallOrder motif ) {
+        return bestFirst[ invIndex(slot0,slot1,slot2)*NUM_MOTIFS + motifIndex(motif) ];
+    } // planFirst
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Slot colors for a known load pattern (letters are P1, P2, P3; eg PPG_23 = purple, purple, green)
+    public static Ball loadColor( BallOrder loadOrder, int slot ) {
+        return (motifColor( loadOrder.ordinal(), slot ) == Ball.Green.ordinal())? Ball.Green : Ball.Purple;
+    } // loadColor
+
+    public static double[][] nominalMoveTimes() {
+        double[][] msec = new double[3][3];
+        for( int from=0; from<3; from++ ) {
+            for( int to=0; to<3; to++ ) {
+                int steps = Math.abs( to - from );
+                msec[from][to] = (steps == 0)? 0.0 : (steps == 1)? NOMINAL_1STEP_MSEC : NOMINAL_2STEP_MSEC;
+            }
+        }
+        return msec;
+    } // nominalMoveTimes
+
+    /*--------------------------------------------------------------------------------------------*/
+    private static int index( int start, int inv, int motif ) {
+        return (start*NUM_INV + inv)*NUM_MOTIFS + motif;
+    }
+
+    private static int startIndex( SpindexerState start ) {
+        switch( start ) {
+            case SPIN_H1 : case SPIN_P1 : return 0;
+            case SPIN_H2 : case SPIN_P2 : return 1;
+            default :                     return 2;   // H3, P3, H4
+        }
+    } // startIndex
+
+    private static int invIndex( Ball slot0, Ball slot1, Ball slot2 ) {
+        return slot0.ordinal() + 3*slot1.ordinal() + 9*slot2.ordinal();
+    }
+
+    private static int motifIndex( BallOrder motif ) {
+        return (motif == null)? 3 : motif.ordinal();
+    }
+
+    private static int slotColor( int inv, int slot ) {
+        return (slot == 0)? (inv % 3) : (slot == 1)? ((inv/3) % 3) : (inv/9);
+    }
+
+    // Color of the i'th ball in a motif (GPP_21, PGP_22, PPG_23: the green moves one step each)
+    private static int motifColor( int motif, int i ) {
+        return (i == motif)? Ball.Green.ordinal() : Ball.Purple.ordinal();
+    }
+
+} // ShotOrderPlanner
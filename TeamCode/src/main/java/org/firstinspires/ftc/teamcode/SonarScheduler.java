@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.teamcode.HardwareDrivers.MaxSonarI2CXL;
+
+/**
+ * Non-blocking ping scheduler for one or more MaxSonar I2CXL rangefinders.
+ *
+ * MaxSonarI2CXL.getDistanceSync() sleeps 50 msec per reading, which no control loop can afford.
+ * Here each call to update() does at most one step of a round-robin schedule: if the ping in
+ * flight has had its propagation time, read its result, then ping the next group.  Sonars in
+ * the same group ping together (only put sensors that can't hear each other in one group);
+ * each group pings alone, so sonars in different groups never hear each other's echoes.  An
+ * update() that's too early does no I2C at all.
+ *
+ * Call update() every control loop, or instead call request() every loop to have a background
+ * worker do it (never both).  Each sonar exposes its latest range, the age of that range, and
+ * its measured update rate.  Code that needs a one-off reading outside a control loop uses
+ * getFreshRangeCm(), which waits for the schedule instead of pinging on its own (a separate
+ * ping would collide with the scheduled ones).  The I2C reads happen outside the lock, so
+ * readers never wait on the bus.
+ */
+public class SonarScheduler implements Runnable {
+    public final static int    MAX_SONARS     = 4;
+    public final static long   IDLE_EXIT_MSEC = 500;
+    public final static double RATE_GAIN      = 0.2;   // smoothing of the measured update rate
+
+    private final MaxSonarI2CXL[] sonars = new MaxSonarI2CXL[MAX_SONARS];
+    private final String[] names    = new String[MAX_SONARS];
+    private final int[]    groups   = new int[MAX_SONARS];
+    private int  count     = 0;
+    private int  numGroups = 0;
+    private long pingNanos = 50 * 1000000L;
+
+    // Schedule (whichever thread runs update())
+    private int     group   = -1;     // group whose ping is in flight
+    private boolean pinging = false;
+    private long    pingStartNanos = 0;
+
+    private final int[]    readCm       = new int[MAX_SONARS];   // ranges of the group just read
+
+    // Results (guarded by this; update() notifies when new ones arrive)
+    private final int[]    rangeCm      = new int[MAX_SONARS];
+    private final long[]   resultNanos  = new long[MAX_SONARS];
+    private final long[]   resultPingNanos = new long[MAX_SONARS];   // when that range's ping went out
+    private final double[] intervalMsec = new double[MAX_SONARS];
+
+    // Worker thread
+    private volatile boolean running = false;
+    private volatile long    lastRequestNanos = 0;
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Add a sonar that pings by itself; returns its index
+    public int add( MaxSonarI2CXL sonar, String name ) {
+        return add( sonar, name, numGroups );
+    } // add
+
+    // Add a sonar that pings together with the others in the same group (0..MAX_SONARS-1)
+    public int add( MaxSonarI2CXL sonar, String name, int pingGroup ) {
+        if( count >= MAX_SONARS ) throw new IllegalStateException( "more than " + MAX_SONARS + " sonars" );
+        if( (pingGroup < 0) || (pingGroup >= MAX_SONARS) ) throw new IllegalArgumentException( "ping group " + pingGroup );
+        int i = count++;
+        sonars[i] = sonar;
+        names[i]  = name;
+        groups[i] = pingGroup;
+        numGroups = Math.max( numGroups, pingGroup + 1 );
+        pingNanos = Math.max( pingNanos, sonar.getDefaultPropagationDelay() * 1000000L );
+        return i;
+    } // add
+
+    public void setPingMsec( double msec ) {
+        pingNanos = (long)(msec * 1.0e6);
+    } // setPingMsec
+
+    public int size() {
+        return count;
+    } // size
+
+    public String getName( int i ) {
+        return names[i];
+    } // getName
+
+    /*--------------------------------------------------------------------------------------------*/
+    // One time-slice of the schedule (never waits)
+    public void update() {
+        if( count == 0 ) return;
+        long now = System.nanoTime();
+        if( pinging ) {
+            if( now - pingStartNanos < pingNanos ) return;   // still listening
+            // do the I2C before taking the lock
+            for( int i=0; i<count; i++ ) {
+                readCm[i] = (groups[i] == group)? sonars[i].readRange() : 0;
+            }
+            synchronized( this ) {
+                for( int i=0; i<count; i++ ) {
+                    if( readCm[i] <= 0 ) continue;   // not in this group / no echo data; keep the previous range
+                    if( resultNanos[i] != 0 ) {
+                        double msec = (now - resultNanos[i]) / 1.0e6;
+                        intervalMsec[i] = (intervalMsec[i] == 0.0)? msec : intervalMsec[i] + RATE_GAIN*(msec - intervalMsec[i]);
+                    }
+                    rangeCm[i]         = readCm[i];
+                    resultNanos[i]     = now;
+                    resultPingNanos[i] = pingStartNanos;
+                }
+                notifyAll();
+            }
+            pinging = false;
+        }
+        // Ping the next group that has sonars
+        for( int n=0; n<numGroups; n++ ) {
+            group = (group + 1) % numGroups;
+            if( hasSonars( group ) ) break;
+        }
+        for( int i=0; i<count; i++ ) {
+            if( groups[i] == group ) sonars[i].startPing();
+        }
+        pingStartNanos = System.nanoTime();
+        pinging = true;
+    } // update
+
+    private boolean hasSonars( int g ) {
+        for( int i=0; i<count; i++ ) {
+            if( groups[i] == g ) return true;
+        }
+        return false;
+    } // hasSonars
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Latest range [cm] (0 = no reading yet)
+    public synchronized int getRangeCm( int i ) {
+        return rangeCm[i];
+    } // getRangeCm
+
+    // How old the latest range is [msec] (infinite if there isn't one)
+    public synchronized double ageMsec( int i ) {
+        long t = resultNanos[i];
+        return (t == 0)? Double.POSITIVE_INFINITY : (System.nanoTime() - t) / 1.0e6;
+    } // ageMsec
+
+    // Measured rate at which this sonar gets new ranges
+    public synchronized double updateHz( int i ) {
+        double msec = intervalMsec[i];
+        return (msec > 0.0)? (1000.0 / msec) : 0.0;
+    } // updateHz
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Wait for a range from a ping sent after this call (0 if none within timeoutMsec).  Waits
+    // for the background worker's next result if it's running, otherwise runs the schedule
+    // itself, sleeping until each ping is due; blocks for up to a ping per group, so it's for
+    // one-off readings, not control loops.
+    public int getFreshRangeCm( int i, double timeoutMsec ) {
+        long start    = System.nanoTime();
+        long deadline = start + (long)(timeoutMsec * 1.0e6);
+        try {
+            while( true ) {
+                if( !running ) update();
+                long wait;
+                synchronized( this ) {
+                    if( resultPingNanos[i] >= start ) return rangeCm[i];
+                    long now = System.nanoTime();
+                    if( now >= deadline ) return 0;
+                    if( running ) {
+                        wait = deadline - now;
+                        wait( wait / 1000000L, (int)(wait % 1000000L) );   // until update() has new results
+                        continue;
+                    }
+                    wait = Math.min( deadline, pingStartNanos + pingNanos ) - now;
+                }
+                if( wait > 0 ) Thread.sleep( wait / 1000000L, (int)(wait % 1000000L) );
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    } // getFreshRangeCm
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Call every loop instead of update() to have a thread run the schedule
+    public void request() {
+        lastRequestNanos = System.nanoTime();
+        if( !running && (count > 0) ) {
+            running = true;
+            Thread thread = new Thread( this, "SonarScheduler" );
+            thread.setDaemon( true );
+            thread.start();
+        }
+    } // request
+
+    @Override
+    public void run() {
+        try {
+            while( (System.nanoTime() - lastRequestNanos) < IDLE_EXIT_MSEC * 1000000L ) {
+                update();
+                long wait = pingNanos - (System.nanoTime() - pingStartNanos);
+                if( wait > 0 ) Thread.sleep( wait / 1000000L, (int)(wait % 1000000L) );
+            }
+        } catch( InterruptedException | RuntimeException e ) {
+            // interrupted, or a sonar read failed; a later request() starts a new worker
+        } finally {
+            running = false;
+            synchronized( this ) {
+                notifyAll();   // getFreshRangeCm() callers go back to running the schedule themselves
+            }
+        }
+    } // run
+
+} // SonarScheduler
@@ -0,0 +1,110 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.teamcode.HardwareSwyftBot.Ball;
+
+/**
+ * Contents of the 3 spindexer slots, packed into a single int.
+ *
+ *   bits 0-5 : 2 bits per slot (Ball ordinal: 0=None, 1=Purple, 2=Green), slot 0 in bits 0-1
+ *   bits 6-7 : rotation offset (which slot is currently at the RIGHT position; CENTER and LEFT
+ *              are the next two slots)
+ *
+ * Every operation is a few shifts/masks (no boxing, no lists).  After each change the packed
+ * value is published to a volatile snapshot, so telemetry, planners or another thread can read
+ * a consistent copy of the whole inventory with a single int read and decode it with the static
+ * helpers below.
+ */
+public class Spinventory {
+    // Positions relative to the shooter (see HardwareSwyftBot.SPINDEXER_xxx)
+    public final static int POS_RIGHT  = 0;   // rotate -1 to fire
+    public final static int POS_CENTER = 1;   // no rotation to fire
+    public final static int POS_LEFT   = 2;   // rotate +1 to fire
+
+    private final static int   SLOT_BITS     = 2;
+    private final static int   SLOT_MASK     = 0x3;
+    private final static int   SLOTS_MASK    = 0x3F;
+    private final static int   LO_BITS       = 0x15;   // low bit of each slot
+    private final static int   ROTATION_SHIFT = 6;
+    private final static Ball[] BALLS = Ball.values();
+
+    private int          packed   = (1 << ROTATION_SHIFT);   // empty, slot 1 at RIGHT (spindex = +1)
+    private volatile int snapshot = packed;
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Ball in a physical slot (0..2)
+    public Ball get( int slot ) {
+        return slot( packed, slot );
+    } // get
+
+    public void set( int slot, Ball ball ) {
+        int shift = slot * SLOT_BITS;
+        packed = (packed & ~(SLOT_MASK << shift)) | (ball.ordinal() << shift);
+        snapshot = packed;
+    } // set
+
+    // Ball at a position (POS_RIGHT/CENTER/LEFT) for the current rotation
+    public Ball getAt( int position ) {
+        return at( packed, position );
+    } // getAt
+
+    public void setAt( int position, Ball ball ) {
+        set( slotAt(packed, position), ball );
+    } // setAt
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Spindexer rotation (HardwareSwyftBot.spindex: -1 = right, 0 = center, +1 = left)
+    public void setRotation( int spindex ) {
+        packed = (packed & SLOTS_MASK) | (Math.floorMod(spindex, 3) << ROTATION_SHIFT);
+        snapshot = packed;
+    } // setRotation
+
+    public void rotate( int steps ) {
+        setRotation( rotation(packed) + steps );
+    } // rotate
+
+    public void clear() {
+        packed &= ~SLOTS_MASK;
+        snapshot = packed;
+    } // clear
+
+    public int count( Ball ball ) {
+        return count( packed, ball );
+    } // count
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Consistent copy of the whole inventory (safe to read from any thread, at any time)
+    public int snapshot() {
+        return snapshot;
+    } // snapshot
+
+    /*--------------------------------------------------------------------------------------------*/
+    /* Snapshot decoding                                                                          */
+    /*--------------------------------------------------------------------------------------------*/
+    public static Ball slot( int snap, int slot ) {
+        return BALLS[ (snap >> (slot * SLOT_BITS)) & SLOT_MASK ];
+    } // slot
+
+    public static int rotation( int snap ) {
+        return (snap >> ROTATION_SHIFT) & SLOT_MASK;
+    } // rotation
+
+    public static int slotAt( int snap, int position ) {
+        int slot = rotation(snap) + position;
+        return (slot >= 3)? (slot - 3) : slot;
+    } // slotAt
+
+    public static Ball at( int snap, int position ) {
+        return slot( snap, slotAt(snap, position) );
+    } // at
+
+    public static int count( int snap, Ball ball ) {
+        int lo = snap & LO_BITS;
+        int hi = (snap >> 1) & LO_BITS;
+        switch( ball ) {
+            case Purple : return Integer.bitCount( lo & ~hi );
+            case Green  : return Integer.bitCount( hi & ~lo );
+            default     : return 3 - Integer.bitCount( lo | hi );
+        }
+    } // count
+
+} // Spinventory
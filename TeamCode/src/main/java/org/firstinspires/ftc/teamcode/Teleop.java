@@ -5,6 +5,7 @@ package org.firstinspires.ftc.teamcode;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_DECREMENT;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_INCREMENT;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P1;
+import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P2;
 import static org.firstinspires.ftc.teamcode.HardwareSwyftBot.SpindexerState.SPIN_P3;
 
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
@@ -26,6 +27,8 @@ public abstract class Teleop extends LinearOpMode {
     boolean isAutoShooterAngleGood = false; // false if the robot facing too far away from the target
     boolean isAutoShooterSpeedGood = false; // is shooter motor up to target speed
     boolean autoAimEnabled   = true; // turret power/angle only adjusted when this flag is enabled
+    boolean chassisAssistEnabled = false; // rotate the chassis when the target is beyond turret range (TRIANGLE)
+    double  chassisAssistPower = 0.0;    // CCW rotation power requested by chassis-assisted aiming
 
     boolean blueAlliance;   // set in the Blue/Red
     boolean farAlliance;    //
@@ -121,6 +124,13 @@ public abstract class Teleop extends LinearOpMode {
 //              driverMode = DRIVER_MODE_SINGLE_WHEEL; // allow control of individual drive motors
 //          }
 
+            // Check for an OFF-to-ON toggle of the gamepad1 TRIANGLE button (toggles CHASSIS-ASSIST aiming)
+            if( gamepad1.triangleWasPressed() )
+            {
+                chassisAssistEnabled = !chassisAssistEnabled;
+                chassisAssistPower   = 0.0;
+            }
+
             // Check for an OFF-to-ON toggle of the gamepad1 SQUARE button (toggles DRIVER-CENTRIC drive control)
             if( gamepad1.squareWasPressed() )
             {
@@ -203,23 +213,64 @@ public abstract class Teleop extends LinearOpMode {
 //          }
 //          telemetry.addData("Shooter Velocity", "%.1f %.1f", robot.shooterMotor1Vel, robot.shooterMotor2Vel );
 //          telemetry.addData("Shooter mA", "%.1f %.1f", robot.shooterMotor1Amps, robot.shooterMotor2Amps );
-            telemetry.addData("Turret", "set %.3f get %.3f analog %.3f", robot.turretServoSet, robot.turretServoGet, robot.turretServoPos );
-            telemetry.addData(" ", "in position: %s", (robot.turretServoIsBusy)? "no":"YES");
+            telemetry.addData("Turret", "set %.3f get %.3f last analog %.3f (%.0f msec ago)", robot.turretServoSet,
+                    robot.turretServoGet, robot.turretServoPos, robot.turretTracker.feedbackAgeMsec() );
+            telemetry.addData(" ", "in position: %s (predicted %s, %.0f msec)", (robot.turretServoIsBusy)? "no":"YES",
+                    (robot.turretServoReady)? "YES":"no", robot.turretTracker.arrivalMsec );
+            telemetry.addData("Chassis assist", "%s (tri) %s yaw %.1f deg pwr %.2f", (chassisAssistEnabled)? "ON":"off",
+                    (robot.chassisAssistActive)? "ACTIVE":"idle", robot.chassisAssistYawDeg, chassisAssistPower );
+            telemetry.addData("Shooter bias", "%+.3f at %.0f in (last %+.4f, P2 dpad L/R = short/long)",
+                    robot.shooterLearner.getCorrection(odoShootDistance), odoShootDistance, robot.shooterLearner.lastUpdate );
 //          telemetry.addData("Spindexer", "set=%.2f get=%.2f time=%.0f msec",
 //                  robot.spinServoSetPos, robot.getSpindexerPos(), robot.spinServoTime );
 //          telemetry.addData(" ", "delta=%.3f InPos=%s timeout=%.0f msec",
 //                  robot.spinServoDelta, ((robot.spinServoInPos)? "YES":"no"), robot.spinServoTimeout );
             telemetry.addData("Spindexer",robot.spinServoCurPos  );
-            telemetry.addData("Triple-shoot time","%.0f msec", robot.shoot3Time  );
+            telemetry.addData("Spin msec", "P1-P2 %.0f P2-P1 %.0f P2-P3 %.0f P3-P2 %.0f P1-P3 %.0f P3-P1 %.0f",
+                    robot.getSpindexerMoveTime(SPIN_P1,SPIN_P2), robot.getSpindexerMoveTime(SPIN_P2,SPIN_P1), robot.getSpindexerMoveTime(SPIN_P2,SPIN_P3),
+                    robot.getSpindexerMoveTime(SPIN_P3,SPIN_P2), robot.getSpindexerMoveTime(SPIN_P1,SPIN_P3), robot.getSpindexerMoveTime(SPIN_P3,SPIN_P1) );
+            telemetry.addData("Triple-shoot time","%.0f msec (%s, P2 options) seq %.0f pipe %.0f", robot.shoot3Time,
+                    (robot.shoot3Pipelined)? "PIPELINED":"sequential", robot.shoot3TimeSequential, robot.shoot3TimePipelined );
+            telemetry.addData("Triple-shoot msec", "spin %.0f wait %.0f inject %.0f",
+                    robot.tripleShot.msecInState(HardwareSwyftBot.Shoot3state.SHOOT3_SPIN_WAIT),
+                    robot.tripleShot.msecInState(HardwareSwyftBot.Shoot3state.SHOOT3_INJECT),
+                    robot.tripleShot.msecInState(HardwareSwyftBot.Shoot3state.SHOOT3_INJECT_WAIT) );
+            telemetry.addData("Spindexer jams", "%d (%.0f msec lost, last %.0f msec)%s",
+                    robot.spinJamCount, robot.spinJamTime, robot.spinJamLastMsec, (robot.spinServoJamFailed)? " STUCK":"" );
+            telemetry.addData("Injector stroke", "up %.0f down %.0f msec (peak %.1f deg, %d strokes)",
+                    robot.liftStroke.upMsec, robot.liftStroke.downMsec, robot.liftStroke.peakAngle, robot.liftStroke.strokes );
 //          telemetry.addData("Driver Angle", "%.3f deg", driverAngle );
+            telemetry.addData("Heading", "%.1f deg (%s%s) pinpoint-imu %.1f deg, %d imu reads",
+                    robot.heading.lastHeading(), robot.heading.lastUsed, (robot.heading.pinpointFault)? " FAULT" : "",
+                    robot.heading.lastErrorDeg, robot.heading.imuReads );
 //          telemetry.addData("IMU Angle", "%.3f deg", robot.headingIMU() );
+            telemetry.addData("I2C", "%.1f + %.1f background msec last loop (%d over budget)",
+                    robot.i2cBus.lastLoopMsec, robot.i2cBus.lastBackgroundMsec, robot.i2cBus.overBudgetLoops );
 //          telemetry.addData("Driver Centric", "%.3f deg", (driverAngle - robot.headingIMU()) );
+            int inventory = robot.spinventory.snapshot();
             telemetry.addData("Spinventory", "Spindex: %d SpindexL: %d SpindexR: %d SpindexC:%d",
-                    robot.spindex, robot.spindexerLeft, robot.spindexerRight, robot.spindexerCenter );
+                    robot.spindex, Spinventory.slotAt(inventory,Spinventory.POS_LEFT),
+                    Spinventory.slotAt(inventory,Spinventory.POS_RIGHT), Spinventory.slotAt(inventory,Spinventory.POS_CENTER) );
             telemetry.addData("Spinventory", "Hue: %.1f LeftHue: %.1f RightHue: %.1f",
                     robot.ballHueDetected, robot.leftBallHueDetected, robot.rightBallHueDetected );
-            telemetry.addData("Spinventory", "Left: %s Center: %s Right: %s",
-                robot.getLeftBall(), robot.getCenterBall(), robot.getRightBall() );
+            telemetry.addData("Spinventory", "LeftConf: %.2f (%d reads, %d unseated) RightConf: %.2f (%d reads, %d unseated)",
+                    robot.leftBallClassifier.confidence, robot.leftBallClassifier.reads, robot.leftBallClassifier.unseated,
+                    robot.rightBallClassifier.confidence, robot.rightBallClassifier.reads, robot.rightBallClassifier.unseated );
+            telemetry.addData("Spinventory", "Color latency: %.0f msec (max %.0f)",
+                    robot.ballColorLatencyMsec, robot.ballColorLatencyMax );
+            if( robot.ballPresence != null )
+                telemetry.addData("Spinventory", "Intake: %.1f balls/sec (%d balls) Presence: %.0f Hz %.1f/%.1fms (%d bounces)",
+                        robot.ballPresence.ballsPerSecond(), robot.ballPresence.arrivals,
+                        robot.ballPresence.samplesPerSec, robot.ballPresence.readMsec,
+                        robot.ballPresence.maxReadMsec, robot.ballPresence.bounces );
+            if( robot.laserPresence != null )
+                telemetry.addData("Spinventory", "Laser L: %.0f mm (%.0f%%) R: %.0f mm (%.0f%%) read %.1f msec",
+                        robot.laserPresence.getDistanceMm(BallPresenceSource.LEFT), 100.0*robot.laserPresence.occupancy(BallPresenceSource.LEFT),
+                        robot.laserPresence.getDistanceMm(BallPresenceSource.RIGHT), 100.0*robot.laserPresence.occupancy(BallPresenceSource.RIGHT),
+                        robot.laserPresence.readMsec );
+            telemetry.addData("Spinventory", "Left: %s Center: %s Right: %s (%d balls)",
+                Spinventory.at(inventory,Spinventory.POS_LEFT), Spinventory.at(inventory,Spinventory.POS_CENTER),
+                Spinventory.at(inventory,Spinventory.POS_RIGHT), 3 - Spinventory.count(inventory,HardwareSwyftBot.Ball.None) );
             telemetry.addLine( (robot.isRobot2)? "Robot2" : "Robot1");
             telemetry.addData("CycleTime", "%.1f msec (%.1f Hz)", cycleTimeElapsed, cycleTimeHz);
             telemetry.update();
@@ -228,6 +279,9 @@ public abstract class Teleop extends LinearOpMode {
 //          robot.waitForTick(40);
         } // opModeIsActive
 
+        // Save anything learned during the match (never from inside the control loop)
+        robot.saveLearnedData();
+
 //  robot.spinServoCR.setPower(0.0);  // only for spinServoCR (not currently used)
     } // runOpMode
 
@@ -240,7 +294,7 @@ public abstract class Teleop extends LinearOpMode {
         robot.processTripleShotStateMachine();
         robot.processColorDetection();
         if( enableOdometry ) {
-            robot.updatePinpointFieldPosition();
+            robot.readI2cDevices();  // Pinpoint (and IMU watchdog when due)
             robot.updateLimelightFieldPosition();
         } // enableOdometry
         // Did we start with a non-zero angle and need to reset?
@@ -431,6 +485,10 @@ public abstract class Teleop extends LinearOpMode {
             xTranslation = -gamepad1.left_stick_x * 1.25;
             rotation     = -gamepad1.right_stick_x * 0.50;
         }
+        // Driver isn't rotating? Let chassis-assisted aiming bring the target back into turret range
+        if( Math.abs(gamepad1.right_stick_x) < 0.05 ) {
+            rotation = chassisAssistPower;   // both CCW positive
+        }
         // If BACKWARD drive control, reverse the operator inputs
         if( backwardDriveControl ) {
             yTranslation = -yTranslation;
@@ -473,7 +531,11 @@ public abstract class Teleop extends LinearOpMode {
         y = gamepad1.left_stick_y;
         x = -gamepad1.left_stick_x;
         rx = gamepad1.right_stick_x;
-        botHeading = -robot.headingIMU();  // Assume this returns degrees; negative sign may need adjustment based on IMU convention
+        // Driver isn't rotating? Let chassis-assisted aiming bring the target back into turret range
+        if( Math.abs(rx) < 0.05 ) {
+            rx = -chassisAssistPower;  // rx is CW positive
+        }
+        botHeading = -robot.heading.get();  // same convention as headingIMU() (cached for this loop)
 
         if (gamepad1.square) {
             // The driver presses SQUARE, then uses the left joystick to say what angle the robot
@@ -614,13 +676,18 @@ public abstract class Teleop extends LinearOpMode {
             odoShootDistance = robot.getShootDistance( (blueAlliance)? Alliance.BLUE : Alliance.RED );
             odoShootAngleDeg = robot.getShootAngleDeg( (blueAlliance)? Alliance.BLUE : Alliance.RED );
             // set the turret angle and shooter power
-            isAutoShooterAngleGood = robot.setTurretAngle(odoShootAngleDeg);
+            isAutoShooterAngleGood = robot.setTurretAngleTracking(odoShootAngleDeg);
+            // If the target is beyond turret range, rotate the chassis just enough to bring it
+            // back inside the turret's fast zone (turret keeps tracking while the chassis turns)
+            double assistYaw = robot.computeChassisAssistYaw(odoShootAngleDeg);
+            chassisAssistPower = (chassisAssistEnabled)? robot.computeChassisAssistPower(assistYaw) : 0.0;
             shooterPower = robot.computeShooterPower(odoShootDistance);
             if(shooterMotorsOn) {
                 robot.shooterMotorsSetPower(shooterPower);
             }
         } // autoAimEnabled
         else {
+            chassisAssistPower = 0.0;
             // We're not going to use it to auto-aim, but still compute it for telemetry
             odoShootDistance = robot.getShootDistance( (blueAlliance)? Alliance.BLUE : Alliance.RED );
             odoShootAngleDeg = robot.getShootAngleDeg( (blueAlliance)? Alliance.BLUE : Alliance.RED );
@@ -632,6 +699,7 @@ public abstract class Teleop extends LinearOpMode {
         else if (gamepad1.rightBumperWasPressed()) {
             // reset turret to the center and reset shooter power to FAR zone
             autoAimEnabled = false;
+            chassisAssistPower = 0.0;
             robot.turretServoSetPosition(robot.TURRET_SERVO_INIT);
             shooterPower = 0.55;
             if(shooterMotorsOn) {
@@ -672,6 +740,22 @@ public abstract class Teleop extends LinearOpMode {
         else if( gamepad2.dpadDownWasPressed() ) {
             robot.abortTripleShotStateMachine();
         }
+        // OPTIONS toggles pipelined triple-shot (rotate while the injector is still resetting);
+        // only once the lift clearance margins have been measured
+        if( HardwareSwyftBot.SHOOT3_PIPELINED_OK && gamepad2.optionsWasPressed() ) {
+            robot.shoot3Pipelined = !robot.shoot3Pipelined;
+        }
+        // DPAD LEFT/RIGHT reports the last shot landed SHORT/LONG, SHARE that it was a HIT
+        // (corrects future shooter power)
+        if( gamepad2.dpadLeftWasPressed() ) {
+            robot.shooterLearner.reportOutcome( ShooterPowerLearner.OUTCOME_SHORT );
+        }
+        else if( gamepad2.dpadRightWasPressed() ) {
+            robot.shooterLearner.reportOutcome( ShooterPowerLearner.OUTCOME_LONG );
+        }
+        else if( gamepad2.shareWasPressed() ) {
+            robot.shooterLearner.reportOutcome( ShooterPowerLearner.OUTCOME_HIT );
+        }
     } // processInjector
 
 } // Teleop
@@ -151,6 +151,10 @@ public class TeleopMinibot extends LinearOpMode {
             telemetry.addData("Claw Servo", "%.3f counts", robot.clawServo.getPosition() );
 //          telemetry.addData("Gyro Angle", "%.1f degrees", robot.headingIMU() );
             telemetry.addData("Driver Centric", "%.1f degrees", driverAngle );
+            for( int i=0; i<robot.sonars.size(); i++ ) {
+                telemetry.addData("Sonar", "%s: %d cm (%.0f msec old, %.1f Hz)", robot.sonars.getName(i),
+                        robot.sonars.getRangeCm(i), robot.sonars.ageMsec(i), robot.sonars.updateHz(i) );
+            }
             telemetry.addData("CycleTime", "%.1f msec (%.1f Hz)", elapsedTime, elapsedHz );
             telemetry.update();
 
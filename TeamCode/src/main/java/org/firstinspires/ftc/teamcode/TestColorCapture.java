@@ -0,0 +1,143 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.NormalizedColorSensor;
+import com.qualcomm.robotcore.hardware.NormalizedRGBA;
+import com.qualcomm.robotcore.hardware.SwitchableLight;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Records labeled ball color sensor samples for the offline trainer (tools/ColorThresholdTrainer).
+ *
+ * Put the same kind of ball (or nothing) in the spindexer slot(s) under the sensors, then HOLD:
+ *    SQUARE   = record PURPLE
+ *    TRIANGLE = record GREEN
+ *    CROSS    = record EMPTY
+ * while rotating/wiggling the spindexer by hand so every seating the robot will see is covered.
+ * DPAD LEFT/RIGHT/UP selects the left sensor, right sensor or both.  CIRCLE saves (also saved
+ * when the OpMode stops) to FIRST/settings/ColorSamples.bin.  Sensors use the same gain as
+ * HardwareSwyftBot so the trained calibration matches what the robot sees.
+ *
+ * File format (big-endian, 22 bytes per sample after the header):
+ *    int   FILE_MAGIC, int count
+ *    byte  label (Ball ordinal: 0=None, 1=Purple, 2=Green), byte sensor (0=left, 1=right)
+ *    float red, green, blue, alpha, distanceMm (NaN if the sensor can't measure distance)
+ */
+@TeleOp(name = "TestColorCapture", group = "Test")
+//@Disabled
+public class TestColorCapture extends LinearOpMode {
+    public final static String SAMPLE_FILE = "ColorSamples.bin";
+    public final static int    FILE_MAGIC  = 0x42435331;   // "BCS1"
+    public final static int    MAX_SAMPLES = 20000;
+    public final static float  SENSOR_GAIN = 10.0F;        // same as HardwareSwyftBot
+
+    private final static String[] LABELS = { "EMPTY", "PURPLE", "GREEN" };
+
+    // Recorded samples (preallocated; nothing allocated per sample)
+    private final byte[]  label    = new byte[MAX_SAMPLES];
+    private final byte[]  sensor   = new byte[MAX_SAMPLES];
+    private final float[] red      = new float[MAX_SAMPLES];
+    private final float[] green    = new float[MAX_SAMPLES];
+    private final float[] blue     = new float[MAX_SAMPLES];
+    private final float[] alpha    = new float[MAX_SAMPLES];
+    private final float[] distance = new float[MAX_SAMPLES];
+    private int count = 0;
+    private final int[] perLabel = new int[3];
+
+    private NormalizedColorSensor[] colorSensors = new NormalizedColorSensor[2];
+    private String saveStatus = "not saved";
+
+    @Override
+    public void runOpMode() {
+        colorSensors[0] = hardwareMap.get(NormalizedColorSensor.class, "LeftColorSensor");
+        colorSensors[1] = hardwareMap.get(NormalizedColorSensor.class, "RightColorSensor");
+        for( NormalizedColorSensor cs : colorSensors ) {
+            if( cs instanceof SwitchableLight ) ((SwitchableLight) cs).enableLight(true);
+            cs.setGain( SENSOR_GAIN );
+        }
+        boolean useLeft = true, useRight = true;
+
+        waitForStart();
+
+        try {
+            while( opModeIsActive() ) {
+                if( gamepad1.dpad_left )  { useLeft = true;   useRight = false; }
+                if( gamepad1.dpad_right ) { useLeft = false;  useRight = true;  }
+                if( gamepad1.dpad_up )    { useLeft = true;   useRight = true;  }
+                int recordLabel = -1;
+                if( gamepad1.square )   recordLabel = HardwareSwyftBot.Ball.Purple.ordinal();
+                if( gamepad1.triangle ) recordLabel = HardwareSwyftBot.Ball.Green.ordinal();
+                if( gamepad1.cross )    recordLabel = HardwareSwyftBot.Ball.None.ordinal();
+                if( gamepad1.circleWasPressed() ) saveSamples();
+
+                for( int s=0; s<2; s++ ) {
+                    if( (s == 0)? !useLeft : !useRight ) continue;
+                    NormalizedRGBA colors = colorSensors[s].getNormalizedColors();
+                    double dist = (colorSensors[s] instanceof DistanceSensor)?
+                            ((DistanceSensor) colorSensors[s]).getDistance( DistanceUnit.MM ) : Double.NaN;
+                    if( (recordLabel >= 0) && (count < MAX_SAMPLES) ) {
+                        label[count]    = (byte) recordLabel;
+                        sensor[count]   = (byte) s;
+                        red[count]      = colors.red;
+                        green[count]    = colors.green;
+                        blue[count]     = colors.blue;
+                        alpha[count]    = colors.alpha;
+                        distance[count] = (float) dist;
+                        count++;
+                        perLabel[recordLabel]++;
+                    }
+                    telemetry.addData( (s == 0)? "Left" : "Right", "r=%.4f g=%.4f b=%.4f a=%.4f dist=%.1f mm",
+                            colors.red, colors.green, colors.blue, colors.alpha, dist );
+                }
+                telemetry.addLine("HOLD square=PURPLE triangle=GREEN cross=EMPTY, circle=SAVE");
+                telemetry.addData("Sensors", "%s (dpad left/right/up)",
+                        (useLeft && useRight)? "BOTH" : ((useLeft)? "LEFT" : "RIGHT") );
+                telemetry.addData("Recording", (recordLabel >= 0)? LABELS[recordLabel] : "-" );
+                telemetry.addData("Samples", "%d  (empty %d, purple %d, green %d)%s", count,
+                        perLabel[0], perLabel[1], perLabel[2], (count >= MAX_SAMPLES)? " FULL" : "" );
+                telemetry.addData("File", saveStatus );
+                telemetry.update();
+            }
+        } finally {
+            saveSamples();
+        }
+    } // runOpMode
+
+    /*--------------------------------------------------------------------------------------------*/
+    private void saveSamples() {
+        // Nothing captured: keep the previous capture file rather than overwrite it
+        if( count == 0 ) {
+            saveStatus = "nothing to save";
+            return;
+        }
+        File file = AppUtil.getInstance().getSettingsFile( SAMPLE_FILE );
+        try( DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( new FileOutputStream(file) )) ) {
+            out.writeInt( FILE_MAGIC );
+            out.writeInt( count );
+            for( int i=0; i<count; i++ ) {
+                out.writeByte( label[i] );
+                out.writeByte( sensor[i] );
+                out.writeFloat( red[i] );
+                out.writeFloat( green[i] );
+                out.writeFloat( blue[i] );
+                out.writeFloat( alpha[i] );
+                out.writeFloat( distance[i] );
+            }
+            saveStatus = count + " samples saved to " + SAMPLE_FILE;
+        } catch( IOException e ) {
+            saveStatus = "SAVE FAILED: " + e.getMessage();
+        }
+    } // saveSamples
+
+} // TestColorCapture
@@ -0,0 +1,40 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+/**
+ * Per-device I2C bus report (see I2cBusScheduler), kept out of competition Teleop's telemetry.
+ *
+ * Runs the same per-loop sensor work as Teleop (bulk read, color detection, I2C devices) with the
+ * drivetrain idle, and shows each device's read count, average/max read time, rate and deferrals,
+ * plus the loop totals.  CROSS resets the statistics.
+ */
+@TeleOp(name = "TestI2cBus", group = "Test")
+//@Disabled
+public class TestI2cBus extends LinearOpMode {
+    HardwareSwyftBot robot = new HardwareSwyftBot();
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        robot.init(hardwareMap, false);
+
+        waitForStart();
+
+        while( opModeIsActive() ) {
+            robot.readBulkData();
+            robot.processColorDetection();
+            robot.readI2cDevices();
+            if( gamepad1.crossWasPressed() ) robot.i2cBus.resetStats();
+
+            for( int i=0; i<robot.i2cBus.size(); i++ ) {
+                telemetry.addData("I2C", robot.i2cBus.format(i) );
+            }
+            telemetry.addData("Loop", "%.1f + %.1f background msec (%d over budget)",
+                    robot.i2cBus.lastLoopMsec, robot.i2cBus.lastBackgroundMsec, robot.i2cBus.overBudgetLoops );
+            telemetry.addLine("CROSS = reset statistics");
+            telemetry.update();
+        }
+    } // runOpMode
+
+} // TestI2cBus
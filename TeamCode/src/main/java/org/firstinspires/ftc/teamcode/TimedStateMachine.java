@@ -0,0 +1,268 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import java.util.Locale;
+
+/**
+ * Small reusable state machine engine for robot mechanisms.
+ *
+ * States are the values of an enum.  Each state can have an entry action, an exit action,
+ * a timeout (with the state to go to when it expires) and any number of guarded transitions,
+ * which are checked in the order they were added (before the timeout).  update() takes at most
+ * one transition per call, so a mechanism behaves like the hand-written switch it replaces.
+ * Entry actions run as soon as the state is entered; what a switch did in a state's own case
+ * (one update later) goes in that state's transition action instead.
+ *
+ * Everything is allocated while the machine is being configured; update() and the transition
+ * log do no allocation, so it's safe to run every control loop.  The log is a ring buffer of the
+ * most recent transitions (timestamp, from, to, why) and msecInState() totals the time spent in
+ * each state since the last resetStats(), which shows where each millisecond of a sequence went.
+ */
+public class TimedStateMachine<S extends Enum<S>> {
+
+    public interface Action { void run(); }
+    public interface Guard  { boolean test(); }
+    public interface Target<S> { S next(); }   // computes a target state when the transition fires
+
+    public final static Guard ALWAYS = () -> true;
+
+    public final static int LOG_SIZE = 64;
+
+    // Why a transition happened (as recorded in the log)
+    public final static int CAUSE_GUARD   = 0;
+    public final static int CAUSE_TIMEOUT = 1;
+    public final static int CAUSE_FORCED  = 2;
+    public final static String[] CAUSE_NAMES = { "guard", "timeout", "forced" };
+
+    public final String name;
+    private final S[] states;
+
+    // Per-state configuration (indexed by ordinal)
+    private final Action[] onEnter;
+    private final Action[] onExit;
+    private final double[] timeoutMsec;      // 0 = no timeout
+    private final Object[] timeoutTarget;    // S
+    private final Action[] timeoutAction;
+    private final Guard[][]     guards;
+    private final Object[][]    targets;     // S or Target<S>
+    private final Action[][]    actions;
+    private final int[]         numTransitions;
+
+    // Runtime state
+    private final ElapsedTime clock = new ElapsedTime();
+    private S      current;
+    private double stateStartMsec = 0.0;
+    private final double[] stateMsec;        // accumulated msec in each state (since resetStats)
+    private final int[]    stateEntries;     // times each state was entered (since resetStats)
+
+    // Transition log (ring buffer)
+    private final double[] logMsec  = new double[LOG_SIZE];
+    private final int[]    logFrom  = new int[LOG_SIZE];
+    private final int[]    logTo    = new int[LOG_SIZE];
+    private final int[]    logCause = new int[LOG_SIZE];
+    private int logNext  = 0;
+    private int logCount = 0;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public TimedStateMachine( String name, Class<S> stateClass, S initial ) {
+        this.name   = name;
+        this.states = stateClass.getEnumConstants();
+        int n = states.length;
+        onEnter        = new Action[n];
+        onExit         = new Action[n];
+        timeoutMsec    = new double[n];
+        timeoutTarget  = new Object[n];
+        timeoutAction  = new Action[n];
+        guards         = new Guard[n][0];
+        targets        = new Object[n][0];
+        actions        = new Action[n][0];
+        numTransitions = new int[n];
+        stateMsec      = new double[n];
+        stateEntries   = new int[n];
+        current = initial;
+    } // TimedStateMachine
+
+    /*--------------------------------------------------------------------------------------------*/
+    /* Configuration (call these once, while building the machine)                                */
+    /*--------------------------------------------------------------------------------------------*/
+    public TimedStateMachine<S> onEnter( S state, Action action ) {
+        onEnter[state.ordinal()] = action;
+        return this;
+    } // onEnter
+
+    public TimedStateMachine<S> onExit( S state, Action action ) {
+        onExit[state.ordinal()] = action;
+        return this;
+    } // onExit
+
+    public TimedStateMachine<S> transition( S from, Guard guard, S to ) {
+        return addTransition( from, guard, to, null );
+    } // transition
+
+    public TimedStateMachine<S> transition( S from, Guard guard, S to, Action action ) {
+        return addTransition( from, guard, to, action );
+    } // transition
+
+    public TimedStateMachine<S> transition( S from, Guard guard, Target<S> to ) {
+        return addTransition( from, guard, to, null );
+    } // transition
+
+    public TimedStateMachine<S> transition( S from, Guard guard, Target<S> to, Action action ) {
+        return addTransition( from, guard, to, action );
+    } // transition
+
+    // Leave the state after timeoutMsec.  The timeout may be changed at any time (for example
+    // from the entry action, for a timeout that's learned or depends on the move).
+    public TimedStateMachine<S> timeout( S state, double msec, S to ) {
+        return timeout( state, msec, to, null );
+    } // timeout
+
+    public TimedStateMachine<S> timeout( S state, double msec, S to, Action action ) {
+        int i = state.ordinal();
+        timeoutMsec[i]   = msec;
+        timeoutTarget[i] = to;
+        timeoutAction[i] = action;
+        return this;
+    } // timeout
+
+    public void setTimeout( S state, double msec ) {
+        timeoutMsec[state.ordinal()] = msec;
+    } // setTimeout
+
+    private TimedStateMachine<S> addTransition( S from, Guard guard, Object to, Action action ) {
+        int i = from.ordinal();
+        int n = numTransitions[i];
+        Guard[]  g = new Guard[n+1];
+        Object[] t = new Object[n+1];
+        Action[] a = new Action[n+1];
+        System.arraycopy( guards[i],  0, g, 0, n );
+        System.arraycopy( targets[i], 0, t, 0, n );
+        System.arraycopy( actions[i], 0, a, 0, n );
+        g[n] = guard;  t[n] = to;  a[n] = action;
+        guards[i] = g;  targets[i] = t;  actions[i] = a;
+        numTransitions[i] = n+1;
+        return this;
+    } // addTransition
+
+    /*--------------------------------------------------------------------------------------------*/
+    /* Runtime                                                                                    */
+    /*--------------------------------------------------------------------------------------------*/
+    public S getState() {
+        return current;
+    } // getState
+
+    public boolean isIn( S state ) {
+        return (current == state);
+    } // isIn
+
+    public double timeInState() {
+        return clock.milliseconds() - stateStartMsec;
+    } // timeInState
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Check the guards of the current state (then its timeout); take the first one that's ready.
+    // Returns true if the state changed.
+    public boolean update() {
+        int i = current.ordinal();
+        double now = clock.milliseconds();
+        Guard[] g = guards[i];
+        for( int k=0; k<numTransitions[i]; k++ ) {
+            if( g[k].test() ) {
+                if( actions[i][k] != null ) actions[i][k].run();
+                change( resolve(targets[i][k]), CAUSE_GUARD, now );
+                return true;
+            }
+        }
+        if( (timeoutMsec[i] > 0.0) && ((now - stateStartMsec) > timeoutMsec[i]) ) {
+            if( timeoutAction[i] != null ) timeoutAction[i].run();
+            change( resolve(timeoutTarget[i]), CAUSE_TIMEOUT, now );
+            return true;
+        }
+        return false;
+    } // update
+
+    // Go to a state right now, regardless of guards (re-entering the current state is allowed,
+    // and runs its exit/entry actions again)
+    public void transitionTo( S state ) {
+        change( state, CAUSE_FORCED, clock.milliseconds() );
+    } // transitionTo
+
+    @SuppressWarnings("unchecked")
+    private S resolve( Object to ) {
+        return (to instanceof Target)? ((Target<S>)to).next() : (S)to;
+    } // resolve
+
+    private void change( S to, int cause, double now ) {
+        int from = current.ordinal();
+        if( onExit[from] != null ) onExit[from].run();
+        stateMsec[from] += now - stateStartMsec;
+        // Log it
+        logMsec[logNext]  = now;
+        logFrom[logNext]  = from;
+        logTo[logNext]    = to.ordinal();
+        logCause[logNext] = cause;
+        logNext = (logNext + 1) % LOG_SIZE;
+        if( logCount < LOG_SIZE ) logCount++;
+        // Enter the new state
+        current = to;
+        stateStartMsec = now;
+        stateEntries[to.ordinal()]++;
+        if( onEnter[to.ordinal()] != null ) onEnter[to.ordinal()].run();
+    } // change
+
+    /*--------------------------------------------------------------------------------------------*/
+    /* Statistics and transition log                                                              */
+    /*--------------------------------------------------------------------------------------------*/
+    public void resetStats() {
+        for( int i=0; i<states.length; i++ ) {
+            stateMsec[i]    = 0.0;
+            stateEntries[i] = 0;
+        }
+        stateMsec[current.ordinal()] -= timeInState();  // only count from now on
+    } // resetStats
+
+    // Total msec spent in this state since resetStats() (including the current visit)
+    public double msecInState( S state ) {
+        double msec = stateMsec[state.ordinal()];
+        if( state == current ) msec += timeInState();
+        return msec;
+    } // msecInState
+
+    public int entries( S state ) {
+        return stateEntries[state.ordinal()];
+    } // entries
+
+    public void clearLog() {
+        logNext  = 0;
+        logCount = 0;
+    } // clearLog
+
+    // Log entries are numbered 0 (oldest still held) to logSize()-1 (most recent)
+    public int logSize() {
+        return logCount;
+    } // logSize
+
+    private int logIndex( int n ) {
+        return (logNext - logCount + n + LOG_SIZE) % LOG_SIZE;
+    }
+
+    public double logMsec( int n )  { return logMsec[ logIndex(n) ]; }
+    public S      logFrom( int n )  { return states[ logFrom[logIndex(n)] ]; }
+    public S      logTo( int n )    { return states[ logTo[logIndex(n)] ]; }
+    public int    logCause( int n ) { return logCause[ logIndex(n) ]; }
+
+    // Human-readable log (for telemetry/debug, NOT the control loop: this allocates)
+    public String formatLog( int maxEntries ) {
+        StringBuilder sb = new StringBuilder();
+        int first = Math.max( 0, logCount - maxEntries );
+        double prev = (first > 0)? logMsec(first-1) : ((logCount > 0)? logMsec(0) : 0.0);
+        for( int n=first; n<logCount; n++ ) {
+            sb.append( String.format(Locale.US, "%s: +%.0f %s>%s (%s)\n", name, logMsec(n) - prev,
+                    logFrom(n), logTo(n), CAUSE_NAMES[logCause(n)]) );
+            prev = logMsec(n);
+        }
+        return sb.toString();
+    } // formatLog
+
+} // TimedStateMachine
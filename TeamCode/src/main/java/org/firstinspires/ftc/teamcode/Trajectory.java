@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * One precomputed autonomous path (see TrajectoryLibrary and tools/TrajectoryCompiler).
+ *
+ * Samples are evenly spaced in time (every dt seconds) and hold the field pose, the field
+ * velocity and the field acceleration the compiler planned for that moment; sample() linearly
+ * interpolates between them, so following a trajectory costs a few multiplies per loop.  The
+ * time each waypoint of the path is passed is stored too.
+ */
+public class Trajectory {
+    public final int   key;        // TrajectoryLibrary.key() of the path's waypoints
+    public final float dt;         // seconds between samples
+    final float[] x, y, heading;   // inches, inches, degrees (+CCW)
+    final float[] vx, vy, omega;   // in/sec, in/sec, deg/sec
+    final float[] ax, ay;          // in/sec^2 (for feedforward)
+    final float[] waypointTime;    // seconds
+
+    // Interpolated state from the most recent sample()
+    public double sx, sy, sHeading, sVx, sVy, sOmega, sAx, sAy;
+
+    /*--------------------------------------------------------------------------------------------*/
+    Trajectory( int key, float dt, int numSamples, int numWaypoints ) {
+        this.key = key;
+        this.dt  = dt;
+        x  = new float[numSamples];  y  = new float[numSamples];  heading = new float[numSamples];
+        vx = new float[numSamples];  vy = new float[numSamples];  omega   = new float[numSamples];
+        ax = new float[numSamples];  ay = new float[numSamples];
+        waypointTime = new float[numWaypoints];
+    } // Trajectory
+
+    public double duration() {
+        return dt * (x.length - 1);
+    } // duration
+
+    public double startX()       { return x[0]; }
+    public double startY()       { return y[0]; }
+    public double startHeading() { return heading[0]; }
+
+    public double getWaypointTime( int k ) {
+        return waypointTime[k];
+    } // getWaypointTime
+
+    /*--------------------------------------------------------------------------------------------*/
+    // State at time t [sec] (held at the final sample after the end)
+    public void sample( double t ) {
+        int last = x.length - 1;
+        double pos = Math.max( 0.0, t / dt );
+        int    i   = Math.min( (int)pos, last );
+        double f   = (i < last)? (pos - i) : 0.0;
+        int    j   = Math.min( i + 1, last );
+        sx       = x[i]  + f * (x[j]  - x[i]);
+        sy       = y[i]  + f * (y[j]  - y[i]);
+        sHeading = heading[i] + f * (heading[j] - heading[i]);   // stored unwrapped
+        sVx      = vx[i] + f * (vx[j] - vx[i]);
+        sVy      = vy[i] + f * (vy[j] - vy[i]);
+        sOmega   = omega[i] + f * (omega[j] - omega[i]);
+        sAx      = ax[i] + f * (ax[j] - ax[i]);
+        sAy      = ay[i] + f * (ay[j] - ay[i]);
+        if( t >= duration() ) {
+            sVx = 0.0;  sVy = 0.0;  sOmega = 0.0;  sAx = 0.0;  sAy = 0.0;
+        }
+    } // sample
+
+} // Trajectory
@@ -0,0 +1,180 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ReadWriteFile;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Precomputed trajectories for the autonomous paths.
+ *
+ * Planning a time-optimal trajectory (spline, speed limits from our drivetrain, forward/backward
+ * acceleration passes) is too slow to redo in the control loop, so it's done on a laptop:
+ *    1) set AutonomousBase.precomputedPaths = true (it's off by default, and nothing is recorded
+ *       without it) and run each autonomous once.  Every path that has no trajectory yet is
+ *       driven the usual way (drivePathSmooth if smoothPaths is set, otherwise straight) and its
+ *       waypoints are appended to AutoPaths.txt when the OpMode ends (saveIfChanged; paths
+ *       already in the file aren't added again)
+ *    2) adb pull /sdcard/FIRST/settings/AutoPaths.txt
+ *       javac TrajectoryCompiler.java && java TrajectoryCompiler AutoPaths.txt
+ *       adb push AutoTrajectories.bin /sdcard/FIRST/settings/
+ * From then on those paths are driven by sampling the stored trajectory (AutonomousBase.
+ * drivePathTrajectory).  A path is identified by key(), a hash of its waypoints, so editing a
+ * path in the code just makes it fall back to the usual driving (and get recorded again).
+ */
+public class TrajectoryLibrary {
+    public final static String TRAJECTORY_FILE = "AutoTrajectories.bin";
+    public final static String PATH_FILE       = "AutoPaths.txt";
+    public final static int    FILE_MAGIC      = 0x4154524A;   // "ATRJ" (must match TrajectoryCompiler)
+    public final static int    FILE_VERSION    = 1;
+    public final static int    MAX_TRAJECTORIES = 32;
+
+    private final Trajectory[] trajectories = new Trajectory[MAX_TRAJECTORIES];
+    private int count = 0;
+    private final static int WAYPOINT_VALUES = 6;   // x, y, angle, speedMax, turnMax, driveType
+
+    // Paths to append to PATH_FILE (copied when recorded, written by saveIfChanged)
+    private final int[] recorded = new int[MAX_TRAJECTORIES];   // keys in PATH_FILE or pending
+    private int numRecorded = 0;
+    private final int[]      pendingKey  = new int[MAX_TRAJECTORIES];
+    private final double[][] pendingData = new double[MAX_TRAJECTORIES][3 + WAYPOINT_VALUES * MechanismScheduler.MAX_WAYPOINTS];
+    private final int[]      pendingSize = new int[MAX_TRAJECTORIES];
+    private int numPending = 0;
+
+    public String fileError = null;
+
+    /*--------------------------------------------------------------------------------------------*/
+    // File format (big-endian): magic, version, count, then for each trajectory
+    //    key, dt, numSamples, numWaypoints, waypoint times[numWaypoints],
+    //    numSamples x { x, y, heading, vx, vy, omega, ax, ay }   (all floats)
+    public void load() {
+        count     = 0;
+        fileError = null;
+        loadRecordedKeys();
+        File file = AppUtil.getInstance().getSettingsFile( TRAJECTORY_FILE );
+        if( !file.exists() ) return;
+        try( DataInputStream in = new DataInputStream(
+                new BufferedInputStream( new FileInputStream(file) )) ) {
+            if( in.readInt() != FILE_MAGIC ) throw new IOException( "not a trajectory file" );
+            if( in.readInt() != FILE_VERSION ) throw new IOException( "wrong version" );
+            int n = in.readInt();
+            for( int t=0; (t < n) && (count < MAX_TRAJECTORIES); t++ ) {
+                int   key          = in.readInt();
+                float dt           = in.readFloat();
+                int   numSamples   = in.readInt();
+                int   numWaypoints = in.readInt();
+                Trajectory traj = new Trajectory( key, dt, numSamples, numWaypoints );
+                for( int k=0; k<numWaypoints; k++ ) traj.waypointTime[k] = in.readFloat();
+                for( int i=0; i<numSamples; i++ ) {
+                    traj.x[i]  = in.readFloat();  traj.y[i]  = in.readFloat();  traj.heading[i] = in.readFloat();
+                    traj.vx[i] = in.readFloat();  traj.vy[i] = in.readFloat();  traj.omega[i]   = in.readFloat();
+                    traj.ax[i] = in.readFloat();  traj.ay[i] = in.readFloat();
+                }
+                trajectories[count++] = traj;
+            }
+        } catch( IOException | RuntimeException e ) {
+            count     = 0;
+            fileError = TRAJECTORY_FILE + ": " + e.getMessage();
+        }
+    } // load
+
+    // Keys of the paths already in PATH_FILE, so they aren't appended again
+    private void loadRecordedKeys() {
+        numRecorded = 0;
+        numPending  = 0;
+        File file = AppUtil.getInstance().getSettingsFile( PATH_FILE );
+        if( !file.exists() ) return;
+        for( String line : ReadWriteFile.readFile( file ).split("\n") ) {
+            if( !line.startsWith("path ") || (numRecorded >= MAX_TRAJECTORIES) ) continue;
+            try {
+                recorded[numRecorded++] = Integer.parseInt( line.split("\\s+")[1] );
+            } catch( RuntimeException e ) {
+                numRecorded--;
+                fileError = PATH_FILE + ": " + line;
+            }
+        }
+    } // loadRecordedKeys
+
+    public int size() {
+        return count;
+    } // size
+
+    // Trajectory for these waypoints (null = none, use the follower)
+    public Trajectory find( MechanismScheduler path ) {
+        int key = key( path );
+        for( int t=0; t<count; t++ ) {
+            if( trajectories[t].key == key ) return trajectories[t];
+        }
+        return null;
+    } // find
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Identifies a path by its waypoints (to 0.1 inch/degree and 0.01 power)
+    public static int key( MechanismScheduler path ) {
+        int h = path.size();
+        for( int k=0; k<path.size(); k++ ) {
+            h = 31*h + (int)Math.round( path.getX(k) * 10.0 );
+            h = 31*h + (int)Math.round( path.getY(k) * 10.0 );
+            h = 31*h + (int)Math.round( path.getAngle(k) * 10.0 );
+            h = 31*h + (int)Math.round( path.getSpeed(k) * 100.0 );
+            h = 31*h + (int)Math.round( path.getTurn(k) * 100.0 );
+            h = 31*h + path.getDriveType(k);
+        }
+        return h;
+    } // key
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Remember a path (and the pose it was started from) for PATH_FILE, unless it's already there.
+    // Only copies numbers (this runs while driving); saveIfChanged() does the formatting and I/O.
+    public void record( MechanismScheduler path, double startX, double startY, double startDeg ) {
+        int key = key( path );
+        for( int r=0; r<numRecorded; r++ ) {
+            if( recorded[r] == key ) return;
+        }
+        if( numPending >= MAX_TRAJECTORIES ) return;
+        if( numRecorded < MAX_TRAJECTORIES ) recorded[numRecorded++] = key;
+        int p = numPending++;
+        double[] data = pendingData[p];
+        pendingKey[p]  = key;
+        pendingSize[p] = path.size();
+        data[0] = startX;  data[1] = startY;  data[2] = startDeg;
+        for( int k=0; k<path.size(); k++ ) {
+            int i = 3 + WAYPOINT_VALUES * k;
+            data[i]   = path.getX(k);      data[i+1] = path.getY(k);     data[i+2] = path.getAngle(k);
+            data[i+3] = path.getSpeed(k);  data[i+4] = path.getTurn(k);  data[i+5] = path.getDriveType(k);
+        }
+    } // record
+
+    // Append the paths recorded this run to PATH_FILE for the TrajectoryCompiler (call once, when
+    // the OpMode stops):
+    //    path <key> <startX> <startY> <startDeg> <numWaypoints>
+    //    <x> <y> <angle> <speedMax> <turnMax> <driveType>     (one line per waypoint)
+    public void saveIfChanged() {
+        if( numPending == 0 ) return;
+        StringBuilder sb = new StringBuilder();
+        for( int p=0; p<numPending; p++ ) {
+            double[] data = pendingData[p];
+            sb.append( String.format( Locale.US, "path %d %.2f %.2f %.2f %d\n", pendingKey[p], data[0], data[1], data[2], pendingSize[p] ) );
+            for( int k=0; k<pendingSize[p]; k++ ) {
+                int i = 3 + WAYPOINT_VALUES * k;
+                sb.append( String.format( Locale.US, "%.2f %.2f %.2f %.3f %.3f %d\n", data[i], data[i+1],
+                        data[i+2], data[i+3], data[i+4], (int)data[i+5] ) );
+            }
+        }
+        File file = AppUtil.getInstance().getSettingsFile( PATH_FILE );
+        try( FileWriter out = new FileWriter( file, true ) ) {
+            out.write( sb.toString() );
+            numPending = 0;
+        } catch( IOException e ) {
+            fileError = PATH_FILE + ": " + e.getMessage();
+        }
+    } // saveIfChanged
+
+} // TrajectoryLibrary
@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * Predictive position model for the 5-turn turret servos.
+ *
+ * The servos don't report when they arrive, and averaging both analog feedback channels every
+ * loop just to find out is wasteful.  Instead we model the servo slew rate, predict where the
+ * turret is (and when it will arrive), and only sample the analog feedback when the prediction
+ * needs confirming: around the predicted arrival time, and periodically to resync the model.
+ * While a move is being timed we also sample from the earliest time the servo could possibly
+ * arrive (at SLEW_RATE_MAX), so a servo that's faster than the model is seen when it gets there.
+ * All positions are in the 0..1 servo domain (same as turretServoSet / turretServoPos).
+ */
+public class TurretTracker {
+    // Estimated slew rate of the 5-turn servo pair under turret load [servo units/sec]
+    // (0.44 units = 180deg of turret rotation; refined on-line each time a move is confirmed)
+    public final static double SLEW_RATE_INIT    = 0.60;
+    public final static double SLEW_RATE_MIN     = 0.20;
+    public final static double SLEW_RATE_MAX     = 1.50;
+    public final static double SLEW_RATE_GAIN    = 0.25;   // learning rate for slew rate updates
+    public final static double IN_POS_TOLERANCE  = 0.009;  // same tolerance as the analog check
+    public final static double CMD_DEADBAND      = 0.0015; // don't re-issue smaller setpoint changes
+    public final static double CONFIRM_LEAD_MSEC = 40.0;   // start sampling this long before arrival
+    public final static double RESYNC_MSEC       = 250.0;  // sample at least this often when idle
+    public final static double FEEDFWD_LATENCY   = 0.050;  // loop + servo command latency [sec]
+    public final static double FEEDFWD_MAX_LEAD  = 0.250;  // cap the feed-forward look-ahead [sec]
+
+    public double  slewRate       = SLEW_RATE_INIT;
+    public double  commandedPos   = 0.0;   // last setpoint sent to the servos
+    public double  predictedPos   = 0.0;   // where the model thinks the turret is right now
+    public double  measuredPos    = 0.0;   // most recent analog feedback sample
+    public double  arrivalMsec    = 0.0;   // predicted msec until we reach commandedPos
+    public boolean predictedInPos = true;  // model says we're there (OK to start shooting)
+    public boolean confirmedInPos = true;  // analog feedback agrees
+    public int     feedbackReads  = 0;     // how many times we've actually sampled the analog
+
+    private double  moveStartPos  = 0.0;
+    private double  earliestArrivalSec = 0.0;   // move distance at SLEW_RATE_MAX
+    private boolean moveInitiated = false;
+    private boolean hasCommand    = false;  // servos are unpowered until the first setPosition()
+    private final ElapsedTime moveTimer   = new ElapsedTime();
+    private final ElapsedTime updateTimer = new ElapsedTime();
+    private final ElapsedTime resyncTimer = new ElapsedTime();
+
+    /*--------------------------------------------------------------------------------------------*/
+    public void reset( double position ) {
+        commandedPos   = position;
+        predictedPos   = position;
+        measuredPos    = position;
+        arrivalMsec    = 0.0;
+        predictedInPos = true;
+        confirmedInPos = false;  // force one confirmation read
+        moveInitiated  = false;
+        hasCommand     = false;
+        updateTimer.reset();
+        resyncTimer.reset();
+    } // reset
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Is this setpoint different enough from the current one to be worth sending to the servos?
+    public boolean isNewSetpoint( double position ) {
+        return !hasCommand || (Math.abs(position - commandedPos) >= CMD_DEADBAND);
+    } // isNewSetpoint
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Record a new setpoint that has been sent to the servos
+    public void command( double position ) {
+        // Only time moves that are long enough to give a meaningful slew rate
+        moveInitiated  = (Math.abs(position - predictedPos) > 4.0*IN_POS_TOLERANCE);
+        moveStartPos   = predictedPos;
+        earliestArrivalSec = Math.abs(position - predictedPos) / SLEW_RATE_MAX;
+        moveTimer.reset();
+        commandedPos   = position;
+        confirmedInPos = false;
+        hasCommand     = true;
+        update();
+    } // command
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Advance the model by the time elapsed since the last update (call once per loop)
+    public void update() {
+        double dt = updateTimer.seconds();
+        updateTimer.reset();
+        double error = commandedPos - predictedPos;
+        double step  = slewRate * dt;
+        predictedPos   = (Math.abs(error) <= step)? commandedPos : predictedPos + Math.signum(error)*step;
+        arrivalMsec    = 1000.0 * Math.abs(commandedPos - predictedPos) / slewRate;
+        predictedInPos = (Math.abs(commandedPos - predictedPos) < IN_POS_TOLERANCE);
+    } // update
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Do we need an analog sample this loop to confirm (or resync) the prediction?
+    public boolean needsFeedback() {
+        if( !confirmedInPos && (arrivalMsec <= CONFIRM_LEAD_MSEC) ) return true;
+        // Timing a move: watch for the actual arrival, even if it's sooner than predicted
+        if( !confirmedInPos && moveInitiated && (moveTimer.seconds() >= earliestArrivalSec) ) return true;
+        return (resyncTimer.milliseconds() >= RESYNC_MSEC);
+    } // needsFeedback
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Feed an analog position sample back into the model
+    public void feedback( double position ) {
+        measuredPos = position;
+        feedbackReads++;
+        resyncTimer.reset();
+        boolean inPos = (Math.abs(position - commandedPos) < IN_POS_TOLERANCE);
+        if( inPos && !confirmedInPos && moveInitiated ) {
+            // Refine our slew rate estimate using the time this move actually took
+            double moveSec = moveTimer.seconds();
+            if( moveSec > 0.0 ) {
+                double measuredRate = Math.abs(commandedPos - moveStartPos) / moveSec;
+                slewRate += SLEW_RATE_GAIN * (measuredRate - slewRate);
+                slewRate  = Math.max(SLEW_RATE_MIN, Math.min(SLEW_RATE_MAX, slewRate));
+            }
+            moveInitiated = false;
+        }
+        confirmedInPos = inPos;
+        // Resync the model to what we actually measured
+        predictedPos   = position;
+        arrivalMsec    = 1000.0 * Math.abs(commandedPos - predictedPos) / slewRate;
+        predictedInPos = inPos;
+    } // feedback
+
+    // How long since measuredPos was read
+    public double feedbackAgeMsec() {
+        return resyncTimer.milliseconds();
+    } // feedbackAgeMsec
+
+    /*--------------------------------------------------------------------------------------------*/
+    // How far ahead [sec] should we lead a target that is moving relative to the robot?
+    // (command latency, plus however long it will take the turret to get there)
+    public double feedForwardLead() {
+        return Math.min(FEEDFWD_LATENCY + arrivalMsec/1000.0, FEEDFWD_MAX_LEAD);
+    } // feedForwardLead
+
+} // TurretTracker
@@ -0,0 +1,235 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Desktop tool: fits the per-sensor ball color calibration from samples recorded with the
+ * TestColorCapture OpMode, and writes the BallColor_<name>.txt files that BallColorClassifier
+ * loads at init.  Plain Java, no dependencies:
+ *
+ *    adb pull /sdcard/FIRST/settings/ColorSamples.bin
+ *    javac ColorThresholdTrainer.java && java ColorThresholdTrainer ColorSamples.bin
+ *    adb push BallColor_Left.txt BallColor_Right.txt /sdcard/FIRST/settings/
+ *
+ * The model is the runtime one (nearest centroid in rg-chromaticity), so this just fits its
+ * parameters for each sensor:
+ *    seated       ball distance 5th..95th percentile (+/- a little), kept below empty readings
+ *    purple/green mean chromaticity of the seated samples of each color
+ *    spread       rms distance of those samples from their own centroid
+ *    minIntensity halfway between the brightest empty and the dimmest ball readings
+ * then replays every sample through the same decision rule and prints the confusion matrix.
+ */
+public class ColorThresholdTrainer {
+    final static int    FILE_MAGIC = 0x42435331;   // must match TestColorCapture
+    final static String[] SENSOR_NAMES = { "Left", "Right" };
+    final static String[] LABELS = { "empty", "purple", "green" };
+    final static int    EMPTY = 0, PURPLE = 1, GREEN = 2;
+    final static double SEATED_PAD_MM = 2.0;
+    final static double MIN_SPREAD    = 0.01;
+
+    // All samples
+    static int     count;
+    static byte[]  label, sensor;
+    static float[] red, green, blue, alpha, dist;
+
+    // Fitted calibration for the sensor being trained (same meaning as BallColorClassifier)
+    static double purpleR, purpleG, greenR, greenG, spread, minIntensity;
+    static double seatedMinMm, seatedMaxMm;
+
+    /*--------------------------------------------------------------------------------------------*/
+    public static void main( String[] args ) throws IOException {
+        if( args.length < 1 ) {
+            System.err.println("usage: java ColorThresholdTrainer ColorSamples.bin [outputDir]");
+            System.exit(1);
+        }
+        String outDir = (args.length > 1)? args[1] : ".";
+        load( args[0] );
+        System.out.printf( Locale.US, "%d samples from %s%n", count, args[0] );
+        for( int s=0; s<SENSOR_NAMES.length; s++ ) {
+            if( fit( s ) ) {
+                evaluate( s );
+                write( s, outDir );
+            }
+        }
+    } // main
+
+    /*--------------------------------------------------------------------------------------------*/
+    static void load( String fileName ) throws IOException {
+        try( DataInputStream in = new DataInputStream(
+                new BufferedInputStream( new FileInputStream(fileName) )) ) {
+            if( in.readInt() != FILE_MAGIC ) throw new IOException( fileName + ": not a color sample file" );
+            count  = in.readInt();
+            label  = new byte[count];   sensor = new byte[count];
+            red    = new float[count];  green  = new float[count];  blue = new float[count];
+            alpha  = new float[count];  dist   = new float[count];
+            for( int i=0; i<count; i++ ) {
+                label[i]  = in.readByte();
+                sensor[i] = in.readByte();
+                red[i]    = in.readFloat();
+                green[i]  = in.readFloat();
+                blue[i]   = in.readFloat();
+                alpha[i]  = in.readFloat();
+                dist[i]   = in.readFloat();
+            }
+        }
+    } // load
+
+    /*--------------------------------------------------------------------------------------------*/
+    static boolean fit( int s ) {
+        String name = SENSOR_NAMES[s];
+        int[] n = new int[3];
+        for( int i=0; i<count; i++ ) if( sensor[i] == s ) n[label[i]]++;
+        System.out.printf( Locale.US, "%n%s sensor: %d empty, %d purple, %d green%n", name, n[EMPTY], n[PURPLE], n[GREEN] );
+        if( (n[PURPLE] == 0) || (n[GREEN] == 0) ) {
+            System.out.println("  need both purple and green samples; skipped");
+            return false;
+        }
+
+        // Seated window from the ball distances (NaN = sensor has no distance; gate disabled)
+        double[] ballDist  = values( s, true,  dist );
+        double[] emptyDist = values( s, false, dist );
+        if( ballDist.length == 0 ) {
+            seatedMinMm = 0.0;
+            seatedMaxMm = 1000.0;
+        } else {
+            seatedMinMm = Math.max( 0.0, percentile( ballDist, 0.05 ) - SEATED_PAD_MM );
+            seatedMaxMm = percentile( ballDist, 0.95 ) + SEATED_PAD_MM;
+            if( emptyDist.length > 0 ) {
+                double emptyLo = percentile( emptyDist, 0.05 );
+                if( emptyLo < seatedMaxMm ) {
+                    System.out.printf( Locale.US, "  WARNING: empty distances overlap balls (%.1f < %.1f mm)%n", emptyLo, seatedMaxMm );
+                    // (strictly below the empty readings; 0.1 mm = the resolution we write)
+                    seatedMaxMm = Math.min( percentile( ballDist, 0.50 ), emptyLo - 0.1 );
+                }
+            }
+        }
+
+        // Centroids of the seated samples of each color
+        double[] sumR = new double[3], sumG = new double[3];
+        int[]    num  = new int[3];
+        for( int i=0; i<count; i++ ) {
+            if( (sensor[i] != s) || (label[i] == EMPTY) || !seated(i) ) continue;
+            double sum = red[i] + green[i] + blue[i];
+            if( sum <= 0.0 ) continue;
+            sumR[label[i]] += red[i] / sum;
+            sumG[label[i]] += green[i] / sum;
+            num[label[i]]++;
+        }
+        if( (num[PURPLE] == 0) || (num[GREEN] == 0) ) {
+            System.out.println("  no seated purple/green samples; skipped");
+            return false;
+        }
+        purpleR = sumR[PURPLE] / num[PURPLE];  purpleG = sumG[PURPLE] / num[PURPLE];
+        greenR  = sumR[GREEN]  / num[GREEN];   greenG  = sumG[GREEN]  / num[GREEN];
+
+        // Spread = rms distance from own centroid (worse of the two colors)
+        double[] sq = new double[3];
+        for( int i=0; i<count; i++ ) {
+            if( (sensor[i] != s) || (label[i] == EMPTY) || !seated(i) ) continue;
+            double sum = red[i] + green[i] + blue[i];
+            if( sum <= 0.0 ) continue;
+            double cr = red[i]/sum - ((label[i] == PURPLE)? purpleR : greenR);
+            double cg = green[i]/sum - ((label[i] == PURPLE)? purpleG : greenG);
+            sq[label[i]] += cr*cr + cg*cg;
+        }
+        spread = Math.max( MIN_SPREAD, Math.max( Math.sqrt(sq[PURPLE]/num[PURPLE]), Math.sqrt(sq[GREEN]/num[GREEN]) ) );
+
+        // Intensity threshold between empty and ball
+        double[] ballI  = intensities( s, true );
+        double[] emptyI = intensities( s, false );
+        double ballLo = percentile( ballI, 0.05 );
+        if( emptyI.length == 0 ) {
+            minIntensity = 0.5 * ballLo;
+        } else {
+            double emptyHi = percentile( emptyI, 0.95 );
+            if( emptyHi >= ballLo ) {
+                System.out.printf( Locale.US, "  WARNING: empty intensity overlaps balls (%.4f >= %.4f)%n", emptyHi, ballLo );
+            }
+            minIntensity = 0.5 * (emptyHi + ballLo);
+        }
+        return true;
+    } // fit
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Replay every sample for this sensor through the runtime decision rule
+    static void evaluate( int s ) {
+        int[][] confusion = new int[3][4];   // [actual][predicted; 3 = rejected (not seated)]
+        for( int i=0; i<count; i++ ) {
+            if( sensor[i] != s ) continue;
+            confusion[label[i]][ seated(i)? classify(i) : 3 ]++;
+        }
+        System.out.println("  actual \\ predicted   empty  purple   green  unseated");
+        for( int a=0; a<3; a++ ) {
+            System.out.printf( Locale.US, "  %-18s %7d %7d %7d %9d%n", LABELS[a],
+                    confusion[a][0], confusion[a][1], confusion[a][2], confusion[a][3] );
+        }
+        int wrong = confusion[PURPLE][GREEN] + confusion[GREEN][PURPLE];
+        System.out.printf( Locale.US, "  purple/green swapped: %d%n", wrong );
+    } // evaluate
+
+    // Same rule as BallColorClassifier.classify() (class only)
+    static int classify( int i ) {
+        double intensity = red[i] + green[i] + blue[i];
+        if( intensity < minIntensity ) return EMPTY;
+        double cr = red[i] / intensity, cg = green[i] / intensity;
+        double dPurple = Math.hypot( cr - purpleR, cg - purpleG );
+        double dGreen  = Math.hypot( cr - greenR,  cg - greenG  );
+        if( Math.min( dPurple, dGreen ) >= 3.0*spread ) return EMPTY;   // fit = 0
+        return (dPurple < dGreen)? PURPLE : GREEN;
+    } // classify
+
+    /*--------------------------------------------------------------------------------------------*/
+    static void write( int s, String outDir ) throws IOException {
+        String fileName = outDir + "/BallColor_" + SENSOR_NAMES[s] + ".txt";
+        try( PrintWriter out = new PrintWriter( fileName ) ) {
+            out.println("# Generated by ColorThresholdTrainer");
+            out.println("gain   1.0 1.0 1.0");
+            out.printf( Locale.US, "purple %.4f %.4f%n", purpleR, purpleG );
+            out.printf( Locale.US, "green  %.4f %.4f%n", greenR, greenG );
+            out.printf( Locale.US, "spread %.4f%n", spread );
+            out.printf( Locale.US, "minIntensity %.4f%n", minIntensity );
+            out.printf( Locale.US, "seated %.1f %.1f%n", seatedMinMm, seatedMaxMm );
+        }
+        System.out.println("  wrote " + fileName);
+    } // write
+
+    /*--------------------------------------------------------------------------------------------*/
+    static boolean seated( int i ) {
+        return Float.isNaN( dist[i] ) || ((dist[i] >= seatedMinMm) && (dist[i] <= seatedMaxMm));
+    } // seated
+
+    // Non-NaN values of one field for this sensor's ball (or empty) samples, sorted
+    static double[] values( int s, boolean balls, float[] field ) {
+        double[] v = new double[count];
+        int n = 0;
+        for( int i=0; i<count; i++ ) {
+            if( (sensor[i] != s) || ((label[i] != EMPTY) != balls) || Float.isNaN(field[i]) ) continue;
+            v[n++] = field[i];
+        }
+        v = Arrays.copyOf( v, n );
+        Arrays.sort( v );
+        return v;
+    } // values
+
+    static double[] intensities( int s, boolean balls ) {
+        double[] v = new double[count];
+        int n = 0;
+        for( int i=0; i<count; i++ ) {
+            if( (sensor[i] != s) || ((label[i] != EMPTY) != balls) || (balls && !seated(i)) ) continue;
+            v[n++] = red[i] + green[i] + blue[i];
+        }
+        v = Arrays.copyOf( v, n );
+        Arrays.sort( v );
+        return v;
+    } // intensities
+
+    static double percentile( double[] sorted, double p ) {
+        if( sorted.length == 0 ) return 0.0;
+        return sorted[ (int) Math.min( sorted.length - 1, Math.round( p * (sorted.length - 1) ) ) ];
+    } // percentile
+
+} // ColorThresholdTrainer
@@ -0,0 +1,317 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Desktop tool: turns the autonomous paths recorded by the robot (AutoPaths.txt, written by
+ * TrajectoryLibrary the first time each path is driven) into time-optimal trajectories, and
+ * writes the AutoTrajectories.bin file that TrajectoryLibrary loads at init.  Plain Java, no
+ * dependencies:
+ *
+ *    adb pull /sdcard/FIRST/settings/AutoPaths.txt
+ *    javac TrajectoryCompiler.java && java TrajectoryCompiler AutoPaths.txt
+ *    adb push AutoTrajectories.bin /sdcard/FIRST/settings/
+ *
+ * Each path becomes the same curve PurePursuitFollower drives (centripetal Catmull-Rom through
+ * the waypoints, broken at every DRIVE_TO waypoint, heading interpolated along each leg), sampled
+ * finely.  Progress along it is measured in wheel power-seconds, the way AutonomousBase.
+ * ApplyMovement() mixes the drive:  |forward|/ipsPerPower + |strafe|/ipsPerPower + |turn|/dpsPerPower
+ * so the speed limits are exactly our drivetrain's:
+ *    wheel power  <= the leg's speedMax (robot-frame strafe and rotation included)
+ *    turn rate    <= the leg's turnMax (but never below MIN_TURN_DPS, like ProfiledMove)
+ *    lateral acceleration around curves <= MAX_LATERAL_IPS2
+ *    zero speed at the start, at each DRIVE_TO waypoint and at a DRIVE_TO end
+ * then forward (acceleration) and backward (deceleration) passes give the fastest speed at every
+ * point, time is integrated, and the result is resampled every SAMPLE_DT seconds with the pose,
+ * velocity and acceleration at each sample.  The limits must match the robot code (noted below).
+ * A path recorded more than once keeps its latest recording.
+ */
+public class TrajectoryCompiler {
+    final static int    FILE_MAGIC       = 0x4154524A;   // must match TrajectoryLibrary
+    final static int    FILE_VERSION     = 1;
+    final static int    DRIVE_TO         = 1;            // AutonomousBase
+    final static double IPS_PER_POWER    = 50.0;         // MechanismScheduler.IPS_PER_POWER
+    final static double DPS_PER_POWER    = 360.0;        // ProfiledMove
+    final static double MIN_TURN_DPS     = 90.0;         // ProfiledMove
+    final static double MAX_ACCEL_IPS2   = 60.0;         // PurePursuitFollower
+    final static double MAX_DECEL_IPS2   = 45.0;
+    final static double MAX_LATERAL_IPS2 = 70.0;
+    final static double SAMPLE_SPACING   = 0.5;          // inches along the curve
+    final static double SAMPLE_DEGREES   = 1.0;          // degrees of rotation
+    final static double SAMPLE_DT        = 0.02;         // seconds between output samples
+
+    // One recorded path
+    static class Path {
+        int      key;
+        double   startX, startY, startDeg;
+        double[] x, y, angle, speed, turn;
+        int[]    type;
+    } // Path
+
+    // The planned curve (before resampling in time)
+    static List<double[]> points;     // { x, y, headingDeg (unwrapped), maxPower }
+    static int[]    waypointIndex;    // point at each waypoint
+    static double[] dp, ds;           // per step: wheel power-seconds, inches
+    static double[] u;                // wheel power at each point
+    static double[] time;             // seconds at each point
+
+    /*--------------------------------------------------------------------------------------------*/
+    public static void main( String[] args ) throws IOException {
+        if( args.length < 1 ) {
+            System.err.println("usage: java TrajectoryCompiler AutoPaths.txt [AutoTrajectories.bin]");
+            System.exit(1);
+        }
+        String outFile = (args.length > 1)? args[1] : "AutoTrajectories.bin";
+        Map<Integer,Path> paths = load( args[0] );
+        System.out.printf( Locale.US, "%d paths from %s%n", paths.size(), args[0] );
+        try( DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( new FileOutputStream(outFile) )) ) {
+            out.writeInt( FILE_MAGIC );
+            out.writeInt( FILE_VERSION );
+            out.writeInt( paths.size() );
+            for( Path path : paths.values() ) {
+                plan( path );
+                write( path, out );
+            }
+        }
+        System.out.println( "wrote " + outFile );
+    } // main
+
+    /*--------------------------------------------------------------------------------------------*/
+    // "path <key> <startX> <startY> <startDeg> <n>" then n "x y angle speed turn type" lines
+    static Map<Integer,Path> load( String fileName ) throws IOException {
+        Map<Integer,Path> paths = new LinkedHashMap<>();
+        List<String> lines = new ArrayList<>();
+        for( String line : Files.readAllLines( Paths.get(fileName), StandardCharsets.UTF_8 ) ) {
+            line = line.trim();
+            if( !line.isEmpty() && !line.startsWith("#") ) lines.add( line );
+        }
+        for( int l=0; l<lines.size(); ) {
+            String[] tok = lines.get(l++).split("\\s+");
+            if( !tok[0].equals("path") ) throw new IOException( "expected a path line: " + lines.get(l-1) );
+            Path path = new Path();
+            path.key      = Integer.parseInt( tok[1] );
+            path.startX   = Double.parseDouble( tok[2] );
+            path.startY   = Double.parseDouble( tok[3] );
+            path.startDeg = Double.parseDouble( tok[4] );
+            int n = Integer.parseInt( tok[5] );
+            path.x = new double[n];  path.y = new double[n];  path.angle = new double[n];
+            path.speed = new double[n];  path.turn = new double[n];  path.type = new int[n];
+            for( int k=0; k<n; k++ ) {
+                tok = lines.get(l++).split("\\s+");
+                path.x[k]     = Double.parseDouble( tok[0] );
+                path.y[k]     = Double.parseDouble( tok[1] );
+                path.angle[k] = Double.parseDouble( tok[2] );
+                path.speed[k] = Double.parseDouble( tok[3] );
+                path.turn[k]  = Double.parseDouble( tok[4] );
+                path.type[k]  = Integer.parseInt( tok[5] );
+            }
+            paths.remove( path.key );    // keep the latest recording, in its latest position
+            paths.put( path.key, path );
+        }
+        return paths;
+    } // load
+
+    /*--------------------------------------------------------------------------------------------*/
+    static void plan( Path path ) {
+        int n = path.x.length;
+        // Waypoints with the starting pose in front
+        double[] wx = new double[n+1], wy = new double[n+1], wa = new double[n+1];
+        wx[0] = path.startX;  wy[0] = path.startY;  wa[0] = path.startDeg;
+        for( int k=0; k<n; k++ ) {
+            wx[k+1] = path.x[k];  wy[k+1] = path.y[k];
+            wa[k+1] = wa[k] + wrapDegrees( path.angle[k] - wa[k] );   // unwrapped
+        }
+        // Sample the curve, one leg (ending at a DRIVE_TO or the end) at a time
+        points = new ArrayList<>();
+        waypointIndex = new int[n];
+        points.add( new double[] { wx[0], wy[0], wa[0], 0.0 } );
+        int legStart = 0;   // waypoint (in wx[]) the current leg starts from
+        for( int k=1; k<=n; k++ ) {
+            // Centripetal Catmull-Rom (end tangents by reflection at the ends of the leg)
+            boolean legContinues = (k < n) && (path.type[k-1] != DRIVE_TO);
+            double x0 = (k-1 > legStart)? wx[k-2] : 2*wx[k-1] - wx[k];
+            double y0 = (k-1 > legStart)? wy[k-2] : 2*wy[k-1] - wy[k];
+            double x3 = (legContinues)? wx[k+1] : 2*wx[k] - wx[k-1];
+            double y3 = (legContinues)? wy[k+1] : 2*wy[k] - wy[k-1];
+            double chord = Math.hypot( wx[k] - wx[k-1], wy[k] - wy[k-1] );
+            int steps = Math.max( 1, (int)Math.max( Math.ceil( chord / SAMPLE_SPACING ),
+                                                    Math.ceil( Math.abs(wa[k] - wa[k-1]) / SAMPLE_DEGREES ) ) );
+            for( int j=1; j<=steps; j++ ) {
+                double t = (double)j / steps;
+                double[] p = (chord < 1.0e-6)? new double[] { wx[k], wy[k] } :
+                             spline( x0, y0, wx[k-1], wy[k-1], wx[k], wy[k], x3, y3, t );
+                points.add( new double[] { p[0], p[1], 0.0, path.speed[k-1] } );
+            }
+            waypointIndex[k-1] = points.size() - 1;
+            if( path.type[k-1] == DRIVE_TO ) legStart = k;
+        }
+        // Heading in proportion to arc length along each leg between waypoints
+        int m = points.size();
+        ds = new double[m];
+        dp = new double[m];
+        int from = 0;
+        for( int k=0; k<n; k++ ) {
+            int to = waypointIndex[k];
+            double length = 0.0;
+            for( int i=from; i<to; i++ ) length += dist( i );
+            double s = 0.0;
+            for( int i=from+1; i<=to; i++ ) {
+                s += dist( i-1 );
+                double fraction = (length > 1.0e-9)? s / length : (double)(i - from) / (to - from);
+                points.get(i)[2] = wa[k] + fraction * (wa[k+1] - wa[k]);
+            }
+            from = to;
+        }
+        // Step sizes: inches, and wheel power-seconds (robot-frame forward + strafe + rotation)
+        for( int i=0; i<m-1; i++ ) {
+            double[] a = points.get(i), b = points.get(i+1);
+            double dx = b[0] - a[0], dy = b[1] - a[1];
+            double heading = Math.toRadians( 0.5 * (a[2] + b[2]) );
+            double forward = dx * Math.cos(heading) + dy * Math.sin(heading);
+            double strafe  = -dx * Math.sin(heading) + dy * Math.cos(heading);
+            ds[i] = Math.hypot( dx, dy );
+            dp[i] = (Math.abs(forward) + Math.abs(strafe)) / IPS_PER_POWER + Math.abs(b[2] - a[2]) / DPS_PER_POWER;
+        }
+        // Speed limit at each point
+        u = new double[m];
+        int leg = 0;
+        for( int i=0; i<m; i++ ) {
+            while( (leg < n-1) && (i > waypointIndex[leg]) ) leg++;
+            double limit = points.get(i)[3];
+            if( i < m-1 ) limit = Math.min( limit, stepLimit( i, path.turn[leg] ) );
+            if( i > 0 )   limit = Math.min( limit, stepLimit( i-1, path.turn[leg] ) );
+            if( (i > 0) && (i < m-1) ) {
+                double curvature = curvature( i );
+                double stepDs = 0.5 * (ds[i-1] + ds[i]), stepDp = 0.5 * (dp[i-1] + dp[i]);
+                if( (curvature > 1.0e-6) && (stepDs > 1.0e-9) ) {
+                    limit = Math.min( limit, Math.sqrt( MAX_LATERAL_IPS2 / curvature ) * stepDp / stepDs );
+                }
+            }
+            u[i] = limit;
+        }
+        u[0] = 0.0;
+        for( int k=0; k<n; k++ ) {
+            if( path.type[k] == DRIVE_TO ) u[ waypointIndex[k] ] = 0.0;
+        }
+        // Decelerate (backward) and accelerate (forward) passes, in wheel power per second
+        double accel = MAX_ACCEL_IPS2 / IPS_PER_POWER, decel = MAX_DECEL_IPS2 / IPS_PER_POWER;
+        for( int i=m-2; i>=0; i-- ) u[i] = Math.min( u[i], Math.sqrt( u[i+1]*u[i+1] + 2.0*decel*dp[i] ) );
+        for( int i=1; i<m; i++ )    u[i] = Math.min( u[i], Math.sqrt( u[i-1]*u[i-1] + 2.0*accel*dp[i-1] ) );
+        // Time at each point
+        time = new double[m];
+        for( int i=1; i<m; i++ ) {
+            double avg = 0.5 * (u[i-1] + u[i]);
+            time[i] = time[i-1] + ((dp[i-1] > 0.0)? dp[i-1] / Math.max( avg, 1.0e-6 ) : 0.0);
+        }
+    } // plan
+
+    // Fastest wheel power for step i with the turn rate limited the way ProfiledMove limits it
+    static double stepLimit( int i, double turnMax ) {
+        double dDeg = Math.abs( points.get(i+1)[2] - points.get(i)[2] );
+        if( dDeg < 1.0e-9 ) return Double.MAX_VALUE;
+        double maxDps = Math.max( MIN_TURN_DPS, turnMax * DPS_PER_POWER );
+        return maxDps * dp[i] / dDeg;
+    } // stepLimit
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Resample every SAMPLE_DT (evenly, ending exactly at the end) and write the trajectory
+    static void write( Path path, DataOutputStream out ) throws IOException {
+        int m = points.size();
+        double duration = time[m-1];
+        int numSamples = Math.max( 2, (int)Math.ceil( duration / SAMPLE_DT ) + 1 );
+        double dt = duration / (numSamples - 1);
+        double[][] s = new double[numSamples][8];
+        int i = 0;
+        for( int j=0; j<numSamples; j++ ) {
+            double t = Math.min( j * dt, duration );
+            while( (i < m-2) && (time[i+1] <= t) ) i++;
+            double[] a = points.get(i), b = points.get(i+1);
+            // Constant (wheel power) acceleration over the step
+            double stepTime = time[i+1] - time[i];
+            double tau = Math.max( 0.0, Math.min( t - time[i], stepTime ) );
+            double uNow = (stepTime > 0.0)? u[i] + (u[i+1] - u[i]) * tau / stepTime : u[i+1];
+            double p    = (stepTime > 0.0)? tau * 0.5 * (u[i] + uNow) : dp[i];
+            double f    = (dp[i] > 0.0)? Math.min( 1.0, p / dp[i] ) : 1.0;
+            s[j][0] = a[0] + f * (b[0] - a[0]);
+            s[j][1] = a[1] + f * (b[1] - a[1]);
+            s[j][2] = a[2] + f * (b[2] - a[2]);
+            double rate = (dp[i] > 0.0)? uNow / dp[i] : 0.0;   // fraction of the step per second
+            s[j][3] = (b[0] - a[0]) * rate;
+            s[j][4] = (b[1] - a[1]) * rate;
+            s[j][5] = (b[2] - a[2]) * rate;
+        }
+        // Acceleration from the velocities
+        for( int j=0; j<numSamples; j++ ) {
+            int j0 = Math.max( 0, j-1 ), j1 = Math.min( numSamples-1, j+1 );
+            double span = (j1 - j0) * dt;
+            s[j][6] = (span > 0.0)? (s[j1][3] - s[j0][3]) / span : 0.0;
+            s[j][7] = (span > 0.0)? (s[j1][4] - s[j0][4]) / span : 0.0;
+        }
+        out.writeInt( path.key );
+        out.writeFloat( (float)dt );
+        out.writeInt( numSamples );
+        out.writeInt( path.x.length );
+        for( int k=0; k<path.x.length; k++ ) out.writeFloat( (float)time[ waypointIndex[k] ] );
+        double length = 0.0, peak = 0.0;
+        for( int j=0; j<numSamples; j++ ) {
+            for( int v=0; v<8; v++ ) out.writeFloat( (float)s[j][v] );
+            peak = Math.max( peak, Math.hypot( s[j][3], s[j][4] ) );
+        }
+        for( int k=0; k<m-1; k++ ) length += ds[k];
+        System.out.printf( Locale.US, "  path %11d: %2d waypoints %6.1f in  %5.2f sec  peak %5.1f in/s  (%d samples)%n",
+                path.key, path.x.length, length, duration, peak, numSamples );
+    } // write
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Point at fraction t of the way from p1 to p2 (same as PurePursuitFollower.spline)
+    static double[] spline( double x0, double y0, double x1, double y1, double x2, double y2,
+                            double x3, double y3, double t ) {
+        double t0 = 0.0;
+        double t1 = t0 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x1-x0, y1-y0 ) ) );
+        double t2 = t1 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x2-x1, y2-y1 ) ) );
+        double t3 = t2 + Math.max( 1.0e-3, Math.sqrt( Math.hypot( x3-x2, y3-y2 ) ) );
+        double v  = t1 + t * (t2 - t1);
+        double a1x = lerp( x0, x1, t0, t1, v ), a1y = lerp( y0, y1, t0, t1, v );
+        double a2x = lerp( x1, x2, t1, t2, v ), a2y = lerp( y1, y2, t1, t2, v );
+        double a3x = lerp( x2, x3, t2, t3, v ), a3y = lerp( y2, y3, t2, t3, v );
+        double b1x = lerp( a1x, a2x, t0, t2, v ), b1y = lerp( a1y, a2y, t0, t2, v );
+        double b2x = lerp( a2x, a3x, t1, t3, v ), b2y = lerp( a2y, a3y, t1, t3, v );
+        return new double[] { lerp( b1x, b2x, t1, t2, v ), lerp( b1y, b2y, t1, t2, v ) };
+    } // spline
+
+    static double lerp( double a, double b, double ta, double tb, double t ) {
+        return a + (b - a) * (t - ta) / (tb - ta);
+    } // lerp
+
+    static double dist( int i ) {
+        double[] a = points.get(i), b = points.get(i+1);
+        return Math.hypot( b[0] - a[0], b[1] - a[1] );
+    } // dist
+
+    // Menger curvature (1/radius) through points i-1, i, i+1
+    static double curvature( int i ) {
+        double[] p0 = points.get(i-1), p1 = points.get(i), p2 = points.get(i+1);
+        double ax = p1[0] - p0[0], ay = p1[1] - p0[1];
+        double bx = p2[0] - p1[0], by = p2[1] - p1[1];
+        double cx = p2[0] - p0[0], cy = p2[1] - p0[1];
+        double denominator = Math.hypot(ax,ay) * Math.hypot(bx,by) * Math.hypot(cx,cy);
+        return (denominator > 1.0e-9)? Math.abs( 2.0*(ax*by - ay*bx) ) / denominator : 0.0;
+    } // curvature
+
+    static double wrapDegrees( double deg ) {
+        while( deg >=  180.0 ) deg -= 360.0;
+        while( deg <  -180.0 ) deg += 360.0;
+        return deg;
+    } // wrapDegrees
+
+} // TrajectoryCompiler